@@ -3,9 +3,11 @@ package org.example.baozi.book;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("org.example.baozi.book.mapper")
+@EnableScheduling
 public class BookApplication {
 
     public static void main(String[] args) {
@@ -1,5 +1,6 @@
 package org.example.baozi.book.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.example.baozi.book.filter.JwtAuthenticationTokenFilter;
 import org.example.baozi.book.security.UserDetailsServiceImpl;
@@ -78,6 +79,8 @@ public class SecurityConfig {
             .authorizeHttpRequests()
                 // 登录注册认证相关接口允许所有人访问
                 .requestMatchers("/api/auth/register/**","/api/auth/login/**").permitAll()
+                // SSE连接结束时的异步分派，原请求已经过认证
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // 静态资源允许所有人访问
                 .requestMatchers("/css/**", "/js/**", "/images/**").permitAll()
                 // 学生角色才能访问的路径
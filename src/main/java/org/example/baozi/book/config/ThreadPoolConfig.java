@@ -0,0 +1,46 @@
+package org.example.baozi.book.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池配置类
+ */
+@Configuration
+public class ThreadPoolConfig {
+
+    /**
+     * 封面图片处理线程池（解码、计算感知哈希等CPU密集任务）
+     * 队列满时由调用线程执行，避免任务堆积
+     * @return 线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService coverProcessExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(256),
+                r -> new Thread(r, "cover-process-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * SSE事件推送线程池，只负责把事件写到客户端连接
+     * 任务队列满时拒绝，由推送中心断开对应的连接
+     * @return 线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService sseExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(4096),
+                r -> new Thread(r, "sse-push-" + threadIndex.incrementAndGet()));
+    }
+}
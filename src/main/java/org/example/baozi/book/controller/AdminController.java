@@ -2,19 +2,34 @@ package org.example.baozi.book.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.example.baozi.book.entity.PayoutBatch;
+import org.example.baozi.book.entity.PricingRule;
 import org.example.baozi.book.entity.ReasonTemplate;
 import org.example.baozi.book.entity.Report;
 import org.example.baozi.book.entity.User;
 import org.example.baozi.book.response.PageResult;
 import org.example.baozi.book.response.ResponseMessage;
 import org.example.baozi.book.service.AdminService;
+import org.example.baozi.book.service.CollectorStatService;
+import org.example.baozi.book.service.CoverCacheService;
+import org.example.baozi.book.service.PricingService;
 import org.example.baozi.book.service.ReasonTemplateService;
 import org.example.baozi.book.service.ReportService;
+import org.example.baozi.book.service.SettlementService;
 import org.example.baozi.book.service.UserService;
 import org.example.baozi.book.util.JWTUtil;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +47,10 @@ public class AdminController {
     private final ReportService reportService;
     private final ReasonTemplateService reasonTemplateService;
     private final PasswordEncoder passwordEncoder;
+    private final CoverCacheService coverCacheService;
+    private final SettlementService settlementService;
+    private final PricingService pricingService;
+    private final CollectorStatService collectorStatService;
 
     /**
      * 管理员修改密码
@@ -79,15 +98,19 @@ public class AdminController {
      * @param page 页码
      * @param size 每页大小
      * @param status 处理状态
+     * @param cursor 游标，传入时使用游标分页（首页传空字符串），忽略page
      * @return 分页结果
      */
     @GetMapping("/reports")
     public ResponseMessage<PageResult<Report>> getReportList(
             @RequestParam(value = "page", defaultValue = "1") Integer page,
             @RequestParam(value = "size", defaultValue = "10") Integer size,
-            @RequestParam(value = "status", required = false) Integer status) {
+            @RequestParam(value = "status", required = false) Integer status,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         
-        PageResult<Report> result = reportService.getReportPage(page, size, status);
+        PageResult<Report> result = cursor != null
+                ? reportService.getReportPageByCursor(cursor, size, status)
+                : reportService.getReportPage(page, size, status);
         return ResponseMessage.success(result);
     }
     
@@ -347,4 +370,190 @@ public class AdminController {
             return ResponseMessage.error("删除失败或模板不存在");
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 获取封面缓存统计信息
+     * @param request 请求
+     * @return 命中率、容量使用等指标
+     */
+    @GetMapping("/cache/cover")
+    public ResponseMessage<Map<String, Object>> getCoverCacheStats(HttpServletRequest request) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+        
+        // 验证是否为管理员
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseMessage.error("无权限查看缓存信息");
+        }
+        
+        return ResponseMessage.success(coverCacheService.getStats());
+    }
+
+    /**
+     * 获取最近的打款批次
+     * @param request 请求
+     * @param limit 数量
+     * @return 打款批次
+     */
+    @GetMapping("/payouts")
+    public ResponseMessage<?> listPayoutBatches(HttpServletRequest request,
+                                                @RequestParam(value = "limit", defaultValue = "20") Integer limit) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseMessage.error("无权限查看打款信息");
+        }
+        return ResponseMessage.success(settlementService.listBatches(limit));
+    }
+
+    /**
+     * 立即汇总未结算的流水，生成打款批次
+     * @param request 请求
+     * @return 新的打款批次
+     */
+    @PostMapping("/payouts")
+    public ResponseMessage<?> runPayout(HttpServletRequest request) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseMessage.error("无权限操作");
+        }
+        PayoutBatch batch = settlementService.runPayout();
+        if (batch == null) {
+            return ResponseMessage.error("没有需要结算的流水，或其他节点正在生成打款批次");
+        }
+        return ResponseMessage.success(batch);
+    }
+
+    /**
+     * 下载打款批次的文件
+     * @param request 请求
+     * @param id 批次ID
+     * @return CSV文件
+     */
+    @GetMapping("/payouts/{id}/file")
+    public ResponseEntity<?> downloadPayoutFile(HttpServletRequest request, @PathVariable Long id) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ResponseMessage.error("无权限操作"));
+        }
+        Path file = settlementService.getBatchFile(id);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * 获取全部回收价格规则
+     * @param request 请求
+     * @return 价格规则列表
+     */
+    @GetMapping("/pricing-rules")
+    public ResponseMessage<?> listPricingRules(HttpServletRequest request) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseMessage.error("无权限查看价格规则");
+        }
+        return ResponseMessage.success(pricingService.listRules());
+    }
+
+    /**
+     * 添加回收价格规则，校区为空表示全部校区，生效和失效时间为空表示不限
+     * @param request 请求
+     * @param rule 价格规则
+     * @return 保存后的规则
+     */
+    @PostMapping("/pricing-rules")
+    public ResponseMessage<?> addPricingRule(HttpServletRequest request, @RequestBody PricingRule rule) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseMessage.error("无权限修改价格规则");
+        }
+        rule.setId(null);
+        return ResponseMessage.success(pricingService.saveRule(rule));
+    }
+
+    /**
+     * 修改回收价格规则
+     * @param request 请求
+     * @param id 规则ID
+     * @param rule 价格规则
+     * @return 保存后的规则
+     */
+    @PutMapping("/pricing-rules/{id}")
+    public ResponseMessage<?> updatePricingRule(HttpServletRequest request, @PathVariable Integer id,
+                                                @RequestBody PricingRule rule) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseMessage.error("无权限修改价格规则");
+        }
+        rule.setId(id);
+        return ResponseMessage.success(pricingService.saveRule(rule));
+    }
+
+    /**
+     * 删除回收价格规则
+     * @param request 请求
+     * @param id 规则ID
+     * @return 响应消息
+     */
+    @DeleteMapping("/pricing-rules/{id}")
+    public ResponseMessage<?> deletePricingRule(HttpServletRequest request, @PathVariable Integer id) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseMessage.error("无权限修改价格规则");
+        }
+        if (pricingService.deleteRule(id)) {
+            return ResponseMessage.success("删除成功");
+        }
+        return ResponseMessage.error("删除失败或规则不存在");
+    }
+
+    /**
+     * 获取收书员或校区的业绩统计，collectorId和campus二选一
+     * @param request 请求
+     * @param collectorId 收书员ID
+     * @param campus 校区
+     * @param from 开始日期，默认为结束日期前6天
+     * @param to 结束日期，默认为今天
+     * @return 业绩统计
+     */
+    @GetMapping("/collector-stats")
+    public ResponseMessage<?> getCollectorStats(
+            HttpServletRequest request,
+            @RequestParam(value = "collectorId", required = false) String collectorId,
+            @RequestParam(value = "campus", required = false) String campus,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String username = JWTUtil.getUsernameFromToken(token);
+
+        if (!adminService.isReportAdmin(username) && !adminService.isStudentAdmin(username)) {
+            return ResponseMessage.error("无权限查看业绩统计");
+        }
+        if ((collectorId == null) == (campus == null)) {
+            return ResponseMessage.error("请指定收书员或校区");
+        }
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(6) : from;
+        return ResponseMessage.success(collectorId != null
+                ? collectorStatService.getCollectorStats(collectorId, start, end)
+                : collectorStatService.getCampusStats(campus, start, end));
+    }
+}
@@ -5,28 +5,40 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.baozi.book.entity.Book;
+import org.example.baozi.book.entity.BookCatalog;
 import org.example.baozi.book.entity.RecyclableBook;
 import org.example.baozi.book.entity.SealedBook;
 import org.example.baozi.book.entity.Student;
 import org.example.baozi.book.response.PageResult;
 import org.example.baozi.book.response.ResponseMessage;
+import org.example.baozi.book.service.BookCatalogService;
 import org.example.baozi.book.service.BookService;
+import org.example.baozi.book.service.CoverCacheService;
+import org.example.baozi.book.service.ListingResponseCacheService;
+import org.example.baozi.book.service.RecyclableBookSearchService;
 import org.example.baozi.book.service.RecyclableBookService;
+import org.example.baozi.book.service.RecyclableBookSuggestService;
 import org.example.baozi.book.service.SealedBookService;
 import org.example.baozi.book.service.StudentService;
+import org.example.baozi.book.service.TrendingService;
+import org.example.baozi.book.service.UploadTaskService;
 import org.example.baozi.book.util.JWTUtil;
 import org.example.baozi.book.vo.RecyclableBookVO;
-import org.example.baozi.book.vo.SealedBookVO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,10 +56,29 @@ public class BookController {
     private final BookService bookService;
 
     private final RecyclableBookService recyclableBookService;
+
+    private final RecyclableBookSuggestService recyclableBookSuggestService;
     
     private final SealedBookService sealedBookService;
 
     private final StudentService studentService;
+
+    private final CoverCacheService coverCacheService;
+
+    private final UploadTaskService uploadTaskService;
+
+    private final ListingResponseCacheService listingResponseCacheService;
+
+    private final BookCatalogService bookCatalogService;
+
+    private final TrendingService trendingService;
+
+    // 使用响应缓存的最大页码和每页条数
+    private static final int MAX_CACHED_PAGE = 5;
+    private static final int MAX_CACHED_PAGE_SIZE = 50;
+
+    // 批量上传的最大书籍数量
+    private static final int MAX_BATCH_SIZE = 20;
     
     /**
      * 添加待售书籍---同时创建订单
@@ -96,6 +127,64 @@ public class BookController {
         }
     }
     
+    /**
+     * 异步添加待售书籍---图片暂存后立即返回任务ID，由后台写入书籍和订单
+     * @param request token请求
+     * @param bookImage 书籍图片
+     * @param weight 书籍重量
+     * @return 任务ID
+     */
+    @PostMapping("/sealed/async")
+    public ResponseMessage<?> addSealedBookAsync(
+            HttpServletRequest request,
+            @RequestParam(value = "bookImage", required = false) MultipartFile bookImage,
+            @RequestParam("weight") Double weight) {
+
+        String token = JWTUtil.getTokenFromAuthorization(request);
+
+        try {
+            // 获取当前学生信息
+            String studentId = JWTUtil.getUsernameFromToken(token);
+            Student student = studentService.getStudentById(studentId);
+
+            if (student == null) {
+                return ResponseMessage.error("学生信息不存在");
+            }
+
+            String taskId = uploadTaskService.submitSealedUpload(studentId, student.getCampus(), bookImage, weight);
+            if (taskId == null) {
+                return ResponseMessage.info(429, "上传人数过多，请稍后重试");
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "上传已受理，正在处理");
+            response.put("taskId", taskId);
+            return ResponseMessage.success(response);
+        } catch (IOException e) {
+            return ResponseMessage.error("图片处理失败");
+        } catch (Exception e) {
+            return ResponseMessage.error("添加待售书籍失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询异步上传任务状态
+     * @param request token请求
+     * @param taskId 任务ID
+     * @return 任务状态，完成后包含待售书籍ID和订单ID
+     */
+    @GetMapping("/sealed/async/{taskId}")
+    public ResponseMessage<?> getSealedUploadStatus(HttpServletRequest request, @PathVariable String taskId) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+
+        Map<String, Object> status = uploadTaskService.getTaskStatus(taskId, studentId);
+        if (status == null) {
+            return ResponseMessage.notfound("上传任务不存在或已过期");
+        }
+        return ResponseMessage.success(status);
+    }
+    
     /**
      * 添加可回收书籍
      * @param request 浏览器请求
@@ -145,24 +234,167 @@ public class BookController {
         }
     }
     
+    /**
+     * 批量添加可回收书籍
+     * 各参数按下标一一对应，每本书单独返回处理结果
+     * @param request 浏览器请求
+     * @param bookCovers 书籍封面图片
+     * @param bookNames 书名
+     * @param printingEditions 印刷版次
+     * @param publishers 出版商
+     * @return 每本书的添加结果
+     */
+    @PostMapping("/recycle/batch")
+    public ResponseMessage<?> addRecyclableBooks(
+            HttpServletRequest request,
+            @RequestParam("bookCovers") List<MultipartFile> bookCovers,
+            @RequestParam("bookNames") List<String> bookNames,
+            @RequestParam("printingEditions") List<String> printingEditions,
+            @RequestParam("publishers") List<String> publishers) {
+
+        String token = JWTUtil.getTokenFromAuthorization(request);
+
+        int count = bookCovers.size();
+        if (count != bookNames.size() || count != printingEditions.size() || count != publishers.size()) {
+            return ResponseMessage.error("书籍信息数量不一致");
+        }
+        if (count > MAX_BATCH_SIZE) {
+            return ResponseMessage.error("单次最多上传" + MAX_BATCH_SIZE + "本书");
+        }
+
+        try {
+            // 获取当前学生信息，整批只查询一次
+            String studentId = JWTUtil.getUsernameFromToken(token);
+            Student student = studentService.getStudentById(studentId);
+
+            if (student == null) {
+                return ResponseMessage.info(403,"学生信息不存在");
+            }
+
+            List<Map<String, Object>> results = recyclableBookService.addRecyclableBooks(
+                    studentId, student.getCampus(), bookCovers, bookNames, printingEditions, publishers);
+
+            long successCount = results.stream().filter(r -> Boolean.TRUE.equals(r.get("success"))).count();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "成功添加" + successCount + "本可回收书籍");
+            response.put("results", results);
+            return ResponseMessage.success(response);
+        } catch (Exception e) {
+            return ResponseMessage.error("批量添加可回收书籍失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 分页查询可回收书籍
      * @param page 页码
      * @param size 每页大小
      * @param keyword 关键词
-     * @return 分页结果
+     * @param campus 校区
+     * @param publisher 出版社
+     * @param edition 印刷版次
+     * @param cursor 游标，传入时使用游标分页（首页传空字符串），忽略page；关键词和分类筛选在内存中完成，不使用游标
+     * @param fields 需要返回的属性，逗号分隔，如 title,id，为空时返回全部属性
+     * @param ifNoneMatch 客户端缓存的ETag
+     * @param acceptEncoding 客户端支持的压缩方式
+     * @return 分页结果，前几页直接返回缓存的JSON字节
      */
-    @GetMapping("/recyclable")
-    public PageResult<RecyclableBookVO> listRecyclableBooks(
+    @GetMapping(value = "/recyclable", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> listRecyclableBooks(
             @RequestParam(value = "page", defaultValue = "1") Integer page,
             @RequestParam(value = "size", defaultValue = "10") Integer size,
-            @RequestParam(value = "keyword", required = false) String keyword) {
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "campus", required = false) String campus,
+            @RequestParam(value = "publisher", required = false) String publisher,
+            @RequestParam(value = "edition", required = false) String edition,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        Map<String, String> filters = facetFilters(campus, publisher, edition);
+        if (cursor != null && !StringUtils.hasText(keyword) && filters.values().stream().noneMatch(StringUtils::hasText)) {
+            return ResponseEntity.ok(recyclableBookService.getRecyclableBooksByCursor(cursor, size, fields));
+        }
         
         // 创建分页对象
         Page<RecyclableBook> pageParam = new Page<>(page, size);
         
+        // 前几页所有用户看到的内容相同，使用序列化后的响应缓存
+        if (page <= MAX_CACHED_PAGE && size <= MAX_CACHED_PAGE_SIZE) {
+            String cacheKey = String.join(":", page.toString(), size.toString(),
+                    String.valueOf(keyword), String.valueOf(campus), String.valueOf(publisher), String.valueOf(edition),
+                    String.valueOf(fields));
+            ListingResponseCacheService.CachedResponse cached = listingResponseCacheService.get(cacheKey,
+                    () -> recyclableBookService.getRecyclableBooks(pageParam, keyword, filters, fields));
+            if (cached != null) {
+                return cachedResponse(cached, ifNoneMatch, acceptEncoding);
+            }
+        }
+        
         // 查询可回收书籍列表
-        return recyclableBookService.getRecyclableBooks(pageParam, keyword);
+        return ResponseEntity.ok(recyclableBookService.getRecyclableBooks(pageParam, keyword, filters, fields));
+    }
+
+    /**
+     * 返回缓存的响应字节，ETag未变化时返回304，客户端支持时返回gzip压缩结果
+     */
+    private ResponseEntity<?> cachedResponse(ListingResponseCacheService.CachedResponse cached,
+                                             String ifNoneMatch, String acceptEncoding) {
+        if (cached.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag()).build();
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        return ResponseEntity.ok()
+                .eTag(cached.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .headers(headers -> {
+                    if (gzip) {
+                        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    }
+                })
+                .body(gzip ? cached.gzipBody() : cached.body());
+    }
+
+    /**
+     * 可回收书籍分类统计
+     * 返回当前条件下各校区、出版社、印刷版次的书籍数量
+     * @param keyword 关键词
+     * @param campus 校区
+     * @param publisher 出版社
+     * @param edition 印刷版次
+     * @return 分类 -> (取值 -> 数量)
+     */
+    @GetMapping("/recyclable/facets")
+    public ResponseMessage<?> getRecyclableBookFacets(
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "campus", required = false) String campus,
+            @RequestParam(value = "publisher", required = false) String publisher,
+            @RequestParam(value = "edition", required = false) String edition) {
+        return ResponseMessage.success(
+                recyclableBookService.getRecyclableBookFacets(keyword, facetFilters(campus, publisher, edition)));
+    }
+
+    private Map<String, String> facetFilters(String campus, String publisher, String edition) {
+        Map<String, String> filters = new HashMap<>();
+        filters.put(RecyclableBookSearchService.FACET_CAMPUS, campus);
+        filters.put(RecyclableBookSearchService.FACET_PUBLISHER, publisher);
+        filters.put(RecyclableBookSearchService.FACET_EDITION, edition);
+        return filters;
+    }
+    
+    /**
+     * 搜索框输入联想
+     * 联想词典常驻内存，不访问数据库
+     * @param prefix 已输入的前缀
+     * @param limit 返回数量上限
+     * @return 按热度排序的书名和出版商
+     */
+    @GetMapping("/recyclable/suggest")
+    public ResponseMessage<?> suggestRecyclableBooks(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return ResponseMessage.success(recyclableBookSuggestService.suggest(prefix, limit));
     }
     
     /**
@@ -194,41 +426,122 @@ public class BookController {
         response.put("campus", book.getCampus());
         response.put("createTime", book.getCreateTime());
         response.put("ownerId", book.getOwnerId());
+        trendingService.recordView(book.getCampus(), recyclableBook.getBookTitle());
         return ResponseMessage.success(response);
     }
 
+    /**
+     * 联系可回收书籍的发布者
+     * 只记录联系事件并计入该书的求购热度，不返回发布者的联系方式
+     * @param id 可回收书籍ID
+     * @return 记录结果
+     */
+    @PostMapping("/recyclable/{id}/contact")
+    public ResponseMessage<?> contactRecyclableBookOwner(@PathVariable Integer id) {
+        RecyclableBook recyclableBook = recyclableBookService.getRecyclableBookInfo(id);
+        if (recyclableBook == null) {
+            return ResponseMessage.notfound("图书未找到");
+        }
 
+        Book book = bookService.getBookInfo(recyclableBook.getBookId());
+        if (book == null) {
+            return ResponseMessage.notfound("图书未找到");
+        }
+        trendingService.recordContact(book.getCampus(), recyclableBook.getBookTitle());
+        return ResponseMessage.success("已记录");
+    }
+
+    /**
+     * 获取热门书籍排行
+     * 排行由后台定时计算，请求只读取内存，不访问数据库
+     * @param campus 校区，为空表示全部校区
+     * @param limit 每类返回的数量
+     * @return offered为最近发布和浏览最多的书，wanted为被求购最多的书
+     */
+    @GetMapping("/trending")
+    public ResponseMessage<?> getTrendingBooks(
+            @RequestParam(value = "campus", required = false) String campus,
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return ResponseMessage.success(trendingService.getTrending(campus, Math.min(limit, 50)));
+    }
+
+    /**
+     * 删除可回收书籍，只能删除自己发布的书籍
+     * @param request 浏览器请求
+     * @param id 可回收书籍ID
+     * @return 删除结果
+     */
+    @DeleteMapping("/recyclable/{id}")
+    public ResponseMessage<?> deleteRecyclableBook(HttpServletRequest request, @PathVariable Integer id) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+
+        RecyclableBook recyclableBook = recyclableBookService.getRecyclableBookInfo(id);
+        if (recyclableBook == null) {
+            return ResponseMessage.notfound("图书未找到");
+        }
+
+        Book book = bookService.getBookInfo(recyclableBook.getBookId());
+        if (book == null || !studentId.equals(book.getOwnerId())) {
+            return ResponseMessage.info(403, "只能删除自己发布的书籍");
+        }
+
+        if (!recyclableBookService.deleteRecyclableBook(id)) {
+            return ResponseMessage.error("删除可回收书籍失败");
+        }
+        return ResponseMessage.success("删除成功");
+    }
+
+
+
+    /**
+     * 获取教材目录信息
+     * @param id 教材目录ID
+     * @return 教材的统一书名、出版商和版次
+     */
+    @GetMapping("/catalog/{id}")
+    public ResponseMessage<?> getCatalog(@PathVariable Integer id) {
+        BookCatalog catalog = bookCatalogService.getCatalog(id);
+        if (catalog == null) {
+            return ResponseMessage.notfound("教材目录不存在");
+        }
+        return ResponseMessage.success(catalog);
+    }
 
     /**
      * 获取书籍图片信息
      * 将书籍图片和文本信息分开获取可以优化性能，对图片进行懒加载
+     * 热门封面由堆外缓存直接写入响应，不访问数据库，也不拷贝到堆中
      * @param id 书籍ID
      * @return 书籍封面图片
      */
     @GetMapping(value = "/cover/{id}", produces = MediaType.IMAGE_JPEG_VALUE)
     public ResponseEntity<?> getBookCover(@PathVariable Long id) {
-        Book book = bookService.getBookInfo(id);
+        ByteBuffer cover = coverCacheService.getCover(id);
         
-        if (book == null || book.getBookData() == null) {
+        if (cover == null) {
             return ResponseEntity.notFound().build();
         }
         
-        return ResponseEntity.ok(book.getBookData());
+        StreamingResponseBody body = out -> Channels.newChannel(out).write(cover);
+        return ResponseEntity.ok().contentLength(cover.remaining()).body(body);
     }
 
     /**
      * 获取学生的待售书籍列表
      * @param request 浏览器请求
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 待售书籍列表
      */
     @GetMapping("/sealed/student")
-    public ResponseMessage<?> getStudentSealedBooks(HttpServletRequest request) {
+    public ResponseMessage<?> getStudentSealedBooks(HttpServletRequest request,
+                                                    @RequestParam(value = "fields", required = false) String fields) {
         // 获取当前学生ID
         String token = JWTUtil.getTokenFromAuthorization(request);
         String studentId = JWTUtil.getUsernameFromToken(token);
         
         // 查询学生的待售书籍
-        List<SealedBookVO> sealedBooks = sealedBookService.getStudentSealedBooks(studentId);
+        List<?> sealedBooks = sealedBookService.getStudentSealedBooks(studentId, fields);
         
         return ResponseMessage.success(sealedBooks);
     }
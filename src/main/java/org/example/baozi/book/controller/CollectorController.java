@@ -8,14 +8,21 @@ import org.example.baozi.book.response.PageResult;
 import org.example.baozi.book.response.ResponseMessage;
 import org.example.baozi.book.service.AuthService;
 import org.example.baozi.book.service.CollectorService;
+import org.example.baozi.book.service.CollectorStatService;
+import org.example.baozi.book.service.OrderDispatchService;
+import org.example.baozi.book.service.OrderEventService;
 import org.example.baozi.book.service.UserService;
+import org.example.baozi.book.util.InvalidRequestException;
 import org.example.baozi.book.util.JWTUtil;
-import org.example.baozi.book.vo.CollectOrderVO;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,6 +37,9 @@ public class CollectorController {
     private final UserService userService;
     private final AuthService authService;
     private final PasswordEncoder passwordEncoder;
+    private final OrderEventService orderEventService;
+    private final OrderDispatchService orderDispatchService;
+    private final CollectorStatService collectorStatService;
 
 
     
@@ -133,13 +143,17 @@ public class CollectorController {
      * @param request HTTP请求
      * @param page 页码
      * @param size 每页大小
+     * @param cursor 游标，传入时使用游标分页（首页传空字符串），忽略page
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 订单列表
      */
     @GetMapping("/orders/campus")
     public ResponseMessage<?> getCampusOrders(
             HttpServletRequest request,
             @RequestParam(value = "page", defaultValue = "1") Integer page,
-            @RequestParam(value = "size", defaultValue = "10") Integer size) {
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "fields", required = false) String fields) {
         
         String token =  JWTUtil.getTokenFromAuthorization(request);
         String collectorId = JWTUtil.getUsernameFromToken(token);
@@ -150,11 +164,82 @@ public class CollectorController {
         }
         
         // 获取收书员所在校区的订单
-        PageResult<CollectOrderVO> orders = collectorService.getOrdersByCampus(collector.getCampus(), page, size);
+        PageResult<?> orders = cursor != null
+                ? collectorService.getOrdersByCampusCursor(collector.getCampus(), cursor, size, fields)
+                : collectorService.getOrdersByCampus(collector.getCampus(), page, size, fields);
         
         return ResponseMessage.success(orders);
     }
     
+    /**
+     * 订阅校区订单事件（SSE），有新订单或订单被接走时推送，代替轮询订单列表
+     * @param request HTTP请求
+     * @return SSE连接
+     */
+    @GetMapping("/orders/stream")
+    public SseEmitter streamCampusOrders(HttpServletRequest request) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String collectorId = JWTUtil.getUsernameFromToken(token);
+
+        Collector collector = collectorService.getCollectorById(collectorId);
+        if (collector == null) {
+            throw new InvalidRequestException("收书员信息不存在");
+        }
+        return orderEventService.subscribeCampus(collector.getCampus());
+    }
+
+    /**
+     * 上线，开始接收自动派单
+     * @param request HTTP请求
+     * @return 操作结果
+     */
+    @PostMapping("/dispatch/online")
+    public ResponseMessage<?> goOnline(HttpServletRequest request) {
+        if (!orderDispatchService.isEnabled()) {
+            return ResponseMessage.error("未开启自动派单");
+        }
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String collectorId = JWTUtil.getUsernameFromToken(token);
+
+        Collector collector = collectorService.getCollectorById(collectorId);
+        if (collector == null) {
+            return ResponseMessage.error("收书员信息不存在");
+        }
+        orderDispatchService.goOnline(collector);
+        return ResponseMessage.success("已上线");
+    }
+
+    /**
+     * 下线，不再接收自动派单，已派给自己的订单仍可接单
+     * @param request HTTP请求
+     * @return 操作结果
+     */
+    @PostMapping("/dispatch/offline")
+    public ResponseMessage<?> goOffline(HttpServletRequest request) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String collectorId = JWTUtil.getUsernameFromToken(token);
+
+        orderDispatchService.goOffline(collectorId);
+        return ResponseMessage.success("已下线");
+    }
+
+    /**
+     * 拒绝派给自己的订单，订单会立即派给下一位收书员
+     * @param request HTTP请求
+     * @param orderId 订单ID
+     * @return 操作结果
+     */
+    @PostMapping("/orders/{orderId}/decline")
+    public ResponseMessage<?> declineOrder(HttpServletRequest request, @PathVariable Integer orderId) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String collectorId = JWTUtil.getUsernameFromToken(token);
+
+        if (!orderDispatchService.decline(orderId, collectorId)) {
+            return ResponseMessage.error("该订单当前没有派给你");
+        }
+        return ResponseMessage.success("已拒绝");
+    }
+
     /**
      * 收书员接单
      * @param request HTTP请求
@@ -175,6 +260,44 @@ public class CollectorController {
         }
     }
     
+    /**
+     * 按宿舍楼分组获取所在校区的待接单订单，便于一次上门收同一栋楼的多个订单
+     * @param request HTTP请求
+     * @return 宿舍楼分组
+     */
+    @GetMapping("/orders/clusters")
+    public ResponseMessage<?> getOrderClusters(HttpServletRequest request) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String collectorId = JWTUtil.getUsernameFromToken(token);
+
+        Collector collector = collectorService.getCollectorById(collectorId);
+        if (collector == null) {
+            return ResponseMessage.error("收书员信息不存在");
+        }
+        return ResponseMessage.success(collectorService.getOrderClusters(collector.getCampus(), collectorId));
+    }
+
+    /**
+     * 批量接单，通常为同一宿舍楼分组中的全部订单
+     * @param request HTTP请求
+     * @param orderIds 订单ID
+     * @return 接单结果
+     */
+    @PostMapping("/orders/batch-accept")
+    public ResponseMessage<?> acceptOrders(HttpServletRequest request, @RequestBody List<Integer> orderIds) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String collectorId = JWTUtil.getUsernameFromToken(token);
+
+        Collector collector = collectorService.getCollectorById(collectorId);
+        if (collector == null) {
+            return ResponseMessage.error("收书员信息不存在");
+        }
+        if (!collectorService.acceptOrders(collectorId, collector.getCampus(), orderIds)) {
+            return ResponseMessage.error("接单失败，部分订单已被接走，请刷新后重试");
+        }
+        return ResponseMessage.success("接单成功");
+    }
+
     /**
      * 上传书籍照片和实际重量完成订单
      * @param orderId 订单ID
@@ -204,19 +327,46 @@ public class CollectorController {
      * @param request HTTP请求
      * @param page 页码
      * @param size 每页大小
+     * @param cursor 游标，传入时使用游标分页（首页传空字符串），忽略page
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 订单列表
      */
     @GetMapping("/orders/my")
     public ResponseMessage<?> getMyOrders(
             HttpServletRequest request,
             @RequestParam(value = "page", defaultValue = "1") Integer page,
-            @RequestParam(value = "size", defaultValue = "10") Integer size) {
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "fields", required = false) String fields) {
         
         String token = JWTUtil.getTokenFromAuthorization(request);
         String collectorId = JWTUtil.getUsernameFromToken(token);
         
-        PageResult<CollectOrderVO> orders = collectorService.getCollectorOrders(collectorId, page, size);
+        PageResult<?> orders = cursor != null
+                ? collectorService.getCollectorOrdersByCursor(collectorId, cursor, size, fields)
+                : collectorService.getCollectorOrders(collectorId, page, size, fields);
         
         return ResponseMessage.success(orders);
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取自己的业绩统计：接单数、完成数、总重量、跑腿费和平均完成时长
+     * @param request HTTP请求
+     * @param from 开始日期，默认为结束日期前6天
+     * @param to 结束日期，默认为今天
+     * @return 业绩统计
+     */
+    @GetMapping("/stats")
+    public ResponseMessage<?> getMyStats(
+            HttpServletRequest request,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String collectorId = JWTUtil.getUsernameFromToken(token);
+
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(6) : from;
+        return ResponseMessage.success(collectorStatService.getCollectorStats(collectorId, start, end));
+    }
+}
@@ -7,11 +7,18 @@ import org.example.baozi.book.dto.StuInfo;
 import org.example.baozi.book.entity.Student;
 import org.example.baozi.book.entity.User;
 import org.example.baozi.book.response.ResponseMessage;
+import org.example.baozi.book.service.NotificationService;
+import org.example.baozi.book.service.OrderEventService;
+import org.example.baozi.book.service.SealedBookService;
 import org.example.baozi.book.service.StudentService;
+import org.example.baozi.book.service.TrendingService;
 import org.example.baozi.book.service.UserService;
+import org.example.baozi.book.service.WishService;
 import org.example.baozi.book.util.JWTUtil;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -23,6 +30,11 @@ public class StudentController {
     private final StudentService studentService;
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final WishService wishService;
+    private final NotificationService notificationService;
+    private final TrendingService trendingService;
+    private final OrderEventService orderEventService;
+    private final SealedBookService sealedBookService;
 
     /**
      * 首次登录修改个人信息及其密码
@@ -74,10 +86,124 @@ public class StudentController {
         student.setCampus(campus);
         student.setDormitory(dormitory);
         student.setPaymentMethod(paymentMethod);
-        studentService.updateById(student);
+        studentService.updateStudentProfile(student);
 
         return ResponseMessage.success("学生信息更新成功");
     }
 
+    /**
+     * 登记求书心愿，有同名书籍发布时会收到通知
+     * @param request 浏览器请求
+     * @param wishRequest 心愿信息：title(必填)、publisher、edition
+     * @return 心愿ID
+     */
+    @PostMapping("/wishes")
+    public ResponseMessage<?> addWish(HttpServletRequest request, @RequestBody Map<String, String> wishRequest) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+
+        String title = wishRequest.get("title");
+        if (!StringUtils.hasText(title)) {
+            return ResponseMessage.error("书名不能为空");
+        }
 
+        Integer wishId = wishService.addWish(studentId, title.trim(), wishRequest.get("publisher"), wishRequest.get("edition"));
+        if (wishId == -1) {
+            return ResponseMessage.error("心愿数量已达上限，请先关闭不需要的心愿");
+        }
+        Student student = studentService.getStudentById(studentId);
+        trendingService.recordWish(student == null ? null : student.getCampus(), title);
+        return ResponseMessage.success("心愿登记成功", wishId);
+    }
+
+    /**
+     * 获取我的求书心愿
+     * @param request 浏览器请求
+     * @return 心愿列表
+     */
+    @GetMapping("/wishes")
+    public ResponseMessage<?> getWishes(HttpServletRequest request) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+        return ResponseMessage.success(wishService.getWishes(studentId));
+    }
+
+    /**
+     * 关闭求书心愿
+     * @param request 浏览器请求
+     * @param id 心愿ID
+     * @return 关闭结果
+     */
+    @DeleteMapping("/wishes/{id}")
+    public ResponseMessage<?> closeWish(HttpServletRequest request, @PathVariable Integer id) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+
+        if (!wishService.closeWish(studentId, id)) {
+            return ResponseMessage.error("心愿不存在或已关闭");
+        }
+        return ResponseMessage.success("心愿已关闭");
+    }
+
+    /**
+     * 获取我的通知，未读的在前
+     * @param request 浏览器请求
+     * @param page 页码
+     * @param size 每页大小
+     * @return 通知分页列表
+     */
+    @GetMapping("/notifications")
+    public ResponseMessage<?> getNotifications(
+            HttpServletRequest request,
+            @RequestParam(value = "page", defaultValue = "1") Integer page,
+            @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+        return ResponseMessage.success(notificationService.getNotifications(studentId, page, size));
+    }
+
+    /**
+     * 将通知标记为已读
+     * @param request 浏览器请求
+     * @param id 通知ID
+     * @return 操作结果
+     */
+    @PutMapping("/notifications/{id}/read")
+    public ResponseMessage<?> markNotificationRead(HttpServletRequest request, @PathVariable Integer id) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+
+        if (!notificationService.markRead(studentId, id)) {
+            return ResponseMessage.error("通知不存在");
+        }
+        return ResponseMessage.success("已标记为已读");
+    }
+
+    /**
+     * 游标分页获取我的订单
+     * @param request 浏览器请求
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @return 订单列表
+     */
+    @GetMapping("/orders")
+    public ResponseMessage<?> getMyOrders(HttpServletRequest request,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+        return ResponseMessage.success(sealedBookService.getStudentOrders(studentId, cursor, size));
+    }
+
+    /**
+     * 订阅我的订单事件（SSE），订单被接单、完成时推送，完成事件包含到账金额
+     * @param request 浏览器请求
+     * @return SSE连接
+     */
+    @GetMapping("/orders/stream")
+    public SseEmitter streamMyOrders(HttpServletRequest request) {
+        String token = JWTUtil.getTokenFromAuthorization(request);
+        String studentId = JWTUtil.getUsernameFromToken(token);
+        return orderEventService.subscribeStudent(studentId);
+    }
 }
@@ -36,6 +36,18 @@ public class Book {
     
     /**
      * 书籍信息（图片数据）
+     * 默认查询不读取该字段，需要时通过BookMapper.selectBookData单独获取
      */
+    @TableField(select = false)
     private byte[] bookData;
+    
+    /**
+     * 是否有封面图片
+     */
+    private Boolean hasCover;
+
+    /**
+     * 封面图片的感知哈希，用于识别重复使用的图片
+     */
+    private Long coverHash;
 } 
\ No newline at end of file
@@ -0,0 +1,46 @@
+package org.example.baozi.book.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 教材目录实体类
+ * 同一版本的教材只保存一条，书名、出版商、版次规范化后相同的上传都对应到这里
+ */
+@Data
+@TableName("book_catalog")
+public class BookCatalog {
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Integer id;
+
+    /**
+     * 规范化键：规范化书名|规范化出版商|规范化版次
+     */
+    private String normalizedKey;
+
+    /**
+     * 书名（首次上传时的写法）
+     */
+    private String title;
+
+    /**
+     * 出版商（首次上传时的写法）
+     */
+    private String publisher;
+
+    /**
+     * 印刷版次（首次上传时的写法）
+     */
+    private String edition;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,81 @@
+package org.example.baozi.book.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 收书员按天统计实体类
+ * 同一张表同时保存每个收书员和每个校区的统计，由scope区分
+ * 重量和金额使用整数（克、分）保存，累加时没有精度损失
+ */
+@Data
+@TableName("collector_daily_stat")
+public class CollectorDailyStat {
+    /**
+     * 按收书员统计
+     */
+    public static final String SCOPE_COLLECTOR = "COLLECTOR";
+
+    /**
+     * 按校区统计
+     */
+    public static final String SCOPE_CAMPUS = "CAMPUS";
+
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 统计日期
+     */
+    private LocalDate statDate;
+
+    /**
+     * 统计维度
+     */
+    private String scope;
+
+    /**
+     * 收书员ID或校区
+     */
+    private String scopeId;
+
+    /**
+     * 接单数
+     */
+    private Long acceptedCount;
+
+    /**
+     * 完成订单数
+     */
+    private Long completedCount;
+
+    /**
+     * 超时退回订单数
+     */
+    private Long releasedCount;
+
+    /**
+     * 完成订单的总重量（克）
+     */
+    private Long weightGrams;
+
+    /**
+     * 跑腿费总额（分）
+     */
+    private Long commissionCents;
+
+    /**
+     * 完成订单从接单到完成的总时长（秒）
+     */
+    private Long finishSeconds;
+
+    /**
+     * 计入总时长的完成订单数，接单时间缺失的订单不计入
+     */
+    private Long finishCount;
+}
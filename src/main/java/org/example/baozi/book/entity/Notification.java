@@ -0,0 +1,50 @@
+package org.example.baozi.book.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 站内通知实体类
+ */
+@Data
+@TableName("notification")
+public class Notification {
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Integer id;
+
+    /**
+     * 接收者ID
+     */
+    private String userId;
+
+    /**
+     * 通知类型，如 WISH_MATCH（心愿书籍已上架）
+     */
+    private String type;
+
+    /**
+     * 通知内容
+     */
+    private String content;
+
+    /**
+     * 关联数据ID，如心愿匹配时为可回收书籍ID
+     */
+    private Long relatedId;
+
+    /**
+     * 是否已读
+     */
+    private Boolean isRead;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,57 @@
+package org.example.baozi.book.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 打款批次实体类
+ * 每个批次汇总标记为属于该批次的结算流水，按收款方和收款方式各打款一次
+ */
+@Data
+@TableName("payout_batch")
+public class PayoutBatch {
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 本批次包含的最小结算流水ID
+     */
+    private Long firstEntryId;
+
+    /**
+     * 本批次包含的最大结算流水ID，批次中的流水ID不一定连续
+     */
+    private Long lastEntryId;
+
+    /**
+     * 流水条数
+     */
+    private Integer entryCount;
+
+    /**
+     * 打款笔数（收款方和收款方式的组合数）
+     */
+    private Integer payeeCount;
+
+    /**
+     * 打款总金额（元）
+     */
+    private BigDecimal totalAmount;
+
+    /**
+     * 打款文件名，为空表示文件尚未生成
+     */
+    private String fileName;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
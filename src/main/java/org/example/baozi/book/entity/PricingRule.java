@@ -0,0 +1,54 @@
+package org.example.baozi.book.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 回收价格规则实体类
+ */
+@Data
+@TableName("pricing_rule")
+public class PricingRule {
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Integer id;
+
+    /**
+     * 适用校区，为空表示全部校区
+     */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private String campus;
+
+    /**
+     * 每公斤回收价格（元）
+     */
+    private BigDecimal pricePerKg;
+
+    /**
+     * 收书员跑腿费比例，如0.20
+     */
+    private BigDecimal commissionRate;
+
+    /**
+     * 生效时间，为空表示立即生效
+     */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private LocalDateTime effectiveFrom;
+
+    /**
+     * 失效时间（不含），为空表示长期有效
+     */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private LocalDateTime effectiveTo;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -36,4 +36,9 @@ public class RecyclableBook {
      * 出版商
      */
     private String publisher;
+
+    /**
+     * 教材目录ID
+     */
+    private Integer catalogId;
 } 
\ No newline at end of file
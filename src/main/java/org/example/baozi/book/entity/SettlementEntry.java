@@ -0,0 +1,67 @@
+package org.example.baozi.book.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 结算流水实体类
+ * 订单完成时为学生和收书员各追加一条，结算时只修改所属的打款批次
+ */
+@Data
+@TableName("settlement_ledger")
+public class SettlementEntry {
+    /**
+     * 学生的卖书所得
+     */
+    public static final String PAYEE_STUDENT = "STUDENT";
+
+    /**
+     * 收书员的跑腿费
+     */
+    public static final String PAYEE_COLLECTOR = "COLLECTOR";
+
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 订单ID
+     */
+    private Integer orderId;
+
+    /**
+     * 收款方类型
+     */
+    private String payeeType;
+
+    /**
+     * 收款方ID（学号或收书员ID）
+     */
+    private String payeeId;
+
+    /**
+     * 收款方式，记录完成订单时的收款方式
+     */
+    private String paymentMethod;
+
+    /**
+     * 金额（元）
+     */
+    private BigDecimal amount;
+
+    /**
+     * 所属打款批次ID，为空表示未结算
+     */
+    private Long payoutBatchId;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,36 @@
+package org.example.baozi.book.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已处理的异步上传任务实体类
+ * 与书籍、待售书籍和订单在同一事务中写入，重启恢复时据此判断任务是否已经处理过，避免重复创建
+ */
+@Data
+@TableName("upload_task")
+public class UploadTask {
+    /**
+     * 任务ID
+     */
+    @TableId(value = "task_id", type = IdType.INPUT)
+    private String taskId;
+
+    /**
+     * 创建的待售书籍ID
+     */
+    private Integer sealedBookId;
+
+    /**
+     * 创建的订单ID
+     */
+    private Integer orderId;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,51 @@
+package org.example.baozi.book.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 求书心愿实体类
+ * 学生登记想要的书，有同名书籍发布时通知学生
+ */
+@Data
+@TableName("wish")
+public class Wish {
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Integer id;
+
+    /**
+     * 学生学号
+     */
+    private String studentId;
+
+    /**
+     * 想要的书名
+     */
+    private String title;
+
+    /**
+     * 出版商（可选）
+     */
+    private String publisher;
+
+    /**
+     * 印刷版次（可选）
+     */
+    private String edition;
+
+    /**
+     * 状态（0:等待中 1:已关闭）
+     */
+    private Integer status;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -2,6 +2,7 @@ package org.example.baozi.book.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.example.baozi.book.entity.Book;
 
 import java.util.List;
@@ -11,4 +12,33 @@ import java.util.List;
  */
 @Mapper
 public interface BookMapper extends BaseMapper<Book> {
-} 
\ No newline at end of file
+
+    /**
+     * 查询所有已计算感知哈希的书籍（不包含图片数据）
+     * @return 书籍ID、上传者和封面哈希
+     */
+    List<Book> selectCoverHashes();
+
+    /**
+     * 单独查询书籍图片数据
+     * @param id 书籍ID
+     * @return 图片数据，不存在时返回null
+     */
+    byte[] selectBookData(@Param("id") Long id);
+
+    /**
+     * 按ID顺序查询有封面但还没有计算感知哈希的书籍（不包含图片数据）
+     * @param afterId 上一页最后一本书的ID
+     * @param limit 查询条数
+     * @return 书籍ID和上传者
+     */
+    List<Book> selectUnhashedCovers(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 为还没有感知哈希的书籍写入哈希
+     * @param id 书籍ID
+     * @param coverHash 封面感知哈希
+     * @return 影响行数，已有哈希时为0
+     */
+    int updateCoverHash(@Param("id") Long id, @Param("coverHash") long coverHash);
+}
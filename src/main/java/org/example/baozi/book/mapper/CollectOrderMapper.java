@@ -7,6 +7,10 @@ import org.apache.ibatis.annotations.Param;
 import org.example.baozi.book.entity.CollectOrder;
 import org.example.baozi.book.vo.CollectOrderVO;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 收书订单数据访问层接口
  */
@@ -17,16 +21,99 @@ public interface CollectOrderMapper extends BaseMapper<CollectOrder> {
      * 根据校区分页查询待接单订单
      * @param page 分页参数
      * @param campus 校区
+     * @param columns 需要查询的列，为null时查询全部列
      * @return 订单列表
      */
-    Page<CollectOrderVO> getOrderPageByCampus(Page<CollectOrder> page, @Param("campus") String campus);
+    Page<CollectOrderVO> getOrderPageByCampus(Page<CollectOrder> page, @Param("campus") String campus,
+                                              @Param("columns") List<String> columns);
+
+    /**
+     * 根据校区游标分页查询待接单订单，按 (create_time, id) 倒序
+     * @param campus 校区
+     * @param createTime 游标位置的创建时间，为null表示第一页
+     * @param id 游标位置的订单ID
+     * @param limit 查询条数
+     * @param columns 需要查询的列，为null时查询全部列
+     * @return 订单列表
+     */
+    List<CollectOrderVO> getOrderByCampusCursor(@Param("campus") String campus, @Param("createTime") LocalDateTime createTime,
+                                                @Param("id") Long id, @Param("limit") int limit,
+                                                @Param("columns") List<String> columns);
     
     /**
      * 根据收书员ID分页查询已接单订单
      * @param page 分页参数
      * @param collectorId 收书员ID
+     * @param columns 需要查询的列，为null时查询全部列
      * @return 订单列表
      */
-    Page<CollectOrderVO> getOrderPageByCollector(Page<CollectOrder> page, @Param("collectorId") String collectorId);
-    
-} 
\ No newline at end of file
+    Page<CollectOrderVO> getOrderPageByCollector(Page<CollectOrder> page, @Param("collectorId") String collectorId,
+                                                 @Param("columns") List<String> columns);
+
+    /**
+     * 根据收书员ID游标分页查询已接单订单，按 (create_time, id) 倒序
+     * @param collectorId 收书员ID
+     * @param createTime 游标位置的创建时间，为null表示第一页
+     * @param id 游标位置的订单ID
+     * @param limit 查询条数
+     * @param columns 需要查询的列，为null时查询全部列
+     * @return 订单列表
+     */
+    List<CollectOrderVO> getOrderByCollectorCursor(@Param("collectorId") String collectorId, @Param("createTime") LocalDateTime createTime,
+                                                   @Param("id") Long id, @Param("limit") int limit,
+                                                   @Param("columns") List<String> columns);
+
+    /**
+     * 根据学号游标分页查询学生的订单，按 (create_time, id) 倒序
+     * @param studentId 学号
+     * @param createTime 游标位置的创建时间，为null表示第一页
+     * @param id 游标位置的订单ID
+     * @param limit 查询条数
+     * @return 订单列表
+     */
+    List<CollectOrderVO> getOrderByStudentCursor(@Param("studentId") String studentId, @Param("createTime") LocalDateTime createTime,
+                                                 @Param("id") Long id, @Param("limit") int limit);
+
+    /**
+     * 接单，只有待接单的订单会被更新，同时标记待售书籍已被接单
+     * @param id 订单ID
+     * @param collectorId 收书员ID
+     * @param acceptTime 接单时间
+     * @return 影响的行数，为0表示订单不存在或已被接单
+     */
+    int claimOrder(@Param("id") Integer id, @Param("collectorId") String collectorId,
+                   @Param("acceptTime") LocalDateTime acceptTime);
+
+    /**
+     * 退回超时未完成的订单，只有仍由该收书员接单的订单会被更新，同时恢复待售书籍为未接单
+     * @param id 订单ID
+     * @param collectorId 接单的收书员ID
+     * @return 影响的行数，为0表示订单已完成或已不属于该收书员
+     */
+    int releaseOrder(@Param("id") Integer id, @Param("collectorId") String collectorId);
+
+    /**
+     * 批量接单，只有仍在该校区待接单的订单会被更新
+     * @param ids 订单ID
+     * @param campus 校区
+     * @param collectorId 收书员ID
+     * @param acceptTime 接单时间
+     * @return 接到的订单数
+     */
+    int claimOrders(@Param("ids") Collection<Integer> ids, @Param("campus") String campus,
+                    @Param("collectorId") String collectorId, @Param("acceptTime") LocalDateTime acceptTime);
+
+    /**
+     * 标记订单对应的待售书籍已被接单
+     * @param ids 订单ID
+     * @return 影响的行数
+     */
+    int markSealedBooksAccepted(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * 查询待接单订单的列表摘要（订单、学生联系方式和宿舍）
+     * @param campus 校区，为null时查询全部校区
+     * @return 待接单订单
+     */
+    List<CollectOrderVO> selectPendingSummaries(@Param("campus") String campus);
+}
@@ -0,0 +1,34 @@
+package org.example.baozi.book.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.example.baozi.book.entity.CollectorDailyStat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 收书员按天统计数据访问层接口
+ */
+@Mapper
+public interface CollectorDailyStatMapper extends BaseMapper<CollectorDailyStat> {
+
+    /**
+     * 累加统计增量，当天还没有记录时插入
+     * @param stats 统计增量
+     * @return 影响行数
+     */
+    int accumulate(@Param("stats") List<CollectorDailyStat> stats);
+
+    /**
+     * 查询日期范围内的统计
+     * @param scope 统计维度
+     * @param scopeId 收书员ID或校区
+     * @param from 开始日期（包含）
+     * @param to 结束日期（包含）
+     * @return 按日期先后排列的统计
+     */
+    List<CollectorDailyStat> selectRange(@Param("scope") String scope, @Param("scopeId") String scopeId,
+                                         @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -2,6 +2,7 @@ package org.example.baozi.book.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.example.baozi.book.entity.Collector;
 
 /**
@@ -9,5 +10,12 @@ import org.example.baozi.book.entity.Collector;
  */
 @Mapper
 public interface CollectorMapper extends BaseMapper<Collector> {
-    
+
+    /**
+     * 原子地调整收书员接单数
+     * @param collectorId 收书员ID
+     * @param delta 变化量
+     * @return 影响的行数
+     */
+    int incrementOrderCount(@Param("collectorId") String collectorId, @Param("delta") int delta);
 } 
\ No newline at end of file
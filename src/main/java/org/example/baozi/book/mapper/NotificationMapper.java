@@ -0,0 +1,12 @@
+package org.example.baozi.book.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.example.baozi.book.entity.Notification;
+
+/**
+ * 站内通知数据访问层接口
+ */
+@Mapper
+public interface NotificationMapper extends BaseMapper<Notification> {
+}
@@ -0,0 +1,36 @@
+package org.example.baozi.book.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+/**
+ * 订单列表读模型数据访问层接口
+ * order_view冗余了学生和收书员的联系方式，订单或个人信息变化时在同一事务中更新，
+ * 订单列表只查询这一张表
+ */
+@Mapper
+public interface OrderViewMapper {
+
+    /**
+     * 按订单表重新生成订单的读模型，不存在时插入
+     * @param ids 订单ID
+     * @return 影响的行数
+     */
+    int refresh(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * 同步学生的联系电话和宿舍
+     * @param studentId 学号
+     * @return 影响的行数
+     */
+    int refreshStudent(@Param("studentId") String studentId);
+
+    /**
+     * 同步收书员的姓名和联系电话
+     * @param collectorId 收书员ID
+     * @return 影响的行数
+     */
+    int refreshCollector(@Param("collectorId") String collectorId);
+}
@@ -0,0 +1,12 @@
+package org.example.baozi.book.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.example.baozi.book.entity.PayoutBatch;
+
+/**
+ * 打款批次数据访问层接口
+ */
+@Mapper
+public interface PayoutBatchMapper extends BaseMapper<PayoutBatch> {
+}
@@ -0,0 +1,12 @@
+package org.example.baozi.book.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.example.baozi.book.entity.PricingRule;
+
+/**
+ * 回收价格规则数据访问层接口
+ */
+@Mapper
+public interface PricingRuleMapper extends BaseMapper<PricingRule> {
+}
@@ -4,13 +4,61 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.example.baozi.book.entity.RecyclableBook;
 import org.example.baozi.book.vo.RecyclableBookVO;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
 /**
  * RecyclableBook表数据访问层接口
  */
 @Mapper
 public interface RecyclableBookMapper extends BaseMapper<RecyclableBook> {
-    Page<RecyclableBookVO> getRBookByPage(Page<?> page);
+    /**
+     * 分页查询可回收书籍
+     * @param page 分页参数
+     * @param columns 需要查询的列，为null时查询全部列
+     * @return 书籍列表
+     */
+    Page<RecyclableBookVO> getRBookByPage(Page<?> page, @Param("columns") List<String> columns);
+
+    /**
+     * 游标分页查询，按 (create_time, id) 倒序
+     * @param createTime 游标位置的创建时间，为null表示第一页
+     * @param id 游标位置的书籍ID
+     * @param limit 查询条数
+     * @param columns 需要查询的列，为null时查询全部列
+     * @return 书籍列表
+     */
+    List<RecyclableBookVO> getRBookByCursor(@Param("createTime") LocalDateTime createTime, @Param("id") Long id,
+                                            @Param("limit") int limit, @Param("columns") List<String> columns);
+
+    /**
+     * 按可回收书籍ID批量查询
+     * @param ids 可回收书籍ID
+     * @param columns 需要查询的列，为null时查询全部列
+     * @return 查询结果，顺序不保证与ids一致
+     */
+    List<RecyclableBookVO> getRBookByIds(@Param("ids") List<Integer> ids, @Param("columns") List<String> columns);
+
+    /**
+     * 查询建立检索索引所需的字段（可回收书籍ID、校区、书名、出版商、印刷版次、教材目录ID）
+     * @return 全部可回收书籍
+     */
+    List<RecyclableBookVO> selectIndexRows();
+
+    /**
+     * 统计每个书名的可回收书籍数量
+     * @return text为书名，weight为数量
+     */
+    List<Map<String, Object>> selectTitleCounts();
+
+    /**
+     * 统计每个出版商的可回收书籍数量
+     * @return text为出版商，weight为数量
+     */
+    List<Map<String, Object>> selectPublisherCounts();
 } 
\ No newline at end of file
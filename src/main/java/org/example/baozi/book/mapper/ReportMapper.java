@@ -6,7 +6,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.example.baozi.book.entity.Report;
 
-
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -21,6 +21,17 @@ public interface ReportMapper extends BaseMapper<Report> {
      * @return 举报信息VO分页结果
      */
     Page<Report> getReportPage(Page<Report> page, @Param("status") Integer status);
+
+    /**
+     * 游标分页查询举报信息，按 (report_time, id) 倒序
+     * @param status 处理状态
+     * @param createTime 游标位置的举报时间，为null表示第一页
+     * @param id 游标位置的举报ID
+     * @param limit 查询条数
+     * @return 举报信息列表
+     */
+    List<Report> getReportByCursor(@Param("status") Integer status, @Param("createTime") LocalDateTime createTime,
+                                   @Param("id") Long id, @Param("limit") int limit);
     
     /**
      * 批量更新举报信息状态
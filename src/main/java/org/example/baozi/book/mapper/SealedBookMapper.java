@@ -13,5 +13,11 @@ import java.util.List;
  */
 @Mapper
 public interface SealedBookMapper extends BaseMapper<SealedBook> {
-    List<SealedBookVO> sealedBookList(@Param("ownerId") String ownerId);
+    /**
+     * 查询学生的待售书籍
+     * @param ownerId 学生学号
+     * @param columns 需要查询的列，为null时查询全部列
+     * @return 待售书籍列表
+     */
+    List<SealedBookVO> sealedBookList(@Param("ownerId") String ownerId, @Param("columns") List<String> columns);
 } 
\ No newline at end of file
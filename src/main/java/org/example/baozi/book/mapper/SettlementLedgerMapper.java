@@ -0,0 +1,38 @@
+package org.example.baozi.book.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.example.baozi.book.entity.SettlementEntry;
+
+import java.util.List;
+
+/**
+ * 结算流水数据访问层接口
+ */
+@Mapper
+public interface SettlementLedgerMapper extends BaseMapper<SettlementEntry> {
+
+    /**
+     * 查询未结算流水的最大ID
+     * @return 流水ID，没有未结算流水时返回null
+     */
+    Long selectMaxUnsettledId();
+
+    /**
+     * 把ID不超过toId的未结算流水标记为属于指定批次
+     * @param batchId 打款批次ID
+     * @param toId 最大流水ID（包含）
+     * @return 标记的流水条数
+     */
+    int markBatch(@Param("batchId") long batchId, @Param("toId") long toId);
+
+    /**
+     * 按ID顺序查询属于指定批次的流水
+     * @param batchId 打款批次ID
+     * @param afterId 上一页最后一条流水ID
+     * @param limit 查询条数
+     * @return 结算流水
+     */
+    List<SettlementEntry> selectByBatch(@Param("batchId") long batchId, @Param("afterId") long afterId, @Param("limit") int limit);
+}
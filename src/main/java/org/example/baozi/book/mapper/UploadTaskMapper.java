@@ -0,0 +1,12 @@
+package org.example.baozi.book.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.example.baozi.book.entity.UploadTask;
+
+/**
+ * 已处理的异步上传任务数据访问层接口
+ */
+@Mapper
+public interface UploadTaskMapper extends BaseMapper<UploadTask> {
+}
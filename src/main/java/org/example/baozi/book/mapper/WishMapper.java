@@ -0,0 +1,12 @@
+package org.example.baozi.book.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.example.baozi.book.entity.Wish;
+
+/**
+ * 求书心愿数据访问层接口
+ */
+@Mapper
+public interface WishMapper extends BaseMapper<Wish> {
+}
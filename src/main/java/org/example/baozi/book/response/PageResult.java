@@ -10,6 +10,7 @@ public class PageResult<T> {
     private long total;       // 总记录数
     private long pageSize;    // 每页条数
     private long currentPage; // 当前页码
+    private String nextCursor; // 下一页游标，仅游标分页时返回，没有下一页时为null
 
     public PageResult(List<T> data, long total, long pageSize, long currentPage) {
         this.data = data;
@@ -17,4 +18,14 @@ public class PageResult<T> {
         this.pageSize = pageSize;
         this.currentPage = currentPage;
     }
+
+    /**
+     * 游标分页结果，不返回页码
+     */
+    public PageResult(List<T> data, long total, long pageSize, String nextCursor) {
+        this.data = data;
+        this.total = total;
+        this.pageSize = pageSize;
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,27 @@
+package org.example.baozi.book.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import org.example.baozi.book.entity.BookCatalog;
+
+/**
+ * 教材目录服务接口
+ * 把上传时自由填写的书名、出版商、版次对应到统一的教材目录
+ */
+public interface BookCatalogService extends IService<BookCatalog> {
+
+    /**
+     * 查找或创建对应的教材目录
+     * @param title 书名
+     * @param publisher 出版商
+     * @param edition 印刷版次
+     * @return 教材目录ID，书名为空时返回null
+     */
+    Integer resolve(String title, String publisher, String edition);
+
+    /**
+     * 获取教材目录，优先从缓存读取
+     * @param id 教材目录ID
+     * @return 教材目录，不存在时返回null
+     */
+    BookCatalog getCatalog(Integer id);
+}
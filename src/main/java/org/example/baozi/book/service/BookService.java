@@ -5,6 +5,7 @@ import org.example.baozi.book.entity.Book;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * 书籍服务接口
@@ -19,6 +20,24 @@ public interface BookService extends IService<Book> {
      * @throws IOException 如果图片处理失败
      */
     Long createBook(String ownerId, String campus, MultipartFile bookImage) throws IOException;
+
+    /**
+     * 根据已读取的图片数据创建一本新书
+     * @param ownerId 所有者学号
+     * @param campus 校区
+     * @param imageData 书籍图片数据，可以为空
+     * @return 创建的书籍ID
+     */
+    Long createBook(String ownerId, String campus, byte[] imageData);
+
+    /**
+     * 批量创建书籍，并行处理封面图片后使用JDBC批量插入
+     * @param ownerId 所有者学号
+     * @param campus 校区
+     * @param images 每本书的图片数据
+     * @return 创建的书籍ID，顺序与图片一致
+     */
+    List<Long> createBooks(String ownerId, String campus, List<byte[]> images);
     
     /**
      * 获取书籍信息
@@ -26,4 +45,12 @@ public interface BookService extends IService<Book> {
      * @return 书籍对象
      */
     Book getBookInfo(Long bookId);
+
+    /**
+     * 获取书籍封面图片数据
+     * 书籍的其他查询都不包含图片数据，需要图片时调用该方法
+     * @param bookId 书籍ID
+     * @return 图片数据，不存在时返回null
+     */
+    byte[] getBookCover(Long bookId);
 } 
\ No newline at end of file
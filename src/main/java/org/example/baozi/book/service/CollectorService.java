@@ -4,7 +4,9 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import org.example.baozi.book.entity.CollectOrder;
 import org.example.baozi.book.entity.Collector;
 import org.example.baozi.book.response.PageResult;
-import org.example.baozi.book.vo.CollectOrderVO;
+import org.example.baozi.book.vo.DormitoryClusterVO;
+
+import java.util.List;
 
 /**
  * 收书员服务接口
@@ -49,9 +51,21 @@ public interface CollectorService extends IService<Collector> {
      * @param campus 校区
      * @param page 页码
      * @param size 每页大小
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 订单分页列表
      */
-    PageResult<CollectOrderVO> getOrdersByCampus(String campus, Integer page, Integer size);
+    PageResult<?> getOrdersByCampus(String campus, Integer page, Integer size, String fields);
+
+    /**
+     * 根据校区游标分页获取订单列表
+     * 游标分页，查询代价与页数无关，总数由计数器提供
+     * @param campus 校区
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
+     * @return 订单分页列表
+     */
+    PageResult<?> getOrdersByCampusCursor(String campus, String cursor, Integer size, String fields);
     
     /**
      * 收书员接单
@@ -60,6 +74,23 @@ public interface CollectorService extends IService<Collector> {
      * @return 是否接单成功
      */
     boolean acceptOrder(String collectorId, Integer orderId);
+
+    /**
+     * 按宿舍楼分组获取校区待接单订单，订单多的楼在前
+     * @param campus 校区
+     * @param collectorId 收书员ID，正派给其他收书员的订单不计入
+     * @return 宿舍楼分组
+     */
+    List<DormitoryClusterVO> getOrderClusters(String campus, String collectorId);
+
+    /**
+     * 收书员批量接单，一条条件更新接下全部订单，有任一订单已被接走时全部不接
+     * @param collectorId 收书员ID
+     * @param campus 收书员所在校区
+     * @param orderIds 订单ID
+     * @return 是否接单成功
+     */
+    boolean acceptOrders(String collectorId, String campus, List<Integer> orderIds);
     
     /**
      * 收书员完成订单
@@ -74,7 +105,19 @@ public interface CollectorService extends IService<Collector> {
      * @param collectorId 收书员ID
      * @param page 页码
      * @param size 每页大小
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
+     * @return 订单分页列表
+     */
+    PageResult<?> getCollectorOrders(String collectorId, Integer page, Integer size, String fields);
+
+    /**
+     * 游标分页获取收书员已接订单列表
+     * 游标分页，查询代价与页数无关，总数由计数器提供
+     * @param collectorId 收书员ID
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 订单分页列表
      */
-    PageResult<CollectOrderVO> getCollectorOrders(String collectorId, Integer page, Integer size);
+    PageResult<?> getCollectorOrdersByCursor(String collectorId, String cursor, Integer size, String fields);
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package org.example.baozi.book.service;
+
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.vo.CollectorStatVO;
+
+import java.time.LocalDate;
+
+/**
+ * 收书员业绩统计服务接口
+ * 接单、退回、完成时在Redis中按收书员和校区的当天累加计数，定期把增量写入统计表，
+ * 查询业绩时每天只读一行统计，不扫描订单表
+ */
+public interface CollectorStatService {
+
+    /**
+     * 一次最多查询的天数
+     */
+    int MAX_DAYS = 92;
+
+    /**
+     * 记录接单，事务提交后生效
+     * @param order 订单，需包含收书员ID和校区
+     */
+    void recordAccepted(CollectOrder order);
+
+    /**
+     * 记录超时退回，事务提交后生效
+     * @param order 订单
+     * @param collectorId 原收书员ID
+     */
+    void recordReleased(CollectOrder order, String collectorId);
+
+    /**
+     * 记录完成订单，事务提交后生效
+     * @param order 订单，需包含接单时间、完成时间、实际重量和跑腿费
+     */
+    void recordCompleted(CollectOrder order);
+
+    /**
+     * 把Redis中累加的增量写入统计表
+     */
+    void flush();
+
+    /**
+     * 获取收书员的业绩统计
+     * @param collectorId 收书员ID
+     * @param from 开始日期（包含）
+     * @param to 结束日期（包含）
+     * @return 业绩统计
+     * @throws InvalidRequestException 日期范围不合法或超过 {@link #MAX_DAYS} 天
+     */
+    CollectorStatVO getCollectorStats(String collectorId, LocalDate from, LocalDate to);
+
+    /**
+     * 获取校区的业绩统计
+     * @param campus 校区
+     * @param from 开始日期（包含）
+     * @param to 结束日期（包含）
+     * @return 业绩统计
+     * @throws InvalidRequestException 日期范围不合法或超过 {@link #MAX_DAYS} 天
+     */
+    CollectorStatVO getCampusStats(String campus, LocalDate from, LocalDate to);
+}
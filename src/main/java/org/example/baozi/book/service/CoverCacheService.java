@@ -0,0 +1,30 @@
+package org.example.baozi.book.service;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * 书籍封面热点缓存服务接口
+ * 在本节点堆外内存中缓存热门封面，命中时不再访问数据库
+ */
+public interface CoverCacheService {
+
+    /**
+     * 获取书籍封面，优先读取缓存，命中时直接返回堆外数据的只读视图
+     * @param bookId 书籍ID
+     * @return 封面图片数据，书籍不存在或没有封面时返回null
+     */
+    ByteBuffer getCover(Long bookId);
+
+    /**
+     * 移除所有节点上的书籍封面缓存，存在事务时在事务提交后生效
+     * @param bookId 书籍ID
+     */
+    void evict(Long bookId);
+
+    /**
+     * 获取缓存统计信息
+     * @return 命中率、容量使用等指标
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,35 @@
+package org.example.baozi.book.service;
+
+import java.util.List;
+
+/**
+ * 封面感知哈希服务接口
+ * 在内存中维护所有封面的感知哈希索引，用于发现不同学生上传的相同或相似图片
+ */
+public interface CoverHashService {
+
+    /**
+     * 检查新上传的封面是否与其他学生的封面相似，并将其加入所有节点的索引
+     * 发现相似封面时自动生成一条待审核的举报，存在事务时在事务提交后才检查和加入索引
+     * @param bookId 书籍ID
+     * @param ownerId 上传者学号
+     * @param coverHash 封面感知哈希
+     */
+    void checkAndIndex(Long bookId, String ownerId, long coverHash);
+
+    /**
+     * 查找与给定哈希相似、且属于其他学生的封面
+     * @param coverHash 封面感知哈希
+     * @param ownerId 上传者学号
+     * @return 相似封面所属的书籍ID列表，按相似程度排序
+     */
+    List<Long> findSimilar(long coverHash, String ownerId);
+
+    /**
+     * 书籍删除后从所有节点的索引中移除其封面，存在事务时在事务提交后生效
+     * @param bookId 书籍ID
+     * @param ownerId 上传者学号
+     * @param coverHash 封面感知哈希
+     */
+    void remove(Long bookId, String ownerId, long coverHash);
+}
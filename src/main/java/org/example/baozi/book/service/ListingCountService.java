@@ -0,0 +1,64 @@
+package org.example.baozi.book.service;
+
+/**
+ * 列表总数计数服务接口
+ * 分页列表的总数由计数器提供，不再每次分页都执行COUNT查询；
+ * 计数器在数据写入后增量更新，并定期与数据库核对
+ */
+public interface ListingCountService {
+
+    /**
+     * @return 可回收书籍总数
+     */
+    long countRecyclableBooks();
+
+    /**
+     * 调整可回收书籍总数，事务提交后生效
+     * @param delta 增量
+     */
+    void adjustRecyclableBooks(long delta);
+
+    /**
+     * @param campus 校区
+     * @return 校区待接单订单数
+     */
+    long countPendingOrders(String campus);
+
+    /**
+     * 调整校区待接单订单数，事务提交后生效
+     * @param campus 校区
+     * @param delta 增量
+     */
+    void adjustPendingOrders(String campus, long delta);
+
+    /**
+     * @param collectorId 收书员ID
+     * @return 收书员已接订单数
+     */
+    long countCollectorOrders(String collectorId);
+
+    /**
+     * 调整收书员已接订单数，事务提交后生效
+     * @param collectorId 收书员ID
+     * @param delta 增量
+     */
+    void adjustCollectorOrders(String collectorId, long delta);
+
+    /**
+     * @param status 处理状态，为null表示全部
+     * @return 举报数
+     */
+    long countReports(Integer status);
+
+    /**
+     * 举报状态变更时调整计数，事务提交后生效
+     * @param fromStatus 原状态，新提交的举报为null
+     * @param toStatus 新状态
+     */
+    void moveReport(Integer fromStatus, Integer toStatus);
+
+    /**
+     * 用数据库中的实际数量校正所有计数器
+     */
+    void reconcile();
+}
@@ -0,0 +1,32 @@
+package org.example.baozi.book.service;
+
+import java.util.function.Supplier;
+
+/**
+ * 列表响应缓存服务接口
+ * 缓存序列化后的JSON字节（及其gzip压缩结果），命中时直接写出，不再查询和序列化
+ */
+public interface ListingResponseCacheService {
+
+    /**
+     * 缓存的响应
+     * @param body JSON字节
+     * @param gzipBody gzip压缩后的JSON字节
+     * @param etag 响应的ETag
+     */
+    record CachedResponse(byte[] body, byte[] gzipBody, String etag) {
+    }
+
+    /**
+     * 获取缓存的响应，未命中时调用loader生成并缓存
+     * @param key 缓存键，由请求参数组成
+     * @param loader 生成响应对象
+     * @return 缓存的响应，缓存不可用时返回null
+     */
+    CachedResponse get(String key, Supplier<?> loader);
+
+    /**
+     * 可回收书籍发生变化时使所有缓存失效，存在事务时在事务提交后生效
+     */
+    void invalidate();
+}
@@ -0,0 +1,36 @@
+package org.example.baozi.book.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import org.example.baozi.book.entity.Notification;
+import org.example.baozi.book.response.PageResult;
+
+import java.util.List;
+
+/**
+ * 站内通知服务接口
+ */
+public interface NotificationService extends IService<Notification> {
+
+    /**
+     * 批量发送通知
+     * @param notifications 通知列表
+     */
+    void send(List<Notification> notifications);
+
+    /**
+     * 分页获取用户的通知，未读的在前
+     * @param userId 用户ID
+     * @param page 页码
+     * @param size 每页大小
+     * @return 通知分页列表
+     */
+    PageResult<Notification> getNotifications(String userId, Integer page, Integer size);
+
+    /**
+     * 将通知标记为已读
+     * @param userId 用户ID
+     * @param id 通知ID
+     * @return 是否成功
+     */
+    boolean markRead(String userId, Integer id);
+}
@@ -0,0 +1,70 @@
+package org.example.baozi.book.service;
+
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.entity.Collector;
+
+/**
+ * 自动派单服务接口
+ * 开启后新订单按负载自动派给校区内在线的收书员，收书员在限定时间内接单或拒绝，
+ * 超时或拒绝后派给下一位，多次无人接单时退回校区订单列表由收书员手动接单
+ */
+public interface OrderDispatchService {
+
+    /**
+     * @return 是否开启了自动派单
+     */
+    boolean isEnabled();
+
+    /**
+     * 收书员上线，开始接收派单
+     * @param collector 收书员
+     */
+    void goOnline(Collector collector);
+
+    /**
+     * 收书员下线，不再接收新的派单
+     * @param collectorId 收书员ID
+     */
+    void goOffline(String collectorId);
+
+    /**
+     * 派发新订单，存在事务时在事务提交后派发
+     * @param order 订单
+     */
+    void dispatch(CollectOrder order);
+
+    /**
+     * 收书员是否可以接该订单，订单正派给其他收书员时不可以
+     * @param orderId 订单ID
+     * @param collectorId 收书员ID
+     * @return 是否可以接单
+     */
+    boolean canAccept(Integer orderId, String collectorId);
+
+    /**
+     * 拒绝派给自己的订单，订单立即派给下一位收书员
+     * @param orderId 订单ID
+     * @param collectorId 收书员ID
+     * @return 订单当前是否派给了该收书员
+     */
+    boolean decline(Integer orderId, String collectorId);
+
+    /**
+     * 订单已被接单，存在事务时在事务提交后更新负载
+     * @param orderId 订单ID
+     * @param collectorId 接单的收书员ID
+     */
+    void onAccepted(Integer orderId, String collectorId);
+
+    /**
+     * 订单已完成，存在事务时在事务提交后更新负载和近期完成数
+     * @param collectorId 收书员ID
+     */
+    void onCompleted(String collectorId);
+
+    /**
+     * 订单超时未完成被退回，存在事务时在事务提交后更新负载
+     * @param collectorId 原来接单的收书员ID
+     */
+    void onReleased(String collectorId);
+}
@@ -0,0 +1,62 @@
+package org.example.baozi.book.service;
+
+import org.example.baozi.book.entity.CollectOrder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 订单事件推送服务接口
+ * 订单创建、接单、完成时通过SSE推送给相关的收书员和学生，代替前端轮询
+ */
+public interface OrderEventService {
+
+    /**
+     * 新订单
+     */
+    String ORDER_CREATED = "order-created";
+
+    /**
+     * 订单已自动派给某位收书员，等待其接单
+     */
+    String ORDER_OFFERED = "order-offered";
+
+    /**
+     * 订单已被接单
+     */
+    String ORDER_ACCEPTED = "order-accepted";
+
+    /**
+     * 订单已完成
+     */
+    String ORDER_COMPLETED = "order-completed";
+
+    /**
+     * 已接单的订单超时未完成，退回待接单
+     */
+    String ORDER_RELEASED = "order-released";
+
+    /**
+     * 订单长时间无人接单，提醒校区的收书员
+     */
+    String ORDER_ESCALATED = "order-escalated";
+
+    /**
+     * 收书员订阅校区的新订单和接单事件
+     * @param campus 校区
+     * @return SSE连接
+     */
+    SseEmitter subscribeCampus(String campus);
+
+    /**
+     * 学生订阅自己订单的接单和完成事件
+     * @param studentId 学生学号
+     * @return SSE连接
+     */
+    SseEmitter subscribeStudent(String studentId);
+
+    /**
+     * 发布订单事件，存在事务时在事务提交后发布，所有节点都会收到
+     * @param type 事件类型
+     * @param order 订单
+     */
+    void publish(String type, CollectOrder order);
+}
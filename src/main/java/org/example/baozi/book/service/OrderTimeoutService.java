@@ -0,0 +1,43 @@
+package org.example.baozi.book.service;
+
+import java.util.function.Consumer;
+
+/**
+ * 订单超时服务接口
+ * 订单进入某个状态时登记超时任务，离开该状态时取消，到期时调用对应类型的处理器
+ * 超时任务持久化在Redis中，由选举出的一个节点用时间轮调度，节点重启或切换后不会丢失
+ */
+public interface OrderTimeoutService {
+
+    /**
+     * 待接单超时：长时间无人接单
+     */
+    String PENDING = "pending";
+
+    /**
+     * 已接单超时：接单后长时间未完成
+     */
+    String ACCEPTED = "accepted";
+
+    /**
+     * 注册超时处理器，处理器应检查订单当前状态，重复调用不应产生副作用
+     * @param type 超时类型
+     * @param handler 处理器，参数为订单ID
+     */
+    void registerHandler(String type, Consumer<Integer> handler);
+
+    /**
+     * 登记超时任务，到期时间为当前时间加上该类型配置的时长，存在事务时在事务提交后登记
+     * 同一订单同一类型的任务重复登记时以最后一次为准
+     * @param type 超时类型
+     * @param orderId 订单ID
+     */
+    void schedule(String type, Integer orderId);
+
+    /**
+     * 取消超时任务，存在事务时在事务提交后取消
+     * @param type 超时类型
+     * @param orderId 订单ID
+     */
+    void cancel(String type, Integer orderId);
+}
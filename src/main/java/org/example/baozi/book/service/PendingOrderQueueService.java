@@ -0,0 +1,75 @@
+package org.example.baozi.book.service;
+
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.entity.Student;
+import org.example.baozi.book.response.PageResult;
+import org.example.baozi.book.vo.CollectOrderVO;
+
+import java.util.List;
+
+/**
+ * 待接单订单队列服务接口
+ * 每个校区的待接单订单以精简摘要的形式保存在Redis有序集合中，收书员刷新订单列表时直接读取，
+ * 数据库仍是订单数据的依据，队列定时与数据库核对
+ */
+public interface PendingOrderQueueService {
+
+    /**
+     * 分页获取校区待接单订单
+     * @param campus 校区
+     * @param page 页码
+     * @param size 每页大小
+     * @return 分页结果，队列尚未加载该校区或Redis不可用时返回null，调用方应查询数据库
+     */
+    PageResult<CollectOrderVO> getOrders(String campus, int page, int size);
+
+    /**
+     * 游标分页获取校区待接单订单，按 (create_time, id) 倒序
+     * @param campus 校区
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @return 分页结果，队列尚未加载该校区或Redis不可用时返回null，调用方应查询数据库
+     */
+    PageResult<CollectOrderVO> getOrdersByCursor(String campus, String cursor, int size);
+
+    /**
+     * 获取校区全部待接单订单，顺序不定
+     * @param campus 校区
+     * @return 待接单订单，队列尚未加载该校区或Redis不可用时返回null，调用方应查询数据库
+     */
+    List<CollectOrderVO> getAllOrders(String campus);
+
+    /**
+     * 新订单加入队列，存在事务时在事务提交后执行
+     * @param order 订单
+     * @param student 下单学生
+     */
+    void add(CollectOrder order, Student student);
+
+    /**
+     * 订单移出队列（已接单、已取消等），存在事务时在事务提交后执行
+     * @param campus 校区
+     * @param orderId 订单ID
+     */
+    void remove(String campus, Integer orderId);
+
+    /**
+     * 抢占接单标记，同一订单只有一个收书员能拿到，其余的无需访问数据库直接失败
+     * Redis不可用时返回true，由数据库的条件更新保证只有一个收书员接单成功
+     * @param orderId 订单ID
+     * @param collectorId 收书员ID
+     * @return 是否抢占成功
+     */
+    boolean tryClaim(Integer orderId, String collectorId);
+
+    /**
+     * 释放接单标记，接单事务回滚时调用
+     * @param orderId 订单ID
+     */
+    void releaseClaim(Integer orderId);
+
+    /**
+     * 按数据库重建全部校区的队列
+     */
+    void reconcile();
+}
@@ -0,0 +1,57 @@
+package org.example.baozi.book.service;
+
+import org.example.baozi.book.entity.PricingRule;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 回收价格服务接口
+ * 价格规则按校区和生效时间配置在数据库中，各节点在内存中保存不可变的规则快照，
+ * 查询价格不访问数据库，规则修改后通知所有节点重新加载
+ */
+public interface PricingService {
+
+    /**
+     * 当前生效的价格
+     * @param pricePerKg 每公斤回收价格（元）
+     * @param commissionRate 收书员跑腿费比例
+     */
+    record Quote(BigDecimal pricePerKg, BigDecimal commissionRate) {
+    }
+
+    /**
+     * 获取校区当前生效的价格，校区没有单独的规则时使用全部校区的规则，都没有时使用默认价格
+     * @param campus 校区
+     * @return 价格
+     */
+    Quote getQuote(String campus);
+
+    /**
+     * 按校区当前的价格计算书籍价格
+     * @param weight 重量（公斤）
+     * @param campus 校区
+     * @return 价格（元），保留两位小数
+     */
+    BigDecimal calculatePrice(Double weight, String campus);
+
+    /**
+     * @return 全部价格规则
+     */
+    List<PricingRule> listRules();
+
+    /**
+     * 新增或修改价格规则，提交后通知所有节点重新加载
+     * @param rule 价格规则，id为空时新增
+     * @return 保存后的规则
+     * @throws InvalidRequestException 价格、比例或生效时间不合法
+     */
+    PricingRule saveRule(PricingRule rule);
+
+    /**
+     * 删除价格规则，提交后通知所有节点重新加载
+     * @param id 规则ID
+     * @return 是否删除成功
+     */
+    boolean deleteRule(Integer id);
+}
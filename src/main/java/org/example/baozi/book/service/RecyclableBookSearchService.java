@@ -0,0 +1,68 @@
+package org.example.baozi.book.service;
+
+import org.example.baozi.book.entity.RecyclableBook;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可回收书籍检索服务接口
+ * 在内存中维护书名、出版社、印刷版次的倒排索引，用于关键词搜索；
+ * 同时按校区、出版社、印刷版次维护位图索引，用于分类筛选和统计
+ */
+public interface RecyclableBookSearchService {
+
+    /**
+     * 分类：校区
+     */
+    String FACET_CAMPUS = "campus";
+
+    /**
+     * 分类：出版社
+     */
+    String FACET_PUBLISHER = "publisher";
+
+    /**
+     * 分类：印刷版次
+     */
+    String FACET_EDITION = "edition";
+
+    /**
+     * 按关键词检索可回收书籍
+     * @param keyword 关键词
+     * @return 按相关度排序的可回收书籍ID
+     */
+    List<Integer> search(String keyword);
+
+    /**
+     * 按关键词和分类筛选可回收书籍
+     * @param keyword 关键词，可为空
+     * @param filters 分类筛选条件，分类 -> 取值，取值为空表示不筛选
+     * @return 有关键词时按相关度排序，否则按发布时间从新到旧排序的可回收书籍ID
+     */
+    List<Integer> search(String keyword, Map<String, String> filters);
+
+    /**
+     * 统计各分类取值下的书籍数量
+     * 统计某个分类时不应用该分类自身的筛选条件，便于用户切换选项
+     * @param keyword 关键词，可为空
+     * @param filters 分类筛选条件
+     * @param limit 每个分类最多返回的取值数量
+     * @return 分类 -> (取值 -> 数量)，按数量从多到少排序
+     */
+    Map<String, Map<String, Integer>> facetCounts(String keyword, Map<String, String> filters, int limit);
+
+    /**
+     * 将可回收书籍加入索引，存在事务时在事务提交后生效
+     * @param books 可回收书籍
+     * @param campus 书籍所在校区
+     */
+    void index(Collection<RecyclableBook> books, String campus);
+
+    /**
+     * 从所有节点的索引中移除可回收书籍，存在事务时在事务提交后生效
+     * @param rId 可回收书籍ID
+     */
+    void remove(Integer rId);
+}
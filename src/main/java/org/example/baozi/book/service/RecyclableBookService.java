@@ -5,10 +5,11 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import org.example.baozi.book.entity.RecyclableBook;
 import org.example.baozi.book.response.PageResult;
-import org.example.baozi.book.vo.RecyclableBookVO;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 可回收书籍服务接口
@@ -23,14 +24,48 @@ public interface RecyclableBookService extends IService<RecyclableBook> {
      * @return 添加的书籍ID
      */
     Integer addRecyclableBook(Long bookId, String bookName, String printingEdition, String publisher);
+
+    /**
+     * 批量添加可回收书籍
+     * 封面并行处理，书籍和可回收书籍使用JDBC批量插入
+     * @param ownerId 上传者学号
+     * @param campus 校区
+     * @param bookCovers 封面图片
+     * @param bookNames 书名
+     * @param printingEditions 印刷版次
+     * @param publishers 出版商
+     * @return 每本书的处理结果，顺序与上传顺序一致
+     */
+    List<Map<String, Object>> addRecyclableBooks(String ownerId, String campus, List<MultipartFile> bookCovers,
+                                                 List<String> bookNames, List<String> printingEditions, List<String> publishers);
     
     /**
      * 分页查询可回收书籍列表
      * @param pages 分页参数
-     * @param keyword 关键词（用于书名搜索）
+     * @param keyword 关键词（检索书名、出版社和印刷版次）
+     * @param filters 分类筛选条件（校区、出版社、印刷版次）
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
+     * @return 分页结果
+     */
+    PageResult<?> getRecyclableBooks(Page<RecyclableBook> pages, String keyword, Map<String, String> filters, String fields);
+
+    /**
+     * 游标分页查询可回收书籍列表
+     * 游标分页，查询代价与页数无关，总数由计数器提供
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 分页结果
      */
-    PageResult<RecyclableBookVO> getRecyclableBooks(Page<RecyclableBook> pages, String keyword);
+    PageResult<?> getRecyclableBooksByCursor(String cursor, Integer size, String fields);
+
+    /**
+     * 统计可回收书籍的分类数量
+     * @param keyword 关键词
+     * @param filters 分类筛选条件
+     * @return 分类 -> (取值 -> 数量)
+     */
+    Map<String, Map<String, Integer>> getRecyclableBookFacets(String keyword, Map<String, String> filters);
 
     /**
      * 获取可回收书籍详情
@@ -38,4 +73,11 @@ public interface RecyclableBookService extends IService<RecyclableBook> {
      * @return 可回收书籍对象
      */
     RecyclableBook getRecyclableBookInfo(Integer rId);
-} 
\ No newline at end of file
+
+    /**
+     * 删除可回收书籍
+     * @param rId 可回收书籍ID
+     * @return 是否删除成功
+     */
+    boolean deleteRecyclableBook(Integer rId);
+}
@@ -0,0 +1,24 @@
+package org.example.baozi.book.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可回收书籍搜索联想服务接口
+ * 根据输入的前缀联想书名和出版商，按热度排序
+ */
+public interface RecyclableBookSuggestService {
+
+    /**
+     * 获取联想词
+     * @param prefix 输入的前缀
+     * @param limit 返回数量上限
+     * @return 联想词列表，包含text(联想词)、type(title或publisher)和count(可回收书籍数量)
+     */
+    List<Map<String, Object>> suggest(String prefix, int limit);
+
+    /**
+     * 重建联想词典
+     */
+    void rebuild();
+}
@@ -28,6 +28,16 @@ public interface ReportService extends IService<Report> {
      * @return 分页结果
      */
     PageResult<Report> getReportPage(Integer page, Integer size, Integer status);
+
+    /**
+     * 游标分页查询举报信息
+     * 游标分页，查询代价与页数无关，总数由计数器提供
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @param status 处理状态
+     * @return 分页结果
+     */
+    PageResult<Report> getReportPageByCursor(String cursor, Integer size, Integer status);
     
     /**
      * 处理举报信息
@@ -2,7 +2,8 @@ package org.example.baozi.book.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import org.example.baozi.book.entity.SealedBook;
-import org.example.baozi.book.vo.SealedBookVO;
+import org.example.baozi.book.response.PageResult;
+import org.example.baozi.book.vo.CollectOrderVO;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -23,9 +24,10 @@ public interface SealedBookService extends IService<SealedBook> {
     /**
      * 获取学生所有待售书籍
      * @param ownerId 学生ID
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 待售书籍列表
      */
-    List<SealedBookVO> getStudentSealedBooks(String ownerId);
+    List<?> getStudentSealedBooks(String ownerId, String fields);
     
     /**
      * 收书员接单
@@ -35,11 +37,12 @@ public interface SealedBookService extends IService<SealedBook> {
     boolean acceptBook(Integer sId);
     
     /**
-     * 计算书籍价格（重量*1.6）
+     * 按校区当前的回收价格计算书籍价格
      * @param bookWeight 书籍重量
+     * @param campus 校区
      * @return 计算得到的价格
      */
-    Double calculatePrice(Double bookWeight);
+    Double calculatePrice(Double bookWeight, String campus);
 
     /**
      * 添加售卖书籍订单
@@ -47,4 +50,13 @@ public interface SealedBookService extends IService<SealedBook> {
      * @return 是否更新订单
      */
     Integer createSealedOrder(Integer sId);
+
+    /**
+     * 游标分页获取学生的订单，按下单时间倒序
+     * @param studentId 学号
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @return 订单分页列表
+     */
+    PageResult<CollectOrderVO> getStudentOrders(String studentId, String cursor, Integer size);
 } 
\ No newline at end of file
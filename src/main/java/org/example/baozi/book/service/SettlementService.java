@@ -0,0 +1,43 @@
+package org.example.baozi.book.service;
+
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.entity.PayoutBatch;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 结算服务接口
+ * 订单完成时记录结算流水，定时把未结算的流水按收款方和收款方式汇总，生成打款文件
+ */
+public interface SettlementService {
+
+    /**
+     * 记录已完成订单的结算流水，应在完成订单的事务中调用
+     * @param order 已完成的订单
+     * @param studentAmount 学生所得
+     * @param commissionAmount 收书员跑腿费
+     */
+    void recordCompletion(CollectOrder order, BigDecimal studentAmount, BigDecimal commissionAmount);
+
+    /**
+     * 汇总未结算的流水并生成打款文件，其他节点正在生成时直接返回
+     * @return 新的打款批次，没有需要结算的流水时返回null
+     */
+    PayoutBatch runPayout();
+
+    /**
+     * 获取最近的打款批次
+     * @param limit 数量
+     * @return 打款批次，新的在前
+     */
+    List<PayoutBatch> listBatches(int limit);
+
+    /**
+     * 获取打款批次的文件
+     * @param batchId 批次ID
+     * @return 文件路径，批次不存在或文件尚未生成时返回null
+     */
+    Path getBatchFile(Long batchId);
+}
@@ -0,0 +1,62 @@
+package org.example.baozi.book.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热门书籍排行服务接口
+ * 按校区统计最近被发布、浏览最多（供给）和被求购最多（需求）的书，热度随时间衰减
+ */
+public interface TrendingService {
+
+    /**
+     * 排行类型：供给（发布、浏览）
+     */
+    String KIND_OFFERED = "offered";
+
+    /**
+     * 排行类型：需求（联系卖家、登记心愿）
+     */
+    String KIND_WANTED = "wanted";
+
+    /**
+     * 记录书籍发布，存在事务时在事务提交后记录
+     * @param campus 校区
+     * @param title 书名
+     */
+    void recordUpload(String campus, String title);
+
+    /**
+     * 记录书籍详情被浏览
+     * @param campus 书籍所在校区
+     * @param title 书名
+     */
+    void recordView(String campus, String title);
+
+    /**
+     * 记录学生联系卖家
+     * @param campus 书籍所在校区
+     * @param title 书名
+     */
+    void recordContact(String campus, String title);
+
+    /**
+     * 记录学生登记心愿
+     * @param campus 学生所在校区
+     * @param title 书名
+     */
+    void recordWish(String campus, String title);
+
+    /**
+     * 获取热门排行，读取定时计算好的结果，不访问数据库
+     * @param campus 校区，为空表示全部校区
+     * @param limit 每类返回的数量
+     * @return 排行类型 -> 书名和热度列表
+     */
+    Map<String, List<Map<String, Object>>> getTrending(String campus, int limit);
+
+    /**
+     * 重新计算热门排行
+     */
+    void refresh();
+}
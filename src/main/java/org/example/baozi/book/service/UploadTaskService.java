@@ -0,0 +1,32 @@
+package org.example.baozi.book.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 异步上传任务服务接口
+ * 上传内容先落盘暂存并立即返回任务ID，再由后台线程写入数据库
+ */
+public interface UploadTaskService {
+
+    /**
+     * 受理待售书籍上传
+     * @param studentId 学号
+     * @param campus 校区
+     * @param bookImage 书籍图片
+     * @param weight 书籍重量
+     * @return 任务ID，处理队列已满时返回null
+     * @throws IOException 如果暂存图片失败
+     */
+    String submitSealedUpload(String studentId, String campus, MultipartFile bookImage, Double weight) throws IOException;
+
+    /**
+     * 查询任务状态
+     * @param taskId 任务ID
+     * @param studentId 学号，只能查询自己的任务
+     * @return 任务状态信息，任务不存在时返回null
+     */
+    Map<String, Object> getTaskStatus(String taskId, String studentId);
+}
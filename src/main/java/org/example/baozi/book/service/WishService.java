@@ -0,0 +1,47 @@
+package org.example.baozi.book.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import org.example.baozi.book.entity.RecyclableBook;
+import org.example.baozi.book.entity.Wish;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 求书心愿服务接口
+ * 学生登记想要的书，新书发布时与所有等待中的心愿匹配并发送通知
+ */
+public interface WishService extends IService<Wish> {
+
+    /**
+     * 登记心愿
+     * @param studentId 学生学号
+     * @param title 书名
+     * @param publisher 出版商（可选）
+     * @param edition 印刷版次（可选）
+     * @return 心愿ID，等待中的心愿数量已达上限时返回-1
+     */
+    Integer addWish(String studentId, String title, String publisher, String edition);
+
+    /**
+     * 获取学生的心愿列表
+     * @param studentId 学生学号
+     * @return 心愿列表
+     */
+    List<Wish> getWishes(String studentId);
+
+    /**
+     * 关闭心愿，不再接收通知
+     * @param studentId 学生学号
+     * @param id 心愿ID
+     * @return 是否成功
+     */
+    boolean closeWish(String studentId, Integer id);
+
+    /**
+     * 将新发布的可回收书籍与等待中的心愿匹配，并通知心愿登记者，存在事务时在事务提交后执行
+     * @param books 新发布的可回收书籍
+     * @param ownerId 发布者学号，不通知发布者本人
+     */
+    void matchNewBooks(Collection<RecyclableBook> books, String ownerId);
+}
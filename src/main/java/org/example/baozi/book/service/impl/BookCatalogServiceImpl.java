@@ -0,0 +1,141 @@
+package org.example.baozi.book.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.BookCatalog;
+import org.example.baozi.book.entity.RecyclableBook;
+import org.example.baozi.book.mapper.BookCatalogMapper;
+import org.example.baozi.book.mapper.RecyclableBookMapper;
+import org.example.baozi.book.service.BookCatalogService;
+import org.example.baozi.book.util.TitleNormalizer;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 教材目录服务实现类
+ * 目录数据量小且很少变化，启动时全部加载到内存，上传时的查找不访问数据库
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookCatalogServiceImpl extends ServiceImpl<BookCatalogMapper, BookCatalog> implements BookCatalogService {
+
+    private final RecyclableBookMapper recyclableBookMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<String, Integer> idByKey = new ConcurrentHashMap<>();
+    private final Map<Integer, BookCatalog> catalogById = new ConcurrentHashMap<>();
+
+    /**
+     * 新建目录使用的独立事务
+     */
+    private TransactionTemplate createTemplate;
+
+    @PostConstruct
+    public void init() {
+        createTemplate = new TransactionTemplate(transactionManager);
+        createTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        list().forEach(this::cache);
+        log.info("教材目录加载完成，共 {} 条", catalogById.size());
+        backfill();
+    }
+
+    /**
+     * 查找或创建对应的教材目录
+     * 命中缓存时不开启事务；未命中时目录在独立事务中创建，
+     * 上传事务回滚时不会留下缓存中有、数据库中没有的目录
+     * @param title 书名
+     * @param publisher 出版商
+     * @param edition 印刷版次
+     * @return 教材目录ID，书名为空时返回null
+     */
+    @Override
+    public Integer resolve(String title, String publisher, String edition) {
+        String normalizedTitle = TitleNormalizer.normalize(title);
+        if (normalizedTitle.isEmpty()) {
+            return null;
+        }
+        String key = normalizedTitle + "|" + TitleNormalizer.normalizePublisher(publisher)
+                + "|" + TitleNormalizer.normalizeEdition(edition);
+
+        Integer id = idByKey.get(key);
+        if (id != null) {
+            return id;
+        }
+
+        BookCatalog catalog = create(key, title, publisher, edition);
+        cache(catalog);
+        return catalog.getId();
+    }
+
+    private BookCatalog create(String key, String title, String publisher, String edition) {
+        BookCatalog catalog = new BookCatalog();
+        catalog.setNormalizedKey(key);
+        catalog.setTitle(title);
+        catalog.setPublisher(publisher);
+        catalog.setEdition(edition);
+        try {
+            createTemplate.executeWithoutResult(status -> save(catalog));
+            return catalog;
+        } catch (DuplicateKeyException e) {
+            // 其他请求或实例已经创建了相同的目录
+            return getOne(new LambdaQueryWrapper<BookCatalog>().eq(BookCatalog::getNormalizedKey, key));
+        }
+    }
+
+    /**
+     * 获取教材目录，优先从缓存读取
+     * @param id 教材目录ID
+     * @return 教材目录，不存在时返回null
+     */
+    @Override
+    public BookCatalog getCatalog(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        BookCatalog catalog = catalogById.get(id);
+        if (catalog == null) {
+            // 其他实例新建的目录
+            catalog = getById(id);
+            if (catalog != null) {
+                cache(catalog);
+            }
+        }
+        return catalog;
+    }
+
+    private void cache(BookCatalog catalog) {
+        idByKey.put(catalog.getNormalizedKey(), catalog.getId());
+        catalogById.put(catalog.getId(), catalog);
+    }
+
+    /**
+     * 为还没有对应目录的可回收书籍补充目录ID
+     */
+    private void backfill() {
+        List<RecyclableBook> books = recyclableBookMapper.selectList(new LambdaQueryWrapper<RecyclableBook>()
+                .isNull(RecyclableBook::getCatalogId));
+        for (RecyclableBook book : books) {
+            Integer catalogId = resolve(book.getBookTitle(), book.getPublisher(), book.getPrintingEdition());
+            if (catalogId != null) {
+                recyclableBookMapper.update(null, new LambdaUpdateWrapper<RecyclableBook>()
+                        .eq(RecyclableBook::getRId, book.getRId())
+                        .set(RecyclableBook::getCatalogId, catalogId));
+            }
+        }
+        if (!books.isEmpty()) {
+            log.info("已为 {} 本可回收书籍补充教材目录", books.size());
+        }
+    }
+}
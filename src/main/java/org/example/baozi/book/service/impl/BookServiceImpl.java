@@ -1,20 +1,32 @@
 package org.example.baozi.book.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import lombok.RequiredArgsConstructor;
 import org.example.baozi.book.entity.Book;
 import org.example.baozi.book.mapper.BookMapper;
 import org.example.baozi.book.service.BookService;
+import org.example.baozi.book.service.CoverHashService;
+import org.example.baozi.book.util.PerceptualHash;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 /**
  * 书籍服务实现类
  */
 @Service
+@RequiredArgsConstructor
 public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements BookService {
+
+    private final CoverHashService coverHashService;
+    private final ExecutorService coverProcessExecutor;
     
     /**
      * 创建一本新书
@@ -26,22 +38,90 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
      */
     @Override
     public Long createBook(String ownerId, String campus, MultipartFile bookImage) throws IOException {
+        // 如果提供了图片，读取图片数据
+        byte[] imageData = null;
+        if (bookImage != null && !bookImage.isEmpty()) {
+            imageData = bookImage.getBytes();
+        }
+        
+        return createBook(ownerId, campus, imageData);
+    }
+
+    /**
+     * 根据已读取的图片数据创建一本新书
+     * @param ownerId 所有者学号
+     * @param campus 校区
+     * @param imageData 书籍图片数据，可以为空
+     * @return 创建的书籍ID
+     */
+    @Override
+    public Long createBook(String ownerId, String campus, byte[] imageData) {
         // 创建新的书籍对象
         Book book = new Book();
         book.setOwnerId(ownerId);
         book.setCampus(campus);
         
-        // 如果提供了图片，处理并保存图片数据
-        if (bookImage != null && !bookImage.isEmpty()) {
-            book.setBookData(bookImage.getBytes());
+        // 如果提供了图片，保存图片数据并计算感知哈希
+        if (imageData != null && imageData.length > 0) {
+            book.setBookData(imageData);
+            book.setCoverHash(PerceptualHash.dHash(imageData));
         }
+        book.setHasCover(book.getBookData() != null);
         
         // 保存书籍信息
         save(book);
         
+        // 检查是否与其他学生的封面相似
+        if (book.getCoverHash() != null) {
+            coverHashService.checkAndIndex(book.getId(), ownerId, book.getCoverHash());
+        }
+        
         return book.getId();
     }
     
+    /**
+     * 批量创建书籍，并行处理封面图片后使用JDBC批量插入
+     * @param ownerId 所有者学号
+     * @param campus 校区
+     * @param images 每本书的图片数据
+     * @return 创建的书籍ID，顺序与图片一致
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> createBooks(String ownerId, String campus, List<byte[]> images) {
+        // 并行计算每张封面的感知哈希
+        List<CompletableFuture<Long>> hashes = images.stream()
+                .map(image -> CompletableFuture.supplyAsync(() -> PerceptualHash.dHash(image), coverProcessExecutor))
+                .toList();
+
+        List<Book> books = new ArrayList<>(images.size());
+        for (int i = 0; i < images.size(); i++) {
+            byte[] imageData = images.get(i);
+            Book book = new Book();
+            book.setOwnerId(ownerId);
+            book.setCampus(campus);
+            if (imageData != null && imageData.length > 0) {
+                book.setBookData(imageData);
+                book.setCoverHash(hashes.get(i).join());
+            }
+            book.setHasCover(book.getBookData() != null);
+            books.add(book);
+        }
+        
+        // 批量保存书籍信息
+        saveBatch(books);
+        
+        List<Long> bookIds = new ArrayList<>(books.size());
+        for (Book book : books) {
+            // 检查是否与其他学生的封面相似
+            if (book.getCoverHash() != null) {
+                coverHashService.checkAndIndex(book.getId(), ownerId, book.getCoverHash());
+            }
+            bookIds.add(book.getId());
+        }
+        return bookIds;
+    }
+    
     /**
      * 获取书籍信息
      * @param bookId 书籍ID
@@ -51,4 +131,14 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
     public Book getBookInfo(Long bookId) {
         return getById(bookId);
     }
+
+    /**
+     * 获取书籍封面图片数据
+     * @param bookId 书籍ID
+     * @return 图片数据，不存在时返回null
+     */
+    @Override
+    public byte[] getBookCover(Long bookId) {
+        return baseMapper.selectBookData(bookId);
+    }
 } 
\ No newline at end of file
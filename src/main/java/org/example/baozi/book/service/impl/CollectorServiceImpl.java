@@ -1,33 +1,115 @@
 package org.example.baozi.book.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.baozi.book.entity.CollectOrder;
 import org.example.baozi.book.entity.Collector;
-import org.example.baozi.book.entity.SealedBook;
 import org.example.baozi.book.mapper.CollectOrderMapper;
 import org.example.baozi.book.mapper.CollectorMapper;
-import org.example.baozi.book.mapper.SealedBookMapper;
+import org.example.baozi.book.mapper.OrderViewMapper;
+import org.example.baozi.book.mapper.StudentMapper;
 import org.example.baozi.book.response.PageResult;
 import org.example.baozi.book.service.CollectorService;
+import org.example.baozi.book.service.CollectorStatService;
+import org.example.baozi.book.service.ListingCountService;
+import org.example.baozi.book.service.OrderDispatchService;
+import org.example.baozi.book.service.OrderEventService;
+import org.example.baozi.book.service.OrderTimeoutService;
+import org.example.baozi.book.service.PendingOrderQueueService;
+import org.example.baozi.book.service.PricingService;
+import org.example.baozi.book.service.SettlementService;
+import org.example.baozi.book.util.CursorUtil;
+import org.example.baozi.book.util.DormitoryUtil;
+import org.example.baozi.book.util.FieldProjection;
+import org.example.baozi.book.util.TransactionUtil;
 import org.example.baozi.book.vo.CollectOrderVO;
+import org.example.baozi.book.vo.DormitoryClusterVO;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 收书员服务接口实现类
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CollectorServiceImpl extends ServiceImpl<CollectorMapper, Collector> implements CollectorService {
 
     private final CollectorMapper collectorMapper;
     private final CollectOrderMapper collectOrderMapper;
-    private final SealedBookMapper sealedBookMapper;
+    private final OrderViewMapper orderViewMapper;
+    private final ListingCountService listingCountService;
+    private final PendingOrderQueueService pendingOrderQueueService;
+    private final OrderEventService orderEventService;
+    private final OrderDispatchService orderDispatchService;
+    private final OrderTimeoutService orderTimeoutService;
+    private final StudentMapper studentMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final SettlementService settlementService;
+    private final PricingService pricingService;
+    private final CollectorStatService collectorStatService;
+
+    /**
+     * 一次最多批量接单的订单数
+     */
+    private static final int MAX_BATCH_ACCEPT = 20;
+
+    /**
+     * 校区待接单订单可返回的属性，游标分页需要id和createTime
+     */
+    private static final FieldProjection.Definition<CollectOrderVO> CAMPUS_ORDER_FIELDS = orderFields()
+            .required("id", "createTime");
+
+    /**
+     * 收书员已接订单可返回的属性，额外包含收书员信息和订单状态
+     */
+    private static final FieldProjection.Definition<CollectOrderVO> COLLECTOR_ORDER_FIELDS = orderFields()
+            .field("collectorPhone", "ov.collector_phone as collectorPhone", CollectOrderVO::getCollectorPhone)
+            .field("collectorName", "ov.collector_name as collectorName", CollectOrderVO::getCollectorName)
+            .field("status", "ov.status", CollectOrderVO::getStatus)
+            .required("id", "createTime");
+
+    @PostConstruct
+    public void registerTimeoutHandlers() {
+        orderTimeoutService.registerHandler(OrderTimeoutService.ACCEPTED,
+                orderId -> transactionTemplate.executeWithoutResult(status -> releaseStaleOrder(orderId)));
+        orderTimeoutService.registerHandler(OrderTimeoutService.PENDING, this::escalatePendingOrder);
+    }
+
+    private static FieldProjection.Definition<CollectOrderVO> orderFields() {
+        return FieldProjection.<CollectOrderVO>define()
+                .field("id", "ov.id", CollectOrderVO::getId)
+                .field("studentId", "ov.student_id as studentId", CollectOrderVO::getStudentId)
+                .field("studentPhone", "ov.student_phone as studentPhone", CollectOrderVO::getStudentPhone)
+                .field("studentDormitory", "ov.student_dormitory as studentDormitory", CollectOrderVO::getStudentDormitory)
+                .field("sealedBookId", "ov.sealed_book_id as sealedBookId", CollectOrderVO::getSealedBookId)
+                .field("campus", "ov.campus", CollectOrderVO::getCampus)
+                .field("createTime", "ov.create_time as createTime", CollectOrderVO::getCreateTime)
+                .field("acceptTime", "ov.accept_time as acceptTime", CollectOrderVO::getAcceptTime)
+                .field("finishTime", "ov.finish_time as finishTime", CollectOrderVO::getFinishTime)
+                .field("actualWeight", "ov.actual_weight as actualWeight", CollectOrderVO::getActualWeight)
+                .field("pricePerKg", "ov.price_per_kg as pricePerKg", CollectOrderVO::getPricePerKg)
+                .field("commissionAmount", "ov.commission_amount as commissionAmount", CollectOrderVO::getCommissionAmount)
+                .field("studentAmount", "ov.student_amount as studentAmount", CollectOrderVO::getStudentAmount);
+    }
 
     /**
      * 根据学号查询收书员信息
@@ -77,6 +159,7 @@ public class CollectorServiceImpl extends ServiceImpl<CollectorMapper, Collector
      * @return 是否更新成功
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean updateCollectorInfo(Collector collector) {
         // 只允许更新手机号、校区和支付方式
         Collector existingCollector = getById(collector.getCollectorId());
@@ -88,7 +171,12 @@ public class CollectorServiceImpl extends ServiceImpl<CollectorMapper, Collector
         existingCollector.setCampus(collector.getCampus());
         existingCollector.setPaymentMethod(collector.getPaymentMethod());
         
-        return updateById(existingCollector);
+        if (!updateById(existingCollector)) {
+            return false;
+        }
+        // 同步订单列表中冗余的收书员联系电话
+        orderViewMapper.refreshCollector(existingCollector.getCollectorId());
+        return true;
     }
 
     /**
@@ -115,19 +203,57 @@ public class CollectorServiceImpl extends ServiceImpl<CollectorMapper, Collector
      * @param campus 校区
      * @param page   页码
      * @param size   每页大小
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 订单分页列表
      */
     @Override
-    public PageResult<CollectOrderVO> getOrdersByCampus(String campus, Integer page, Integer size) {
+    public PageResult<?> getOrdersByCampus(String campus, Integer page, Integer size, String fields) {
+        FieldProjection<CollectOrderVO> projection = CAMPUS_ORDER_FIELDS.project(fields);
+        // 优先从Redis中的待接单队列读取，不再每次刷新都执行三表连接查询
+        PageResult<CollectOrderVO> queued = pendingOrderQueueService.getOrders(campus, page, size);
+        if (queued != null) {
+            return FieldProjection.apply(projection, queued);
+        }
+
         Page<CollectOrder> pageParam = new Page<>(page, size);
-        Page<CollectOrderVO> resultPage = collectOrderMapper.getOrderPageByCampus(pageParam, campus);
+        // 总数由计数器提供，不再执行COUNT查询
+        pageParam.setSearchCount(false);
+        Page<CollectOrderVO> resultPage = collectOrderMapper.getOrderPageByCampus(pageParam, campus,
+                FieldProjection.columns(projection));
         
-        return new PageResult<>(
+        return FieldProjection.apply(projection, new PageResult<>(
                 resultPage.getRecords(),
-                resultPage.getTotal(),
+                listingCountService.countPendingOrders(campus),
                 resultPage.getSize(),
                 resultPage.getCurrent()
-        );
+        ));
+    }
+
+    /**
+     * 根据校区游标分页获取订单列表
+     * 游标分页，查询代价与页数无关，总数由计数器提供
+     *
+     * @param campus 校区
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size   每页大小
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
+     * @return 订单分页列表
+     */
+    @Override
+    public PageResult<?> getOrdersByCampusCursor(String campus, String cursor, Integer size, String fields) {
+        FieldProjection<CollectOrderVO> projection = CAMPUS_ORDER_FIELDS.project(fields);
+        size = CursorUtil.clampSize(size);
+        PageResult<CollectOrderVO> queued = pendingOrderQueueService.getOrdersByCursor(campus, cursor, size);
+        if (queued != null) {
+            return FieldProjection.apply(projection, queued);
+        }
+
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        // 多查一条用于判断是否还有下一页
+        List<CollectOrderVO> rows = collectOrderMapper.getOrderByCampusCursor(campus, position.createTime(), position.id(), size + 1,
+                FieldProjection.columns(projection));
+        return FieldProjection.apply(projection, CursorUtil.toPageResult(rows, size, listingCountService.countPendingOrders(campus),
+                CollectOrderVO::getCreateTime, CollectOrderVO::getId));
     }
 
     /**
@@ -140,30 +266,178 @@ public class CollectorServiceImpl extends ServiceImpl<CollectorMapper, Collector
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean acceptOrder(String collectorId, Integer orderId) {
-        // 查询订单是否存在
+        // 普通读不加锁，已被接走的订单直接返回，不参与行锁竞争
         CollectOrder order = collectOrderMapper.selectById(orderId);
         if (order == null || order.getStatus() != 0) {
             return false;
         }
-        
-        // 更新订单信息
-        order.setCollectorId(collectorId);
-        order.setStatus(1); // 设置为已接单
-        order.setAcceptTime(LocalDateTime.now());;
-        
-        // 更新收书员接单数
-        Collector collector = getById(collectorId);
-        collector.setOrderCount(collector.getOrderCount() + 1);
-        updateById(collector);
+        // 自动派单时，订单正在派给其他收书员
+        if (!orderDispatchService.canAccept(orderId, collectorId)) {
+            return false;
+        }
 
-        // 更新售卖图书接单信息
-        SealedBook sealedBook = sealedBookMapper.selectById(order.getSealedBookId());
-        if (sealedBook == null) {
+        // Redis中的接单标记先拦下并发的收书员，没拿到标记的不访问数据库直接失败
+        if (!pendingOrderQueueService.tryClaim(orderId, collectorId)) {
             return false;
         }
-        sealedBook.setIsAccept(true);
-        
-        return collectOrderMapper.updateById(order) > 0 && sealedBookMapper.updateById(sealedBook) > 0;
+        TransactionUtil.afterRollback(() -> pendingOrderQueueService.releaseClaim(orderId));
+
+        // 条件更新代替先读后写：多个收书员同时接单时只有一个能更新成功，
+        // 其余的等到该行锁释放后立即得到0行，事务内只有这两条语句，持锁时间很短
+        if (collectOrderMapper.claimOrder(orderId, collectorId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        orderViewMapper.refresh(List.of(orderId));
+        collectorMapper.incrementOrderCount(collectorId, 1);
+        onClaimed(order, collectorId);
+        return true;
+    }
+
+    /**
+     * 按宿舍楼分组获取校区待接单订单
+     * 优先读取Redis待接单队列，未加载时查询数据库
+     * @param campus 校区
+     * @param collectorId 收书员ID
+     * @return 宿舍楼分组，订单多的楼在前，数量相同时等得久的在前
+     */
+    @Override
+    public List<DormitoryClusterVO> getOrderClusters(String campus, String collectorId) {
+        List<CollectOrderVO> orders = pendingOrderQueueService.getAllOrders(campus);
+        if (orders == null) {
+            orders = collectOrderMapper.selectPendingSummaries(campus);
+        }
+
+        Map<String, List<CollectOrderVO>> byBuilding = new HashMap<>();
+        for (CollectOrderVO order : orders) {
+            if (orderDispatchService.canAccept(order.getId(), collectorId)) {
+                byBuilding.computeIfAbsent(DormitoryUtil.building(order.getStudentDormitory()), k -> new ArrayList<>())
+                        .add(order);
+            }
+        }
+
+        Comparator<CollectOrderVO> byCreateTime = Comparator.comparing(CollectOrderVO::getCreateTime,
+                Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(CollectOrderVO::getId);
+        List<DormitoryClusterVO> clusters = new ArrayList<>(byBuilding.size());
+        byBuilding.forEach((building, buildingOrders) -> {
+            buildingOrders.sort(byCreateTime);
+            DormitoryClusterVO cluster = new DormitoryClusterVO();
+            cluster.setBuilding(building);
+            cluster.setOrderCount(buildingOrders.size());
+            cluster.setEarliestCreateTime(buildingOrders.get(0).getCreateTime());
+            cluster.setOrders(buildingOrders);
+            clusters.add(cluster);
+        });
+        clusters.sort(Comparator.comparing(DormitoryClusterVO::getOrderCount).reversed()
+                .thenComparing(DormitoryClusterVO::getEarliestCreateTime, Comparator.nullsLast(Comparator.naturalOrder())));
+        return clusters;
+    }
+
+    /**
+     * 收书员批量接单
+     * 一条条件更新接下全部订单，更新的行数少于请求的订单数说明有订单已被接走或取消，
+     * 此时回滚事务全部不接，收书员刷新分组后重新选择
+     * @param collectorId 收书员ID
+     * @param campus 收书员所在校区
+     * @param orderIds 订单ID
+     * @return 是否接单成功
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean acceptOrders(String collectorId, String campus, List<Integer> orderIds) {
+        Set<Integer> ids = new LinkedHashSet<>(orderIds);
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_ACCEPT) {
+            return false;
+        }
+        // 普通读不加锁，先排除已被接走的订单和正派给其他收书员的订单
+        List<CollectOrder> orders = collectOrderMapper.selectByIds(ids);
+        if (orders.size() != ids.size()) {
+            return false;
+        }
+        for (CollectOrder order : orders) {
+            if (order.getStatus() != 0 || !campus.equals(order.getCampus())
+                    || !orderDispatchService.canAccept(order.getId(), collectorId)) {
+                return false;
+            }
+        }
+
+        int claimed = collectOrderMapper.claimOrders(ids, campus, collectorId, LocalDateTime.now());
+        if (claimed != ids.size()) {
+            // 部分订单已被其他收书员接走，撤销本次更新
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        collectOrderMapper.markSealedBooksAccepted(ids);
+        orderViewMapper.refresh(ids);
+        collectorMapper.incrementOrderCount(collectorId, claimed);
+
+        for (CollectOrder order : orders) {
+            onClaimed(order, collectorId);
+        }
+        return true;
+    }
+
+    /**
+     * 接单成功后更新待接单队列、派单状态、超时任务和计数器，并推送接单事件
+     */
+    private void onClaimed(CollectOrder order, String collectorId) {
+        pendingOrderQueueService.remove(order.getCampus(), order.getId());
+        orderTimeoutService.cancel(OrderTimeoutService.PENDING, order.getId());
+        orderTimeoutService.schedule(OrderTimeoutService.ACCEPTED, order.getId());
+        order.setStatus(1);
+        order.setCollectorId(collectorId);
+        orderEventService.publish(OrderEventService.ORDER_ACCEPTED, order);
+        orderDispatchService.onAccepted(order.getId(), collectorId);
+        collectorStatService.recordAccepted(order);
+
+        listingCountService.adjustPendingOrders(order.getCampus(), -1);
+        listingCountService.adjustCollectorOrders(collectorId, 1);
+    }
+
+    /**
+     * 接单后超时未完成：退回待接单，重新进入队列和派单，并重新开始待接单计时
+     * 由超时任务在事务中调用，订单已完成或已被退回时什么都不做
+     */
+    private void releaseStaleOrder(Integer orderId) {
+        CollectOrder order = collectOrderMapper.selectById(orderId);
+        if (order == null || order.getStatus() != 1 || order.getCollectorId() == null) {
+            return;
+        }
+        String collectorId = order.getCollectorId();
+        if (collectOrderMapper.releaseOrder(orderId, collectorId) == 0) {
+            return;
+        }
+        orderViewMapper.refresh(List.of(orderId));
+        collectorMapper.incrementOrderCount(collectorId, -1);
+        log.info("订单{}接单后超时未完成，已从收书员{}退回", orderId, collectorId);
+
+        order.setStatus(0);
+        order.setCollectorId(null);
+        order.setAcceptTime(null);
+        pendingOrderQueueService.add(order, studentMapper.selectById(order.getStudentId()));
+        orderEventService.publish(OrderEventService.ORDER_RELEASED, order);
+        orderDispatchService.onReleased(collectorId);
+        collectorStatService.recordReleased(order, collectorId);
+        orderDispatchService.dispatch(order);
+        orderTimeoutService.schedule(OrderTimeoutService.PENDING, orderId);
+
+        listingCountService.adjustPendingOrders(order.getCampus(), 1);
+        listingCountService.adjustCollectorOrders(collectorId, -1);
+    }
+
+    /**
+     * 长时间无人接单：提醒校区的收书员和下单学生，开启自动派单时重新派发一轮
+     */
+    private void escalatePendingOrder(Integer orderId) {
+        CollectOrder order = collectOrderMapper.selectById(orderId);
+        if (order == null || order.getStatus() != 0) {
+            return;
+        }
+        log.info("订单{}长时间无人接单", orderId);
+        orderEventService.publish(OrderEventService.ORDER_ESCALATED, order);
+        // 没有正在等待接单的派单时才重新派发
+        if (orderDispatchService.canAccept(orderId, null)) {
+            orderDispatchService.dispatch(order);
+        }
     }
 
     /**
@@ -181,21 +455,40 @@ public class CollectorServiceImpl extends ServiceImpl<CollectorMapper, Collector
         if (order == null || order.getStatus() != 1) {
             return false;
         }
+        // 跑腿费比例按完成时校区生效的价格规则，下单时未记录每公斤价格的旧订单也按当前价格
+        PricingService.Quote quote = pricingService.getQuote(order.getCampus());
         if(actualPrice!=null)
             order.setPricePerKg(actualPrice);
-        // 计算金额
-        double totalAmount = actualWeight * order.getPricePerKg();
-        double commissionAmount = totalAmount * 0.2;
-        double studentAmount = totalAmount - commissionAmount;
+        else if (order.getPricePerKg() == null)
+            order.setPricePerKg(quote.pricePerKg().doubleValue());
+        // 按精确小数计算金额，总额和跑腿费四舍五入到分，学生所得为两者之差，保证两部分之和等于总额
+        BigDecimal totalAmount = BigDecimal.valueOf(actualWeight).multiply(BigDecimal.valueOf(order.getPricePerKg()))
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal commissionAmount = totalAmount.multiply(quote.commissionRate()).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal studentAmount = totalAmount.subtract(commissionAmount);
         
         // 更新订单信息
         order.setStatus(2); // 设置为已完成
         order.setFinishTime(LocalDateTime.now());
         order.setActualWeight(actualWeight);
-        order.setCommissionAmount(commissionAmount);
-        order.setStudentAmount(studentAmount);
+        order.setCommissionAmount(commissionAmount.doubleValue());
+        order.setStudentAmount(studentAmount.doubleValue());
         
-        return collectOrderMapper.updateById(order) > 0;
+        // 只更新仍处于已接单状态的订单，避免与超时退回同时发生时覆盖退回结果
+        if (collectOrderMapper.update(order, new LambdaUpdateWrapper<CollectOrder>()
+                .eq(CollectOrder::getId, orderId)
+                .eq(CollectOrder::getStatus, 1)
+                .eq(CollectOrder::getCollectorId, order.getCollectorId())) == 0) {
+            return false;
+        }
+        orderViewMapper.refresh(List.of(orderId));
+        settlementService.recordCompletion(order, studentAmount, commissionAmount);
+        orderTimeoutService.cancel(OrderTimeoutService.ACCEPTED, orderId);
+        // 通知学生预计到账金额
+        orderEventService.publish(OrderEventService.ORDER_COMPLETED, order);
+        orderDispatchService.onCompleted(order.getCollectorId());
+        collectorStatService.recordCompleted(order);
+        return true;
     }
 
     /**
@@ -204,18 +497,43 @@ public class CollectorServiceImpl extends ServiceImpl<CollectorMapper, Collector
      * @param collectorId 收书员ID
      * @param page        页码
      * @param size        每页大小
+     * @param fields      需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 订单分页列表
      */
     @Override
-    public PageResult<CollectOrderVO> getCollectorOrders(String collectorId, Integer page, Integer size) {
+    public PageResult<?> getCollectorOrders(String collectorId, Integer page, Integer size, String fields) {
+        FieldProjection<CollectOrderVO> projection = COLLECTOR_ORDER_FIELDS.project(fields);
         Page<CollectOrder> pageParam = new Page<>(page, size);
-        Page<CollectOrderVO> resultPage = collectOrderMapper.getOrderPageByCollector(pageParam, collectorId);
+        pageParam.setSearchCount(false);
+        Page<CollectOrderVO> resultPage = collectOrderMapper.getOrderPageByCollector(pageParam, collectorId,
+                FieldProjection.columns(projection));
         
-        return new PageResult<>(
+        return FieldProjection.apply(projection, new PageResult<>(
                 resultPage.getRecords(),
-                resultPage.getTotal(),
+                listingCountService.countCollectorOrders(collectorId),
                 resultPage.getSize(),
                 resultPage.getCurrent()
-        );
+        ));
+    }
+
+    /**
+     * 游标分页获取收书员已接订单列表
+     * 游标分页，查询代价与页数无关，总数由计数器提供
+     *
+     * @param collectorId 收书员ID
+     * @param cursor      上一页返回的游标，为空表示第一页
+     * @param size        每页大小
+     * @param fields      需要返回的属性，逗号分隔，为空时返回全部属性
+     * @return 订单分页列表
+     */
+    @Override
+    public PageResult<?> getCollectorOrdersByCursor(String collectorId, String cursor, Integer size, String fields) {
+        FieldProjection<CollectOrderVO> projection = COLLECTOR_ORDER_FIELDS.project(fields);
+        size = CursorUtil.clampSize(size);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        List<CollectOrderVO> rows = collectOrderMapper.getOrderByCollectorCursor(collectorId, position.createTime(), position.id(), size + 1,
+                FieldProjection.columns(projection));
+        return FieldProjection.apply(projection, CursorUtil.toPageResult(rows, size, listingCountService.countCollectorOrders(collectorId),
+                CollectOrderVO::getCreateTime, CollectOrderVO::getId));
     }
-}
\ No newline at end of file
+}
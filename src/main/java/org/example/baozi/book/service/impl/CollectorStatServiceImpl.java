@@ -0,0 +1,277 @@
+package org.example.baozi.book.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.entity.CollectorDailyStat;
+import org.example.baozi.book.mapper.CollectorDailyStatMapper;
+import org.example.baozi.book.service.CollectorStatService;
+import org.example.baozi.book.util.InvalidRequestException;
+import org.example.baozi.book.util.TransactionUtil;
+import org.example.baozi.book.vo.CollectorStatVO;
+import org.example.baozi.book.vo.DailyStatVO;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 收书员业绩统计服务实现类
+ * 每个 维度:日期:ID 对应一个Redis哈希，保存上次写入统计表之后的增量，被修改的哈希记录在索引集合中
+ * 写入时原子地取出并删除一批哈希，在统计表中累加；写入失败时把增量加回Redis，下次重试
+ * 查询时从统计表读取，再加上近两天尚未写入的增量
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CollectorStatServiceImpl implements CollectorStatService {
+
+    private static final String KEY_PREFIX = RedisServiceImpl.KEY_PREFIX_STAT + "collector:";
+    private static final String DIRTY_KEY = RedisServiceImpl.KEY_PREFIX_STAT + "collector-dirty";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String ACCEPTED = "accepted";
+    private static final String COMPLETED = "completed";
+    private static final String RELEASED = "released";
+    private static final String WEIGHT_GRAMS = "weightGrams";
+    private static final String COMMISSION_CENTS = "commissionCents";
+    private static final String FINISH_SECONDS = "finishSeconds";
+    private static final String FINISH_COUNT = "finishCount";
+
+    // 每次从Redis取出的哈希数
+    private static final int FLUSH_BATCH = 500;
+    // 查询时合并Redis中未写入增量的天数，按时写入时只有今天和昨天（跨零点）可能有未写入的增量
+    private static final int PENDING_DAYS = 2;
+
+    private final RedisServiceImpl redisService;
+    private final CollectorDailyStatMapper collectorDailyStatMapper;
+
+    @Override
+    public void recordAccepted(CollectOrder order) {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put(ACCEPTED, 1L);
+        record(order.getCollectorId(), order.getCampus(), deltas);
+    }
+
+    @Override
+    public void recordReleased(CollectOrder order, String collectorId) {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put(RELEASED, 1L);
+        record(collectorId, order.getCampus(), deltas);
+    }
+
+    @Override
+    public void recordCompleted(CollectOrder order) {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put(COMPLETED, 1L);
+        if (order.getActualWeight() != null) {
+            deltas.put(WEIGHT_GRAMS, Math.round(order.getActualWeight() * 1000));
+        }
+        if (order.getCommissionAmount() != null) {
+            deltas.put(COMMISSION_CENTS, BigDecimal.valueOf(order.getCommissionAmount()).movePointRight(2)
+                    .setScale(0, RoundingMode.HALF_UP).longValue());
+        }
+        if (order.getAcceptTime() != null && order.getFinishTime() != null) {
+            deltas.put(FINISH_SECONDS, Math.max(0, Duration.between(order.getAcceptTime(), order.getFinishTime()).getSeconds()));
+            deltas.put(FINISH_COUNT, 1L);
+        }
+        record(order.getCollectorId(), order.getCampus(), deltas);
+    }
+
+    /**
+     * 事务提交后在收书员和校区当天的哈希上累加，Redis不可用时丢弃本次计数
+     */
+    private void record(String collectorId, String campus, Map<String, Long> deltas) {
+        List<String> keys = new ArrayList<>(2);
+        String date = LocalDate.now().format(DATE_FORMAT);
+        if (collectorId != null) {
+            keys.add(key(CollectorDailyStat.SCOPE_COLLECTOR, date, collectorId));
+        }
+        if (campus != null) {
+            keys.add(key(CollectorDailyStat.SCOPE_CAMPUS, date, campus));
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.incrementHashes(DIRTY_KEY, keys, deltas);
+            } catch (Exception e) {
+                log.error("记录收书员业绩失败: {} {}", keys, deltas, e);
+            }
+        });
+    }
+
+    /**
+     * 把Redis中的增量累加到统计表
+     * 各节点可以同时执行，每个哈希只会被一个节点取出
+     */
+    @Override
+    @Scheduled(initialDelay = 60_000, fixedDelayString = "${book.collector-stat.flush-interval:60000}")
+    public void flush() {
+        Map<String, Map<String, Long>> drained;
+        do {
+            try {
+                drained = redisService.drainHashes(DIRTY_KEY, FLUSH_BATCH);
+            } catch (Exception e) {
+                log.error("读取收书员业绩增量失败", e);
+                return;
+            }
+            if (drained.isEmpty()) {
+                return;
+            }
+            List<CollectorDailyStat> stats = new ArrayList<>(drained.size());
+            drained.forEach((key, fields) -> {
+                CollectorDailyStat stat = parse(key, fields);
+                if (stat != null) {
+                    stats.add(stat);
+                }
+            });
+            try {
+                if (!stats.isEmpty()) {
+                    collectorDailyStatMapper.accumulate(stats);
+                }
+            } catch (Exception e) {
+                log.error("写入收书员业绩统计失败，增量已放回Redis", e);
+                restore(drained);
+                return;
+            }
+        } while (drained.size() == FLUSH_BATCH);
+    }
+
+    private void restore(Map<String, Map<String, Long>> drained) {
+        drained.forEach((key, fields) -> {
+            if (fields.isEmpty()) {
+                return;
+            }
+            try {
+                redisService.incrementHashes(DIRTY_KEY, List.of(key), fields);
+            } catch (Exception e) {
+                log.error("收书员业绩增量放回Redis失败，已丢失: {} {}", key, fields, e);
+            }
+        });
+    }
+
+    @Override
+    public CollectorStatVO getCollectorStats(String collectorId, LocalDate from, LocalDate to) {
+        return getStats(CollectorDailyStat.SCOPE_COLLECTOR, collectorId, from, to);
+    }
+
+    @Override
+    public CollectorStatVO getCampusStats(String campus, LocalDate from, LocalDate to) {
+        return getStats(CollectorDailyStat.SCOPE_CAMPUS, campus, from, to);
+    }
+
+    private CollectorStatVO getStats(String scope, String scopeId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new InvalidRequestException("日期范围不合法");
+        }
+        if (from.plusDays(MAX_DAYS).isBefore(to.plusDays(1))) {
+            throw new InvalidRequestException("一次最多查询" + MAX_DAYS + "天");
+        }
+
+        Map<LocalDate, CollectorDailyStat> byDate = new TreeMap<>();
+        for (CollectorDailyStat stat : collectorDailyStatMapper.selectRange(scope, scopeId, from, to)) {
+            byDate.put(stat.getStatDate(), stat);
+        }
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < PENDING_DAYS; i++) {
+            LocalDate date = today.minusDays(i);
+            if (date.isBefore(from) || date.isAfter(to)) {
+                continue;
+            }
+            Map<Object, Object> pending = redisService.getHashEntries(key(scope, date.format(DATE_FORMAT), scopeId));
+            if (pending != null && !pending.isEmpty()) {
+                CollectorDailyStat stat = byDate.computeIfAbsent(date, d -> empty(d, scope, scopeId));
+                pending.forEach((field, value) -> add(stat, String.valueOf(field), ((Number) value).longValue()));
+            }
+        }
+
+        CollectorDailyStat total = empty(null, scope, scopeId);
+        List<DailyStatVO> days = new ArrayList<>(byDate.size());
+        for (CollectorDailyStat stat : byDate.values()) {
+            days.add(toVO(stat));
+            total.setAcceptedCount(total.getAcceptedCount() + stat.getAcceptedCount());
+            total.setCompletedCount(total.getCompletedCount() + stat.getCompletedCount());
+            total.setReleasedCount(total.getReleasedCount() + stat.getReleasedCount());
+            total.setWeightGrams(total.getWeightGrams() + stat.getWeightGrams());
+            total.setCommissionCents(total.getCommissionCents() + stat.getCommissionCents());
+            total.setFinishSeconds(total.getFinishSeconds() + stat.getFinishSeconds());
+            total.setFinishCount(total.getFinishCount() + stat.getFinishCount());
+        }
+
+        CollectorStatVO result = new CollectorStatVO();
+        result.setFrom(from);
+        result.setTo(to);
+        result.setTotal(toVO(total));
+        result.setDays(days);
+        return result;
+    }
+
+    private static String key(String scope, String date, String scopeId) {
+        // ID放在最后，校区名中包含冒号时也能正确解析
+        return KEY_PREFIX + scope + ":" + date + ":" + scopeId;
+    }
+
+    private static CollectorDailyStat parse(String key, Map<String, Long> fields) {
+        String[] parts = key.substring(KEY_PREFIX.length()).split(":", 3);
+        if (parts.length != 3 || fields.isEmpty()) {
+            return null;
+        }
+        CollectorDailyStat stat = empty(LocalDate.parse(parts[1], DATE_FORMAT), parts[0], parts[2]);
+        fields.forEach((field, value) -> add(stat, field, value));
+        return stat;
+    }
+
+    private static CollectorDailyStat empty(LocalDate date, String scope, String scopeId) {
+        CollectorDailyStat stat = new CollectorDailyStat();
+        stat.setStatDate(date);
+        stat.setScope(scope);
+        stat.setScopeId(scopeId);
+        stat.setAcceptedCount(0L);
+        stat.setCompletedCount(0L);
+        stat.setReleasedCount(0L);
+        stat.setWeightGrams(0L);
+        stat.setCommissionCents(0L);
+        stat.setFinishSeconds(0L);
+        stat.setFinishCount(0L);
+        return stat;
+    }
+
+    private static void add(CollectorDailyStat stat, String field, long value) {
+        switch (field) {
+            case ACCEPTED -> stat.setAcceptedCount(stat.getAcceptedCount() + value);
+            case COMPLETED -> stat.setCompletedCount(stat.getCompletedCount() + value);
+            case RELEASED -> stat.setReleasedCount(stat.getReleasedCount() + value);
+            case WEIGHT_GRAMS -> stat.setWeightGrams(stat.getWeightGrams() + value);
+            case COMMISSION_CENTS -> stat.setCommissionCents(stat.getCommissionCents() + value);
+            case FINISH_SECONDS -> stat.setFinishSeconds(stat.getFinishSeconds() + value);
+            case FINISH_COUNT -> stat.setFinishCount(stat.getFinishCount() + value);
+            default -> log.warn("未知的收书员业绩字段: {}", field);
+        }
+    }
+
+    private static DailyStatVO toVO(CollectorDailyStat stat) {
+        DailyStatVO vo = new DailyStatVO();
+        vo.setDate(stat.getStatDate());
+        vo.setAcceptedCount(stat.getAcceptedCount());
+        vo.setCompletedCount(stat.getCompletedCount());
+        vo.setReleasedCount(stat.getReleasedCount());
+        vo.setTotalWeight(stat.getWeightGrams() / 1000.0);
+        vo.setCommissionAmount(BigDecimal.valueOf(stat.getCommissionCents(), 2));
+        if (stat.getFinishCount() > 0) {
+            vo.setAvgFinishMinutes(BigDecimal.valueOf(stat.getFinishSeconds())
+                    .divide(BigDecimal.valueOf(stat.getFinishCount() * 60), 1, RoundingMode.HALF_UP).doubleValue());
+        }
+        return vo;
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.baozi.book.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.service.BookService;
+import org.example.baozi.book.service.CoverCacheService;
+import org.example.baozi.book.util.OffHeapLruCache;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * 书籍封面热点缓存服务实现类
+ * 封面数据存放在堆外内存，按字节数限制容量，并根据访问频率决定是否接纳
+ * 移除缓存时通过Redis频道通知所有节点
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoverCacheServiceImpl implements CoverCacheService, MessageListener {
+
+    private static final String CHANNEL = RedisServiceImpl.KEY_PREFIX_BOOK + "cover-evict";
+
+    private final BookService bookService;
+    private final RedisServiceImpl redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // 缓存容量：共64MB，单张封面超过2MB不缓存
+    private static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final long MAX_COVER_BYTES = 2L * 1024 * 1024;
+    private static final int EXPECTED_COVERS = 2048;
+
+    private final OffHeapLruCache<Long> cache = new OffHeapLruCache<>(MAX_CACHE_BYTES, MAX_COVER_BYTES, EXPECTED_COVERS);
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 获取书籍封面，优先读取缓存，命中时直接返回堆外数据的只读视图
+     * @param bookId 书籍ID
+     * @return 封面图片数据，书籍不存在或没有封面时返回null
+     */
+    @Override
+    public ByteBuffer getCover(Long bookId) {
+        ByteBuffer cached = cache.get(bookId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 缓存未命中，从数据库查询
+        byte[] cover = bookService.getBookCover(bookId);
+        if (cover == null) {
+            return null;
+        }
+
+        if (cache.put(bookId, cover)) {
+            log.debug("封面已加入缓存: {}, 大小: {}", bookId, cover.length);
+        }
+        return ByteBuffer.wrap(cover).asReadOnlyBuffer();
+    }
+
+    /**
+     * 移除书籍封面缓存，事务提交后通知所有节点（包括本节点），Redis不可用时只移除本节点
+     * @param bookId 书籍ID
+     */
+    @Override
+    public void evict(Long bookId) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.publish(CHANNEL, bookId);
+            } catch (Exception e) {
+                cache.invalidate(bookId);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (redisService.deserializeMessage(message.getBody()) instanceof Number bookId) {
+            cache.invalidate(bookId.longValue());
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     * @return 命中率、容量使用等指标
+     */
+    @Override
+    public Map<String, Object> getStats() {
+        return cache.stats();
+    }
+}
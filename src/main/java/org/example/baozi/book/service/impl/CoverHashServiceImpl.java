@@ -0,0 +1,251 @@
+package org.example.baozi.book.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.Book;
+import org.example.baozi.book.mapper.BookMapper;
+import org.example.baozi.book.service.CoverHashService;
+import org.example.baozi.book.service.ReportService;
+import org.example.baozi.book.util.BkTree;
+import org.example.baozi.book.util.PerceptualHash;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 封面感知哈希服务实现类
+ * 使用BK树按汉明距离检索相似封面，启动时从数据库加载已有哈希，
+ * 并在后台为启用感知哈希之前上传的封面补算哈希；封面加入和书籍删除时通过Redis频道通知所有节点更新索引
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoverHashServiceImpl implements CoverHashService, MessageListener {
+
+    private static final String ADD_CHANNEL = RedisServiceImpl.KEY_PREFIX_BOOK + "cover-hash-add";
+    private static final String REMOVE_CHANNEL = RedisServiceImpl.KEY_PREFIX_BOOK + "cover-hash-remove";
+
+    private final BookMapper bookMapper;
+    private final ReportService reportService;
+    private final RedisServiceImpl redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // 汉明距离不超过该值视为相似图片（64位中）
+    private static final int MAX_DISTANCE = 6;
+    // 系统自动举报使用的举报者ID
+    private static final String SYSTEM_REPORTER = "SYSTEM";
+    // 补算哈希时每页的书籍数
+    private static final int BACKFILL_BATCH = 100;
+
+    private final BkTree<Owner> index = new BkTree<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 索引中保存的书籍和上传者
+     */
+    private record Owner(Long bookId, String ownerId) {
+    }
+
+    @PostConstruct
+    public void loadIndex() {
+        List<Book> books = bookMapper.selectCoverHashes();
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                index.add(book.getCoverHash(), new Owner(book.getId(), book.getOwnerId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("封面哈希索引加载完成，共 {} 条", books.size());
+        listenerContainer.addMessageListener(this, List.of(new ChannelTopic(ADD_CHANNEL), new ChannelTopic(REMOVE_CHANNEL)));
+
+        Thread backfill = new Thread(this::backfill, "cover-hash-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    /**
+     * 为启用感知哈希之前上传的封面补算哈希并加入索引
+     * 这些封面之间已存在的相似不再生成举报，之后上传的封面会与它们比对
+     * 写入哈希的节点通知所有节点加入索引，无法解析的图片跳过
+     */
+    private void backfill() {
+        int count = 0;
+        long afterId = 0;
+        try {
+            List<Book> books;
+            do {
+                books = bookMapper.selectUnhashedCovers(afterId, BACKFILL_BATCH);
+                for (Book book : books) {
+                    afterId = book.getId();
+                    byte[] cover = bookMapper.selectBookData(book.getId());
+                    Long coverHash = cover == null || cover.length == 0 ? null : PerceptualHash.dHash(cover);
+                    if (coverHash == null) {
+                        log.warn("书籍 {} 的封面无法解析，跳过补算哈希", book.getId());
+                        continue;
+                    }
+                    // 其他节点已经补算过时由该节点负责通知
+                    if (bookMapper.updateCoverHash(book.getId(), coverHash) > 0) {
+                        Owner owner = new Owner(book.getId(), book.getOwnerId());
+                        add(coverHash, owner);
+                        broadcastAdd(coverHash, owner);
+                        count++;
+                    }
+                }
+            } while (books.size() == BACKFILL_BATCH);
+        } catch (Exception e) {
+            log.error("补算封面哈希失败，已处理 {} 条", count, e);
+            return;
+        }
+        if (count > 0) {
+            log.info("补算封面哈希完成，共 {} 条", count);
+        }
+    }
+
+    /**
+     * 检查新上传的封面是否与其他学生的封面相似，并将其加入所有节点的索引
+     * 存在事务时在事务提交后执行，回滚的书籍不会留在索引中；
+     * 查找和加入在同一个写锁内完成，本节点同时提交的相同封面也能互相发现
+     * 发现相似封面时自动生成一条待审核的举报
+     * @param bookId 书籍ID
+     * @param ownerId 上传者学号
+     * @param coverHash 封面感知哈希
+     */
+    @Override
+    public void checkAndIndex(Long bookId, String ownerId, long coverHash) {
+        Owner owner = new Owner(bookId, ownerId);
+        TransactionUtil.afterCommit(() -> {
+            List<Long> similar;
+            lock.writeLock().lock();
+            try {
+                similar = similarTo(coverHash, ownerId);
+                index.add(coverHash, owner);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            broadcastAdd(coverHash, owner);
+
+            if (!similar.isEmpty()) {
+                try {
+                    String reason = "系统检测：封面图片与其他学生上传的书籍 " + similar + " 高度相似，疑似盗用图片";
+                    reportService.submitReport(SYSTEM_REPORTER, bookId, ownerId, reason, null);
+                    log.info("书籍 {} 的封面与 {} 相似，已生成待审核举报", bookId, similar);
+                } catch (Exception e) {
+                    log.error("书籍 {} 的相似封面举报生成失败", bookId, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 书籍删除后从所有节点的索引中移除其封面，Redis不可用时只移除本节点
+     * @param bookId 书籍ID
+     * @param ownerId 上传者学号
+     * @param coverHash 封面感知哈希
+     */
+    @Override
+    public void remove(Long bookId, String ownerId, long coverHash) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.publish(REMOVE_CHANNEL, message(coverHash, new Owner(bookId, ownerId)));
+            } catch (Exception e) {
+                removeLocal(coverHash, new Owner(bookId, ownerId));
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (redisService.deserializeMessage(message.getBody()) instanceof Map<?, ?> event
+                && event.get("bookId") instanceof Number bookId
+                && event.get("coverHash") instanceof Number coverHash) {
+            Owner owner = new Owner(bookId.longValue(), (String) event.get("ownerId"));
+            if (ADD_CHANNEL.equals(new String(message.getChannel(), StandardCharsets.UTF_8))) {
+                add(coverHash.longValue(), owner);
+            } else {
+                removeLocal(coverHash.longValue(), owner);
+            }
+        }
+    }
+
+    /**
+     * 通知其他节点加入封面，本节点已经加入，收到自己的消息时不会重复添加
+     */
+    private void broadcastAdd(long coverHash, Owner owner) {
+        try {
+            redisService.publish(ADD_CHANNEL, message(coverHash, owner));
+        } catch (Exception e) {
+            log.warn("封面哈希加入通知发送失败: {}", owner.bookId(), e);
+        }
+    }
+
+    private static Map<String, Object> message(long coverHash, Owner owner) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("bookId", owner.bookId());
+        message.put("ownerId", owner.ownerId());
+        message.put("coverHash", coverHash);
+        return message;
+    }
+
+    private void removeLocal(long coverHash, Owner owner) {
+        lock.writeLock().lock();
+        try {
+            index.remove(coverHash, owner);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(long coverHash, Owner owner) {
+        lock.writeLock().lock();
+        try {
+            index.add(coverHash, owner);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找与给定哈希相似、且属于其他学生的封面
+     * @param coverHash 封面感知哈希
+     * @param ownerId 上传者学号
+     * @return 相似封面所属的书籍ID列表，按相似程度排序
+     */
+    @Override
+    public List<Long> findSimilar(long coverHash, String ownerId) {
+        lock.readLock().lock();
+        try {
+            return similarTo(coverHash, ownerId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 调用方持有锁
+     */
+    private List<Long> similarTo(long coverHash, String ownerId) {
+        // 同一学生重复上传自己的图片不算盗用
+        List<Long> bookIds = new ArrayList<>();
+        for (BkTree.Match<Owner> match : index.search(coverHash, MAX_DISTANCE)) {
+            if (!Objects.equals(match.value().ownerId(), ownerId)) {
+                bookIds.add(match.value().bookId());
+            }
+        }
+        return bookIds;
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.baozi.book.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.entity.Report;
+import org.example.baozi.book.mapper.CollectOrderMapper;
+import org.example.baozi.book.mapper.RecyclableBookMapper;
+import org.example.baozi.book.mapper.ReportMapper;
+import org.example.baozi.book.service.ListingCountService;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 列表总数计数服务实现类
+ * 计数器存放在Redis中，首次使用时从数据库统计并写入；
+ * 写入后只在计数器已存在时递增，避免在未初始化的计数器上累加出错误的值
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListingCountServiceImpl implements ListingCountService {
+
+    private final RedisServiceImpl redisService;
+    private final RecyclableBookMapper recyclableBookMapper;
+    private final CollectOrderMapper collectOrderMapper;
+    private final ReportMapper reportMapper;
+
+    private static final String RECYCLABLE_KEY = RedisServiceImpl.KEY_PREFIX_COUNT + "recyclable";
+    private static final String PENDING_ORDER_KEY = RedisServiceImpl.KEY_PREFIX_COUNT + "order:pending:";
+    private static final String COLLECTOR_ORDER_KEY = RedisServiceImpl.KEY_PREFIX_COUNT + "order:collector:";
+    private static final String REPORT_KEY = RedisServiceImpl.KEY_PREFIX_COUNT + "report:";
+    private static final String REPORT_ALL = "all";
+
+    // 订单状态：待接单
+    private static final int ORDER_STATUS_PENDING = 0;
+
+    /**
+     * 本实例使用过的计数器及其统计方法，定期核对时使用
+     */
+    private final Map<String, Supplier<Long>> loaders = new ConcurrentHashMap<>();
+
+    @Override
+    public long countRecyclableBooks() {
+        return get(RECYCLABLE_KEY, () -> recyclableBookMapper.selectCount(null));
+    }
+
+    @Override
+    public void adjustRecyclableBooks(long delta) {
+        adjust(RECYCLABLE_KEY, delta);
+    }
+
+    @Override
+    public long countPendingOrders(String campus) {
+        return get(PENDING_ORDER_KEY + campus, () -> collectOrderMapper.selectCount(new LambdaQueryWrapper<CollectOrder>()
+                .eq(CollectOrder::getCampus, campus)
+                .eq(CollectOrder::getStatus, ORDER_STATUS_PENDING)));
+    }
+
+    @Override
+    public void adjustPendingOrders(String campus, long delta) {
+        adjust(PENDING_ORDER_KEY + campus, delta);
+    }
+
+    @Override
+    public long countCollectorOrders(String collectorId) {
+        return get(COLLECTOR_ORDER_KEY + collectorId, () -> collectOrderMapper.selectCount(new LambdaQueryWrapper<CollectOrder>()
+                .eq(CollectOrder::getCollectorId, collectorId)));
+    }
+
+    @Override
+    public void adjustCollectorOrders(String collectorId, long delta) {
+        adjust(COLLECTOR_ORDER_KEY + collectorId, delta);
+    }
+
+    @Override
+    public long countReports(Integer status) {
+        String key = REPORT_KEY + (status == null ? REPORT_ALL : status);
+        return get(key, () -> reportMapper.selectCount(new LambdaQueryWrapper<Report>()
+                .eq(status != null, Report::getStatus, status)));
+    }
+
+    @Override
+    public void moveReport(Integer fromStatus, Integer toStatus) {
+        if (fromStatus == null) {
+            adjust(REPORT_KEY + REPORT_ALL, 1);
+        } else {
+            adjust(REPORT_KEY + fromStatus, -1);
+        }
+        adjust(REPORT_KEY + toStatus, 1);
+    }
+
+    /**
+     * 用数据库中的实际数量校正所有计数器
+     * 并发写入可能使计数器与数据库出现少量偏差，由这里定期修正
+     */
+    @Override
+    @Scheduled(initialDelayString = "${book.count.reconcile-interval:600000}",
+            fixedDelayString = "${book.count.reconcile-interval:600000}")
+    public void reconcile() {
+        loaders.forEach((key, loader) -> {
+            try {
+                long actual = loader.get();
+                Object cached = redisService.getValue(key);
+                if (!(cached instanceof Number) || ((Number) cached).longValue() != actual) {
+                    log.info("列表计数校正: {} {} -> {}", key, cached, actual);
+                    redisService.setValue(key, (int) actual);
+                }
+            } catch (Exception e) {
+                log.error("列表计数校正失败: {}", key, e);
+            }
+        });
+    }
+
+    private long get(String key, Supplier<Long> loader) {
+        loaders.putIfAbsent(key, loader);
+        try {
+            Object cached = redisService.getValue(key);
+            if (cached instanceof Number) {
+                return ((Number) cached).longValue();
+            }
+            long count = loader.get();
+            // 使用Integer保存，保证Redis中是纯数字，可以直接INCRBY
+            redisService.setIfAbsent(key, (int) count);
+            return count;
+        } catch (Exception e) {
+            log.error("读取列表计数失败，改为直接统计: {}", key, e);
+            return loader.get();
+        }
+    }
+
+    private void adjust(String key, long delta) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                if (redisService.hasKey(key)) {
+                    redisService.increment(key, delta);
+                }
+            } catch (Exception e) {
+                // 等待定期核对修正
+                log.error("更新列表计数失败: {}", key, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.baozi.book.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.service.ListingResponseCacheService;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 列表响应缓存服务实现类
+ * 响应字节缓存在本机内存中，缓存键带上Redis中的版本号；
+ * 数据变化时递增版本号，所有实例上的旧缓存随即失效，不需要逐个删除
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListingResponseCacheServiceImpl implements ListingResponseCacheService {
+
+    private final RedisServiceImpl redisService;
+    private final ObjectMapper objectMapper;
+
+    private static final String VERSION_KEY = RedisServiceImpl.KEY_PREFIX_BOOK + "recyclable:listing:version";
+    // 本机最多缓存的响应数量
+    private static final int MAX_ENTRIES = 256;
+
+    private final Map<String, CachedResponse> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * 获取缓存的响应，未命中时调用loader生成并缓存
+     * @param key 缓存键，由请求参数组成
+     * @param loader 生成响应对象
+     * @return 缓存的响应，缓存不可用时返回null
+     */
+    @Override
+    public CachedResponse get(String key, Supplier<?> loader) {
+        Object version;
+        try {
+            version = redisService.getValue(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("读取列表缓存版本失败，不使用缓存", e);
+            return null;
+        }
+        String versionedKey = (version == null ? 0 : version) + ":" + key;
+
+        synchronized (cache) {
+            CachedResponse cached = cache.get(versionedKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // 序列化和压缩放在锁外，并发未命中时可能重复生成，结果相同
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(loader.get());
+            String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            CachedResponse response = new CachedResponse(body, gzip(body), etag);
+            synchronized (cache) {
+                cache.put(versionedKey, response);
+            }
+            return response;
+        } catch (IOException e) {
+            log.error("列表响应序列化失败: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 可回收书籍发生变化时使所有缓存失效，存在事务时在事务提交后生效
+     */
+    @Override
+    public void invalidate() {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.increment(VERSION_KEY, 1);
+            } catch (Exception e) {
+                log.error("更新列表缓存版本失败", e);
+            }
+            // 本机旧版本的缓存不会再被访问，直接清空释放内存
+            synchronized (cache) {
+                cache.clear();
+            }
+        });
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.baozi.book.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import lombok.RequiredArgsConstructor;
+import org.example.baozi.book.entity.Notification;
+import org.example.baozi.book.mapper.NotificationMapper;
+import org.example.baozi.book.response.PageResult;
+import org.example.baozi.book.service.NotificationService;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 站内通知服务实现类
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Notification> implements NotificationService {
+
+    /**
+     * 批量发送通知
+     * @param notifications 通知列表
+     */
+    @Override
+    public void send(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        notifications.forEach(notification -> notification.setIsRead(false));
+        saveBatch(notifications);
+    }
+
+    /**
+     * 分页获取用户的通知，未读的在前
+     * @param userId 用户ID
+     * @param page 页码
+     * @param size 每页大小
+     * @return 通知分页列表
+     */
+    @Override
+    public PageResult<Notification> getNotifications(String userId, Integer page, Integer size) {
+        Page<Notification> result = page(new Page<>(page, size), new LambdaQueryWrapper<Notification>()
+                .eq(Notification::getUserId, userId)
+                .orderByAsc(Notification::getIsRead)
+                .orderByDesc(Notification::getId));
+        return new PageResult<>(result.getRecords(), result.getTotal(), result.getSize(), result.getCurrent());
+    }
+
+    /**
+     * 将通知标记为已读
+     * @param userId 用户ID
+     * @param id 通知ID
+     * @return 是否成功
+     */
+    @Override
+    public boolean markRead(String userId, Integer id) {
+        return update(new LambdaUpdateWrapper<Notification>()
+                .eq(Notification::getId, id)
+                .eq(Notification::getUserId, userId)
+                .set(Notification::getIsRead, true));
+    }
+}
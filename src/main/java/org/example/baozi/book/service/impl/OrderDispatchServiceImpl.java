@@ -0,0 +1,354 @@
+package org.example.baozi.book.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.entity.Collector;
+import org.example.baozi.book.mapper.CollectOrderMapper;
+import org.example.baozi.book.service.OrderDispatchService;
+import org.example.baozi.book.service.OrderEventService;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自动派单服务实现类
+ * 每个校区在内存中维护一个按负载排序的在线收书员队列（TreeSet，增删和取队首都是O(log n)）：
+ * 未完成订单（含正在派给他的订单）少的优先，其次是近两小时完成多的，再其次是最久没被派单的
+ * 在线收书员队列和派单记录保存在本节点内存中，重启后收书员需要重新上线；
+ * 订单只会派给在创建订单的节点上线的收书员，开启自动派单时应只部署一个节点，或让收书员和下单请求落在同一节点
+ * 当前派给谁另外记录在Redis中（与接单标记相同），任一节点接单时都会检查，派单的独占在多节点下也成立
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderDispatchServiceImpl implements OrderDispatchService {
+
+    private final CollectOrderMapper collectOrderMapper;
+    private final OrderEventService orderEventService;
+    private final RedisServiceImpl redisService;
+
+    private static final String OFFER_PREFIX = RedisServiceImpl.KEY_PREFIX_ORDER + "offer:";
+
+    @Value("${book.dispatch.auto-assign:false}")
+    private boolean enabled;
+
+    @Value("${book.dispatch.offer-timeout:120000}")
+    private long offerTimeout;
+
+    @Value("${book.dispatch.max-attempts:3}")
+    private int maxAttempts;
+
+    private static final Comparator<CollectorLoad> LOAD_ORDER = Comparator
+            .comparingInt((CollectorLoad c) -> c.openLoad)
+            .thenComparing(Comparator.comparingInt(CollectorLoad::throughput).reversed())
+            .thenComparingLong(c -> c.lastAssigned)
+            .thenComparing(c -> c.collectorId);
+
+    /**
+     * 收书员负载，字段只在所属校区队列的锁内修改
+     */
+    private static final class CollectorLoad {
+        private final String collectorId;
+        private final String campus;
+        // 已接未完成的订单数加上正在派给他的订单数
+        private int openLoad;
+        // 当前小时和上一小时完成的订单数
+        private int currentCompleted;
+        private int previousCompleted;
+        private long lastAssigned;
+        private boolean online;
+
+        CollectorLoad(String collectorId, String campus) {
+            this.collectorId = collectorId;
+            this.campus = campus;
+        }
+
+        int throughput() {
+            return currentCompleted + previousCompleted;
+        }
+    }
+
+    /**
+     * 校区的在线收书员队列
+     */
+    private static final class CampusQueue {
+        private final TreeSet<CollectorLoad> queue = new TreeSet<>(LOAD_ORDER);
+        // 校区内全部收书员，包括已下线的，每小时滚动近期完成数时使用
+        private final Set<CollectorLoad> loads = new HashSet<>();
+
+        synchronized void register(CollectorLoad load) {
+            loads.add(load);
+        }
+
+        synchronized void join(CollectorLoad load, int openLoad, int completed) {
+            queue.remove(load);
+            load.openLoad = openLoad;
+            load.currentCompleted = completed;
+            load.previousCompleted = 0;
+            load.online = true;
+            queue.add(load);
+        }
+
+        synchronized void leave(CollectorLoad load) {
+            queue.remove(load);
+            load.online = false;
+        }
+
+        /**
+         * 修改负载后重新排序，排序字段变化前必须先移出队列
+         */
+        synchronized void adjust(CollectorLoad load, int openDelta, int completedDelta) {
+            boolean queued = queue.remove(load);
+            load.openLoad = Math.max(0, load.openLoad + openDelta);
+            load.currentCompleted += completedDelta;
+            if (queued) {
+                queue.add(load);
+            }
+        }
+
+        /**
+         * 取负载最低、本单还没派过的收书员，并把订单计入他的负载
+         */
+        synchronized CollectorLoad reserve(Set<String> excluded) {
+            for (CollectorLoad load : queue) {
+                if (!excluded.contains(load.collectorId)) {
+                    queue.remove(load);
+                    load.openLoad++;
+                    load.lastAssigned = System.currentTimeMillis();
+                    queue.add(load);
+                    return load;
+                }
+            }
+            return null;
+        }
+
+        synchronized void rollHour() {
+            queue.clear();
+            for (CollectorLoad load : loads) {
+                load.previousCompleted = load.currentCompleted;
+                load.currentCompleted = 0;
+                if (load.online) {
+                    queue.add(load);
+                }
+            }
+        }
+    }
+
+    /**
+     * 派单记录，不可变，状态变化时整体替换
+     * @param order 订单
+     * @param collectorId 当前派给的收书员
+     * @param expiresAt 过期时间
+     * @param tried 已经派过的收书员
+     */
+    private record Offer(CollectOrder order, String collectorId, long expiresAt, Set<String> tried) {
+    }
+
+    private final Map<String, CampusQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, CollectorLoad> loads = new ConcurrentHashMap<>();
+    private final Map<Integer, Offer> offers = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 收书员上线
+     * 负载从数据库统计：已接未完成的订单数，以及最近一小时完成的订单数
+     * @param collector 收书员
+     */
+    @Override
+    public void goOnline(Collector collector) {
+        int open = Math.toIntExact(collectOrderMapper.selectCount(new LambdaQueryWrapper<CollectOrder>()
+                .eq(CollectOrder::getCollectorId, collector.getCollectorId())
+                .eq(CollectOrder::getStatus, 1)));
+        int completed = Math.toIntExact(collectOrderMapper.selectCount(new LambdaQueryWrapper<CollectOrder>()
+                .eq(CollectOrder::getCollectorId, collector.getCollectorId())
+                .eq(CollectOrder::getStatus, 2)
+                .ge(CollectOrder::getFinishTime, LocalDateTime.now().minusHours(1))));
+        // 正在派给他的订单也计入负载
+        for (Offer offer : offers.values()) {
+            if (offer.collectorId().equals(collector.getCollectorId())) {
+                open++;
+            }
+        }
+
+        CampusQueue queue = queues.computeIfAbsent(collector.getCampus(), k -> new CampusQueue());
+        CollectorLoad load = loads.computeIfAbsent(collector.getCollectorId(),
+                k -> new CollectorLoad(collector.getCollectorId(), collector.getCampus()));
+        queue.register(load);
+        queue.join(load, open, completed);
+    }
+
+    @Override
+    public void goOffline(String collectorId) {
+        CollectorLoad load = loads.get(collectorId);
+        if (load != null) {
+            queues.get(load.campus).leave(load);
+        }
+    }
+
+    /**
+     * 派发新订单
+     * @param order 订单
+     */
+    @Override
+    public void dispatch(CollectOrder order) {
+        if (!enabled) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> offerNext(order, Set.of()));
+    }
+
+    /**
+     * 本节点没有派单记录时查询Redis，订单可能是其他节点派出的
+     * Redis不可用时不限制
+     */
+    @Override
+    public boolean canAccept(Integer orderId, String collectorId) {
+        Offer offer = offers.get(orderId);
+        if (offer != null) {
+            return offer.collectorId().equals(collectorId);
+        }
+        try {
+            Object offered = redisService.getValue(OFFER_PREFIX + orderId);
+            return offered == null || offered.equals(collectorId);
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    @Override
+    public boolean decline(Integer orderId, String collectorId) {
+        Offer offer = offers.get(orderId);
+        if (offer == null || !offer.collectorId().equals(collectorId) || !offers.remove(orderId, offer)) {
+            return false;
+        }
+        adjustLoad(collectorId, -1, 0);
+        offerNext(offer.order(), offer.tried());
+        return true;
+    }
+
+    /**
+     * 订单已被接单
+     * 派单时已经计入了被派收书员的负载，由其他人接单时（如派单刚好超时）转移到接单人
+     * @param orderId 订单ID
+     * @param collectorId 接单的收书员ID
+     */
+    @Override
+    public void onAccepted(Integer orderId, String collectorId) {
+        TransactionUtil.afterCommit(() -> {
+            Offer offer = offers.remove(orderId);
+            if (offer != null) {
+                clearOffer(orderId);
+            }
+            if (offer != null && offer.collectorId().equals(collectorId)) {
+                return;
+            }
+            if (offer != null) {
+                adjustLoad(offer.collectorId(), -1, 0);
+            }
+            adjustLoad(collectorId, 1, 0);
+        });
+    }
+
+    @Override
+    public void onCompleted(String collectorId) {
+        TransactionUtil.afterCommit(() -> adjustLoad(collectorId, -1, 1));
+    }
+
+    @Override
+    public void onReleased(String collectorId) {
+        TransactionUtil.afterCommit(() -> adjustLoad(collectorId, -1, 0));
+    }
+
+    /**
+     * 处理超时的派单，派给下一位收书员
+     */
+    @Scheduled(fixedDelayString = "${book.dispatch.sweep-interval:1000}")
+    public void expireOffers() {
+        if (offers.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Offer offer : offers.values()) {
+            // remove成功才处理，避免与接单、拒绝同时处理同一条派单
+            if (offer.expiresAt() <= now && offers.remove(offer.order().getId(), offer)) {
+                adjustLoad(offer.collectorId(), -1, 0);
+                offerNext(offer.order(), offer.tried());
+            }
+        }
+    }
+
+    /**
+     * 每小时滚动近期完成数
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void rollThroughput() {
+        for (CampusQueue queue : queues.values()) {
+            queue.rollHour();
+        }
+    }
+
+    /**
+     * 派给负载最低、还没派过的收书员，次数用完或没有可派的收书员时退回订单列表
+     */
+    private void offerNext(CollectOrder order, Set<String> tried) {
+        CampusQueue queue = queues.get(order.getCampus());
+        CollectorLoad load = queue == null || tried.size() >= maxAttempts ? null : queue.reserve(tried);
+        if (load == null) {
+            if (!tried.isEmpty()) {
+                clearOffer(order.getId());
+            }
+            return;
+        }
+
+        Set<String> nextTried = new HashSet<>(tried);
+        nextTried.add(load.collectorId);
+        offers.put(order.getId(), new Offer(order, load.collectorId,
+                System.currentTimeMillis() + offerTimeout, Set.copyOf(nextTried)));
+        try {
+            redisService.setValueWithExpire(OFFER_PREFIX + order.getId(), load.collectorId, offerTimeout, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("派单记录写入Redis失败，其他节点不限制接单: {}", order.getId(), e);
+        }
+
+        CollectOrder event = new CollectOrder();
+        event.setId(order.getId());
+        event.setCampus(order.getCampus());
+        event.setStudentId(order.getStudentId());
+        event.setSealedBookId(order.getSealedBookId());
+        event.setStatus(0);
+        event.setCollectorId(load.collectorId);
+        orderEventService.publish(OrderEventService.ORDER_OFFERED, event);
+    }
+
+    private void clearOffer(Integer orderId) {
+        try {
+            redisService.deleteValue(OFFER_PREFIX + orderId);
+        } catch (Exception e) {
+            // 记录会随派单超时自动过期
+            log.warn("派单记录删除失败: {}", orderId, e);
+        }
+    }
+
+    private void adjustLoad(String collectorId, int openDelta, int completedDelta) {
+        CollectorLoad load = loads.get(collectorId);
+        if (load != null) {
+            queues.get(load.campus).adjust(load, openDelta, completedDelta);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.baozi.book.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.service.OrderEventService;
+import org.example.baozi.book.util.SseHub;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 订单事件推送服务实现类
+ * 事件先发布到Redis频道，每个节点收到后推送给本节点上的订阅者，
+ * 因此收书员和学生连接到任意节点都能收到事件
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventServiceImpl implements OrderEventService, MessageListener {
+
+    private static final String CHANNEL = RedisServiceImpl.KEY_PREFIX_ORDER + "events";
+    private static final String TOPIC_CAMPUS = "campus:";
+    private static final String TOPIC_STUDENT = "student:";
+
+    private final RedisServiceImpl redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService sseExecutor;
+
+    @Value("${book.sse.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${book.sse.timeout:1800000}")
+    private long timeout;
+
+    private SseHub hub;
+
+    @PostConstruct
+    public void init() {
+        hub = new SseHub(sseExecutor, bufferSize, timeout);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @Override
+    public SseEmitter subscribeCampus(String campus) {
+        return hub.subscribe(TOPIC_CAMPUS + campus);
+    }
+
+    @Override
+    public SseEmitter subscribeStudent(String studentId) {
+        return hub.subscribe(TOPIC_STUDENT + studentId);
+    }
+
+    /**
+     * 发布订单事件
+     * Redis不可用时只推送给本节点的订阅者
+     * @param type 事件类型
+     * @param order 订单
+     */
+    @Override
+    public void publish(String type, CollectOrder order) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", type);
+        event.put("orderId", order.getId());
+        event.put("campus", order.getCampus());
+        event.put("studentId", order.getStudentId());
+        event.put("sealedBookId", order.getSealedBookId());
+        event.put("collectorId", order.getCollectorId());
+        event.put("status", order.getStatus());
+        event.put("actualWeight", order.getActualWeight());
+        event.put("studentAmount", order.getStudentAmount());
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.publish(CHANNEL, event);
+            } catch (Exception e) {
+                dispatch(event);
+            }
+        });
+    }
+
+    /**
+     * 收到Redis频道中的事件
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            if (redisService.deserializeMessage(message.getBody()) instanceof Map<?, ?> event) {
+                dispatch(event);
+            }
+        } catch (Exception e) {
+            log.warn("订单事件处理失败", e);
+        }
+    }
+
+    /**
+     * 推送给本节点的订阅者
+     * 新订单、派单和接单事件推送给校区的收书员（派单事件中的collectorId为被派的收书员，接单后其他收书员从列表中移除该订单），
+     * 接单和完成事件推送给下单的学生，超时退回和无人接单提醒同时推送给两者
+     */
+    private void dispatch(Map<?, ?> event) {
+        String type = String.valueOf(event.get("type"));
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.warn("订单事件序列化失败: {}", event, e);
+            return;
+        }
+        SseHub.Event sseEvent = new SseHub.Event(type + ":" + event.get("orderId"), type, json);
+
+        if (ORDER_CREATED.equals(type) || ORDER_OFFERED.equals(type) || ORDER_ACCEPTED.equals(type)
+                || ORDER_RELEASED.equals(type) || ORDER_ESCALATED.equals(type)) {
+            hub.publish(TOPIC_CAMPUS + event.get("campus"), sseEvent);
+        }
+        if (ORDER_ACCEPTED.equals(type) || ORDER_COMPLETED.equals(type)
+                || ORDER_RELEASED.equals(type) || ORDER_ESCALATED.equals(type)) {
+            hub.publish(TOPIC_STUDENT + event.get("studentId"), sseEvent);
+        }
+    }
+
+    /**
+     * 定时发送心跳，防止代理服务器关闭空闲连接
+     */
+    @Scheduled(fixedDelayString = "${book.sse.heartbeat-interval:20000}")
+    public void heartbeat() {
+        hub.heartbeat();
+    }
+}
@@ -0,0 +1,292 @@
+package org.example.baozi.book.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.mapper.CollectOrderMapper;
+import org.example.baozi.book.service.OrderTimeoutService;
+import org.example.baozi.book.util.HierarchicalTimingWheel;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 订单超时服务实现类
+ * 超时任务保存在Redis有序集合中（成员为 类型:订单ID，分数为到期时间），登记和取消时通过Redis频道通知各节点
+ * 各节点竞争Redis锁，持有锁的节点把有序集合加载到内存时间轮中并负责触发，
+ * 每个任务的登记、取消和触发都是O(1)，不需要定时扫描订单表
+ * 持有锁的节点宕机后锁自动过期，其他节点接手时重新从Redis加载
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderTimeoutServiceImpl implements OrderTimeoutService, MessageListener {
+
+    private static final String TIMEOUT_KEY = RedisServiceImpl.KEY_PREFIX_ORDER + "timeouts";
+    private static final String CHANNEL = RedisServiceImpl.KEY_PREFIX_ORDER + "timeout-events";
+    private static final String LEADER_KEY = RedisServiceImpl.KEY_PREFIX_LOCK + "order-timeout";
+    // 首次启用时已为存量订单登记过超时任务的标记
+    private static final String BACKFILLED_KEY = RedisServiceImpl.KEY_PREFIX_ORDER + "timeouts-backfilled";
+
+    private static final long LEADER_SECONDS = 30;
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 3;
+    // 处理失败的任务重试的间隔（毫秒）
+    private static final long RETRY_DELAY = 60_000;
+
+    private final RedisServiceImpl redisService;
+    private final CollectOrderMapper collectOrderMapper;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${book.order-timeout.pending:7200000}")
+    private long pendingTimeout;
+
+    @Value("${book.order-timeout.accepted:86400000}")
+    private long acceptedTimeout;
+
+    @Value("${book.order-timeout.tick:1000}")
+    private long tickMillis;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<Integer>> handlers = new ConcurrentHashMap<>();
+
+    // 只有持有锁的节点有时间轮，其余节点为null
+    private volatile HierarchicalTimingWheel<String> wheel;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (wheel != null) {
+            wheel = null;
+            try {
+                redisService.unlock(LEADER_KEY, instanceId);
+            } catch (Exception e) {
+                log.warn("释放订单超时调度锁失败", e);
+            }
+        }
+    }
+
+    @Override
+    public void registerHandler(String type, Consumer<Integer> handler) {
+        handlers.put(type, handler);
+    }
+
+    @Override
+    public void schedule(String type, Integer orderId) {
+        long deadline = System.currentTimeMillis() + timeoutOf(type);
+        String member = member(type, orderId);
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.addToZSet(TIMEOUT_KEY, member, deadline);
+                redisService.publish(CHANNEL, message(member, deadline));
+            } catch (Exception e) {
+                log.warn("登记订单超时任务失败: {}", member, e);
+            }
+        });
+    }
+
+    @Override
+    public void cancel(String type, Integer orderId) {
+        String member = member(type, orderId);
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.removeFromZSet(TIMEOUT_KEY, member);
+                redisService.publish(CHANNEL, message(member, null));
+            } catch (Exception e) {
+                log.warn("取消订单超时任务失败: {}", member, e);
+            }
+        });
+    }
+
+    /**
+     * 收到其他节点（包括本节点）登记或取消的超时任务，只有持有锁的节点需要处理
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        HierarchicalTimingWheel<String> current = wheel;
+        if (current == null) {
+            return;
+        }
+        try {
+            if (redisService.deserializeMessage(message.getBody()) instanceof Map<?, ?> event) {
+                String member = String.valueOf(event.get("member"));
+                if (event.get("deadline") instanceof Number deadline) {
+                    current.schedule(member, deadline.longValue(), member);
+                } else {
+                    current.cancel(member);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("订单超时消息处理失败", e);
+        }
+    }
+
+    /**
+     * 竞争或续期调度锁
+     * 续期失败说明锁已过期被其他节点拿到，丢弃本地时间轮
+     */
+    @Scheduled(initialDelay = 5_000, fixedDelayString = "${book.order-timeout.election-interval:10000}")
+    public void elect() {
+        try {
+            if (wheel != null) {
+                if (!redisService.renewLock(LEADER_KEY, instanceId, LEADER_SECONDS, TimeUnit.SECONDS)) {
+                    log.info("订单超时调度锁已失去");
+                    wheel = null;
+                }
+            } else if (redisService.tryLock(LEADER_KEY, instanceId, LEADER_SECONDS, TimeUnit.SECONDS)) {
+                // 先启用时间轮再读取有序集合，加载期间收到的登记和取消消息直接进入时间轮，不会丢失；
+                // 读取到的旧快照覆盖了新消息也没有关系，触发前会以Redis中的到期时间为准
+                HierarchicalTimingWheel<String> created = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE,
+                        WHEEL_LEVELS, System.currentTimeMillis());
+                wheel = created;
+                load(created);
+                log.info("订单超时调度锁已获得，加载超时任务{}个", created.size());
+            }
+        } catch (Exception e) {
+            // Redis不可用时不能确认仍持有锁，停止触发，避免与其他节点重复处理
+            log.warn("订单超时调度锁操作失败", e);
+            wheel = null;
+        }
+    }
+
+    /**
+     * 推进时间轮，触发到期的任务
+     * 以Redis中的到期时间为准：已被取消的任务跳过，到期时间推后的任务重新放入时间轮；
+     * 触发前按到期时间比较并删除，删除成功才触发，期间被重新登记的任务不会被误删
+     */
+    @Scheduled(fixedDelayString = "${book.order-timeout.tick:1000}")
+    public void tick() {
+        HierarchicalTimingWheel<String> current = wheel;
+        if (current == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (HierarchicalTimingWheel.Timeout<String> timeout : current.advance(now)) {
+            String member = timeout.payload();
+            try {
+                Double deadline = redisService.getZSetScore(TIMEOUT_KEY, member);
+                if (deadline == null) {
+                    continue;
+                }
+                if (deadline > now) {
+                    current.schedule(member, deadline.longValue(), member);
+                    continue;
+                }
+                if (!redisService.removeFromZSetIfScore(TIMEOUT_KEY, member, deadline.longValue())) {
+                    continue;
+                }
+            } catch (Exception e) {
+                log.error("订单超时任务读取失败，稍后重试: {}", member, e);
+                current.schedule(member, now + RETRY_DELAY, member);
+                continue;
+            }
+            try {
+                fire(member);
+            } catch (Exception e) {
+                log.error("订单超时任务处理失败，稍后重试: {}", member, e);
+                retry(current, member, now + RETRY_DELAY);
+            }
+        }
+    }
+
+    /**
+     * 重新登记处理失败的任务，已被重新登记的不覆盖
+     */
+    private void retry(HierarchicalTimingWheel<String> current, String member, long deadline) {
+        try {
+            if (redisService.addToZSetIfAbsent(TIMEOUT_KEY, member, deadline)) {
+                current.schedule(member, deadline, member);
+            }
+        } catch (Exception e) {
+            log.error("订单超时任务重新登记失败: {}", member, e);
+            current.schedule(member, deadline, member);
+        }
+    }
+
+    private void fire(String member) {
+        int separator = member.indexOf(':');
+        String type = member.substring(0, separator);
+        Consumer<Integer> handler = handlers.get(type);
+        if (handler == null) {
+            log.warn("没有订单超时处理器: {}", type);
+            return;
+        }
+        handler.accept(Integer.valueOf(member.substring(separator + 1)));
+    }
+
+    /**
+     * 从Redis加载全部超时任务到时间轮，首次启用时先为存量订单登记
+     */
+    private void load(HierarchicalTimingWheel<String> target) {
+        if (!redisService.hasKey(BACKFILLED_KEY)) {
+            backfill();
+            redisService.setValue(BACKFILLED_KEY, LocalDateTime.now().toString());
+        }
+        for (ZSetOperations.TypedTuple<Object> tuple : redisService.getZSetRangeDesc(TIMEOUT_KEY, 0, -1)) {
+            String member = String.valueOf(tuple.getValue());
+            target.schedule(member, tuple.getScore().longValue(), member);
+        }
+    }
+
+    /**
+     * 为启用超时处理前就已存在的待接单、已接单订单登记超时任务，已登记的不覆盖
+     */
+    private void backfill() {
+        int count = 0;
+        List<CollectOrder> orders = collectOrderMapper.selectList(new LambdaQueryWrapper<CollectOrder>()
+                .select(CollectOrder::getId, CollectOrder::getStatus, CollectOrder::getCreateTime, CollectOrder::getAcceptTime)
+                .in(CollectOrder::getStatus, 0, 1));
+        for (CollectOrder order : orders) {
+            boolean pending = order.getStatus() == 0;
+            String type = pending ? PENDING : ACCEPTED;
+            LocalDateTime since = pending ? order.getCreateTime() : order.getAcceptTime();
+            long start = since == null ? System.currentTimeMillis() : since.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (redisService.addToZSetIfAbsent(TIMEOUT_KEY, member(type, order.getId()), start + timeoutOf(type))) {
+                count++;
+            }
+        }
+        log.info("为存量订单登记超时任务{}个", count);
+    }
+
+    private long timeoutOf(String type) {
+        return switch (type) {
+            case PENDING -> pendingTimeout;
+            case ACCEPTED -> acceptedTimeout;
+            default -> throw new IllegalArgumentException("unknown timeout type: " + type);
+        };
+    }
+
+    private static String member(String type, Integer orderId) {
+        return type + ":" + orderId;
+    }
+
+    private static Map<String, Object> message(String member, Long deadline) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("member", member);
+        message.put("deadline", deadline);
+        return message;
+    }
+}
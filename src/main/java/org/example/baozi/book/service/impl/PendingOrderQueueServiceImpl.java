@@ -0,0 +1,350 @@
+package org.example.baozi.book.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.entity.Student;
+import org.example.baozi.book.mapper.CollectOrderMapper;
+import org.example.baozi.book.response.PageResult;
+import org.example.baozi.book.service.PendingOrderQueueService;
+import org.example.baozi.book.util.CursorUtil;
+import org.example.baozi.book.util.TransactionUtil;
+import org.example.baozi.book.vo.CollectOrderVO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 待接单订单队列服务实现类
+ * 每个校区一个有序集合（成员为订单ID，分数为创建时间）和一个摘要Hash（订单ID -> 列表需要的字段），
+ * 订单创建、接单时增量维护，定时按数据库整体重建，重建时先写临时键再RENAME，读取方不会看到一半的数据
+ * 重建由竞争到Redis锁的一个节点执行，替换时保留查询数据库之后才加入队列的订单
+ * 只有重建过的校区才从队列读取，其余校区继续查询数据库
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PendingOrderQueueServiceImpl implements PendingOrderQueueService {
+
+    private final RedisServiceImpl redisService;
+    private final CollectOrderMapper collectOrderMapper;
+
+    private static final String QUEUE_PREFIX = RedisServiceImpl.KEY_PREFIX_ORDER + "queue:";
+    private static final String SUMMARY_SUFFIX = ":summary";
+    private static final String REBUILD_SUFFIX = ":rebuild";
+    // 已经重建过的校区，只有这些校区的队列是完整的
+    private static final String LOADED_KEY = RedisServiceImpl.KEY_PREFIX_ORDER + "queue-campuses";
+    private static final String CLAIM_PREFIX = RedisServiceImpl.KEY_PREFIX_ORDER + "claim:";
+    // 接单标记的有效期，足够完成接单事务
+    private static final long CLAIM_SECONDS = 30;
+    private static final String RECONCILE_LOCK_KEY = RedisServiceImpl.KEY_PREFIX_LOCK + "order-queue-reconcile";
+    // 查询数据库前这段时间内创建的订单也可能还未提交，替换时一并从原队列保留（毫秒）
+    private static final long REBUILD_OVERLAP = 5 * 60_000;
+
+    @Value("${book.order-queue.reconcile-interval:60000}")
+    private long reconcileInterval;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * 分页获取校区待接单订单
+     * @param campus 校区
+     * @param page 页码
+     * @param size 每页大小
+     * @return 分页结果，队列尚未加载该校区或Redis不可用时返回null
+     */
+    @Override
+    public PageResult<CollectOrderVO> getOrders(String campus, int page, int size) {
+        if (!redisService.isInSet(LOADED_KEY, campus)) {
+            return null;
+        }
+        try {
+            long start = (long) (Math.max(page, 1) - 1) * size;
+            Set<ZSetOperations.TypedTuple<Object>> tuples = redisService.getZSetRangeDesc(queueKey(campus), start, start + size - 1);
+            return new PageResult<>(summaries(campus, new ArrayList<>(tuples)),
+                    redisService.getZSetSize(queueKey(campus)), size, page);
+        } catch (Exception e) {
+            log.warn("读取待接单队列失败，改为查询数据库: {}", campus, e);
+            return null;
+        }
+    }
+
+    /**
+     * 游标分页获取校区待接单订单，按 (create_time, id) 倒序
+     * 有序集合中创建时间相同的订单按成员字节序排列，因此取出游标时间点上的全部订单后在内存中按ID排序
+     * @param campus 校区
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @return 分页结果，队列尚未加载该校区或Redis不可用时返回null
+     */
+    @Override
+    public PageResult<CollectOrderVO> getOrdersByCursor(String campus, String cursor, int size) {
+        size = CursorUtil.clampSize(size);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        if (!redisService.isInSet(LOADED_KEY, campus)) {
+            return null;
+        }
+        try {
+            String key = queueKey(campus);
+            double max = Double.POSITIVE_INFINITY;
+            long ties = 0;
+            if (position.createTime() != null) {
+                max = score(position.createTime());
+                ties = redisService.countZSet(key, max, max);
+            }
+
+            List<ZSetOperations.TypedTuple<Object>> tuples = new ArrayList<>(
+                    redisService.getZSetRangeByScoreDesc(key, max, size + 1 + ties));
+            tuples.sort(Comparator.<ZSetOperations.TypedTuple<Object>>comparingDouble(ZSetOperations.TypedTuple::getScore)
+                    .thenComparingLong(tuple -> orderId(tuple).longValue())
+                    .reversed());
+            if (position.createTime() != null) {
+                double cursorScore = max;
+                // 游标时间点上只保留ID小于游标ID的订单
+                tuples.removeIf(tuple -> tuple.getScore() == cursorScore && orderId(tuple).longValue() >= position.id());
+            }
+            if (tuples.size() > size + 1) {
+                tuples = tuples.subList(0, size + 1);
+            }
+            return CursorUtil.toPageResult(summaries(campus, tuples), size, redisService.getZSetSize(key),
+                    CollectOrderVO::getCreateTime, CollectOrderVO::getId);
+        } catch (Exception e) {
+            log.warn("读取待接单队列失败，改为查询数据库: {}", campus, e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取校区全部待接单订单
+     * @param campus 校区
+     * @return 待接单订单，队列尚未加载该校区或Redis不可用时返回null
+     */
+    @Override
+    public List<CollectOrderVO> getAllOrders(String campus) {
+        if (!redisService.isInSet(LOADED_KEY, campus)) {
+            return null;
+        }
+        try {
+            Map<Object, Object> entries = redisService.getHashEntries(summaryKey(campus));
+            List<CollectOrderVO> result = new ArrayList<>(entries.size());
+            for (Object summary : entries.values()) {
+                if (summary instanceof Map<?, ?> map) {
+                    result.add(fromSummary(map));
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            log.warn("读取待接单队列失败，改为查询数据库: {}", campus, e);
+            return null;
+        }
+    }
+
+    /**
+     * 新订单加入队列
+     * 校区还没有重建过时不写入，等下次重建时整体加载
+     * @param order 订单
+     * @param student 下单学生
+     */
+    @Override
+    public void add(CollectOrder order, Student student) {
+        CollectOrderVO vo = new CollectOrderVO();
+        vo.setId(order.getId());
+        vo.setStudentId(order.getStudentId());
+        vo.setSealedBookId(order.getSealedBookId());
+        vo.setCampus(order.getCampus());
+        // 与数据库DATETIME的精度保持一致
+        vo.setCreateTime(order.getCreateTime() == null ? LocalDateTime.now().withNano(0) : order.getCreateTime().withNano(0));
+        if (student != null) {
+            vo.setStudentPhone(student.getPhone());
+            vo.setStudentDormitory(student.getDormitory());
+        }
+        TransactionUtil.afterCommit(() -> {
+            try {
+                if (!redisService.isInSet(LOADED_KEY, vo.getCampus())) {
+                    return;
+                }
+                redisService.putHash(summaryKey(vo.getCampus()), String.valueOf(vo.getId()), toSummary(vo));
+                redisService.addToZSet(queueKey(vo.getCampus()), vo.getId(), score(vo.getCreateTime()));
+            } catch (Exception e) {
+                // 下次重建时补上
+                log.warn("订单加入待接单队列失败: {}", vo.getId(), e);
+            }
+        });
+    }
+
+    /**
+     * 订单移出队列
+     * @param campus 校区
+     * @param orderId 订单ID
+     */
+    @Override
+    public void remove(String campus, Integer orderId) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.removeFromZSet(queueKey(campus), orderId);
+                redisService.deleteHashKeys(summaryKey(campus), String.valueOf(orderId));
+            } catch (Exception e) {
+                log.warn("订单移出待接单队列失败: {}", orderId, e);
+            }
+        });
+    }
+
+    /**
+     * 抢占接单标记
+     * @param orderId 订单ID
+     * @param collectorId 收书员ID
+     * @return 是否抢占成功，Redis不可用时返回true
+     */
+    @Override
+    public boolean tryClaim(Integer orderId, String collectorId) {
+        try {
+            return redisService.setIfAbsent(CLAIM_PREFIX + orderId, collectorId, CLAIM_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    /**
+     * 释放接单标记
+     * @param orderId 订单ID
+     */
+    @Override
+    public void releaseClaim(Integer orderId) {
+        redisService.deleteValue(CLAIM_PREFIX + orderId);
+    }
+
+    /**
+     * 按数据库重建全部校区的队列
+     * 包括之前重建过、现在已没有待接单订单的校区
+     * 锁在一个重建间隔后自动过期、不主动释放，每个间隔内全部节点只重建一次
+     */
+    @Override
+    @Scheduled(initialDelay = 5_000, fixedDelayString = "${book.order-queue.reconcile-interval:60000}")
+    public void reconcile() {
+        try {
+            if (!redisService.tryLock(RECONCILE_LOCK_KEY, instanceId, reconcileInterval, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            double since = System.currentTimeMillis() - REBUILD_OVERLAP;
+            Map<String, List<CollectOrderVO>> byCampus = new HashMap<>();
+            for (CollectOrderVO row : collectOrderMapper.selectPendingSummaries(null)) {
+                byCampus.computeIfAbsent(row.getCampus(), k -> new ArrayList<>()).add(row);
+            }
+            Set<String> campuses = new HashSet<>(byCampus.keySet());
+            for (Object campus : redisService.getSetMembers(LOADED_KEY)) {
+                campuses.add(campus.toString());
+            }
+
+            for (String campus : campuses) {
+                rebuild(campus, byCampus.getOrDefault(campus, List.of()), since);
+            }
+        } catch (Exception e) {
+            log.error("待接单队列重建失败", e);
+        }
+    }
+
+    /**
+     * 用数据库中的待接单订单替换校区队列
+     * 原队列中创建时间不早于since的订单一并保留，查询数据库之后才提交的新订单不会被覆盖；
+     * 查询数据库之后、替换之前被接单的订单会短暂留在队列中，在下次重建时移除
+     */
+    private void rebuild(String campus, List<CollectOrderVO> rows, double since) {
+        String queueKey = queueKey(campus);
+        String summaryKey = summaryKey(campus);
+        redisService.deleteValue(summaryKey + REBUILD_SUFFIX);
+        redisService.deleteValue(queueKey + REBUILD_SUFFIX);
+        if (!rows.isEmpty()) {
+            Map<Object, Object> summaries = new HashMap<>();
+            Map<Object, Double> scores = new HashMap<>();
+            for (CollectOrderVO row : rows) {
+                summaries.put(String.valueOf(row.getId()), toSummary(row));
+                scores.put(row.getId(), score(row.getCreateTime()));
+            }
+            redisService.putAllHash(summaryKey + REBUILD_SUFFIX, summaries);
+            redisService.addAllToZSet(queueKey + REBUILD_SUFFIX, scores);
+        }
+        // 有序集合的整数成员与摘要的字符串字段序列化后相同，脚本中可以直接对应
+        redisService.replaceZSetAndHash(queueKey, summaryKey, queueKey + REBUILD_SUFFIX, summaryKey + REBUILD_SUFFIX, since);
+        redisService.addToSet(LOADED_KEY, campus);
+    }
+
+    /**
+     * 按有序集合中的顺序读取订单摘要，摘要缺失的订单跳过
+     */
+    private List<CollectOrderVO> summaries(String campus, List<ZSetOperations.TypedTuple<Object>> tuples) {
+        if (tuples.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Collection<Object> ids = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            ids.add(String.valueOf(tuple.getValue()));
+        }
+        List<CollectOrderVO> result = new ArrayList<>(tuples.size());
+        for (Object summary : redisService.multiGetHash(summaryKey(campus), ids)) {
+            if (summary instanceof Map<?, ?> map) {
+                result.add(fromSummary(map));
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Object> toSummary(CollectOrderVO vo) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("id", vo.getId());
+        summary.put("studentId", vo.getStudentId());
+        summary.put("studentPhone", vo.getStudentPhone());
+        summary.put("studentDormitory", vo.getStudentDormitory());
+        summary.put("sealedBookId", vo.getSealedBookId());
+        summary.put("campus", vo.getCampus());
+        // LocalDateTime以字符串保存，避免Redis序列化器丢失类型
+        summary.put("createTime", vo.getCreateTime() == null ? null : vo.getCreateTime().toString());
+        return summary;
+    }
+
+    private static CollectOrderVO fromSummary(Map<?, ?> summary) {
+        CollectOrderVO vo = new CollectOrderVO();
+        vo.setId(toInteger(summary.get("id")));
+        vo.setStudentId((String) summary.get("studentId"));
+        vo.setStudentPhone((String) summary.get("studentPhone"));
+        vo.setStudentDormitory((String) summary.get("studentDormitory"));
+        vo.setSealedBookId(toInteger(summary.get("sealedBookId")));
+        vo.setCampus((String) summary.get("campus"));
+        Object createTime = summary.get("createTime");
+        vo.setCreateTime(createTime == null ? null : LocalDateTime.parse(createTime.toString()));
+        return vo;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+
+    private static Number orderId(ZSetOperations.TypedTuple<Object> tuple) {
+        return (Number) tuple.getValue();
+    }
+
+    private static double score(LocalDateTime createTime) {
+        return createTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String queueKey(String campus) {
+        return QUEUE_PREFIX + campus;
+    }
+
+    private static String summaryKey(String campus) {
+        return QUEUE_PREFIX + campus + SUMMARY_SUFFIX;
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.baozi.book.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.PricingRule;
+import org.example.baozi.book.mapper.PricingRuleMapper;
+import org.example.baozi.book.service.PricingService;
+import org.example.baozi.book.util.InvalidRequestException;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 回收价格服务实现类
+ * 规则快照创建后不再修改，重新加载时整体替换引用，读取时无需加锁
+ * 规则修改在事务提交后通过Redis频道通知各节点，另外定时重新加载，兜底错过的通知
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PricingServiceImpl implements PricingService, MessageListener {
+
+    private static final String CHANNEL = RedisServiceImpl.KEY_PREFIX_ORDER + "pricing-reload";
+
+    private final PricingRuleMapper pricingRuleMapper;
+    private final RedisServiceImpl redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${book.pricing.default-price-per-kg:1.6}")
+    private BigDecimal defaultPricePerKg;
+
+    @Value("${book.pricing.default-commission-rate:0.20}")
+    private BigDecimal defaultCommissionRate;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    /**
+     * 不可变的规则快照：校区 -> 按生效时间从晚到早排列的规则，全部校区的规则单独保存
+     */
+    private record Snapshot(Map<String, List<PricingRule>> byCampus, List<PricingRule> global) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), List.of());
+
+        static Snapshot of(List<PricingRule> rules) {
+            Comparator<PricingRule> latestFirst = Comparator.comparing(PricingRule::getEffectiveFrom,
+                    Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())).reversed()
+                    .thenComparing(PricingRule::getId, Comparator.reverseOrder());
+            Map<String, List<PricingRule>> byCampus = new HashMap<>();
+            List<PricingRule> global = new ArrayList<>();
+            for (PricingRule rule : rules) {
+                if (rule.getCampus() == null || rule.getCampus().isBlank()) {
+                    global.add(rule);
+                } else {
+                    byCampus.computeIfAbsent(rule.getCampus(), k -> new ArrayList<>()).add(rule);
+                }
+            }
+            Map<String, List<PricingRule>> frozen = new HashMap<>();
+            byCampus.forEach((campus, list) -> {
+                list.sort(latestFirst);
+                frozen.put(campus, List.copyOf(list));
+            });
+            global.sort(latestFirst);
+            return new Snapshot(Map.copyOf(frozen), List.copyOf(global));
+        }
+
+        /**
+         * 生效时间最晚、当前时间在有效期内的规则
+         */
+        PricingRule find(String campus, LocalDateTime now) {
+            PricingRule rule = campus == null ? null : active(byCampus.get(campus), now);
+            return rule != null ? rule : active(global, now);
+        }
+
+        private static PricingRule active(List<PricingRule> rules, LocalDateTime now) {
+            if (rules == null) {
+                return null;
+            }
+            for (PricingRule rule : rules) {
+                if ((rule.getEffectiveFrom() == null || !now.isBefore(rule.getEffectiveFrom()))
+                        && (rule.getEffectiveTo() == null || now.isBefore(rule.getEffectiveTo()))) {
+                    return rule;
+                }
+            }
+            return null;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 从数据库重新加载规则，加载失败时保留原快照
+     */
+    @Scheduled(initialDelay = 300_000, fixedDelayString = "${book.pricing.reload-interval:300000}")
+    public void reload() {
+        try {
+            snapshot.set(Snapshot.of(pricingRuleMapper.selectList(null)));
+        } catch (Exception e) {
+            log.error("加载回收价格规则失败", e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        reload();
+    }
+
+    @Override
+    public Quote getQuote(String campus) {
+        PricingRule rule = snapshot.get().find(campus, LocalDateTime.now());
+        if (rule == null) {
+            return new Quote(defaultPricePerKg, defaultCommissionRate);
+        }
+        return new Quote(rule.getPricePerKg(), rule.getCommissionRate());
+    }
+
+    @Override
+    public BigDecimal calculatePrice(Double weight, String campus) {
+        if (weight == null || weight <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(weight).multiply(getQuote(campus).pricePerKg()).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public List<PricingRule> listRules() {
+        return pricingRuleMapper.selectList(null);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public PricingRule saveRule(PricingRule rule) {
+        if (rule.getPricePerKg() == null || rule.getPricePerKg().signum() <= 0) {
+            throw new InvalidRequestException("每公斤价格必须大于0");
+        }
+        if (rule.getCommissionRate() == null || rule.getCommissionRate().signum() < 0
+                || rule.getCommissionRate().compareTo(BigDecimal.ONE) >= 0) {
+            throw new InvalidRequestException("跑腿费比例必须在0到1之间");
+        }
+        if (rule.getEffectiveFrom() != null && rule.getEffectiveTo() != null
+                && !rule.getEffectiveFrom().isBefore(rule.getEffectiveTo())) {
+            throw new InvalidRequestException("失效时间必须晚于生效时间");
+        }
+        if (rule.getCampus() != null && rule.getCampus().isBlank()) {
+            rule.setCampus(null);
+        }
+
+        if (rule.getId() == null) {
+            pricingRuleMapper.insert(rule);
+        } else if (pricingRuleMapper.updateById(rule) == 0) {
+            throw new InvalidRequestException("价格规则不存在");
+        }
+        notifyReload();
+        return rule;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deleteRule(Integer id) {
+        if (pricingRuleMapper.deleteById(id) == 0) {
+            return false;
+        }
+        notifyReload();
+        return true;
+    }
+
+    /**
+     * 事务提交后通知所有节点（包括本节点）重新加载，Redis不可用时只重新加载本节点
+     */
+    private void notifyReload() {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.publish(CHANNEL, System.currentTimeMillis());
+            } catch (Exception e) {
+                reload();
+            }
+        });
+    }
+}
@@ -0,0 +1,307 @@
+package org.example.baozi.book.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.BookCatalog;
+import org.example.baozi.book.entity.RecyclableBook;
+import org.example.baozi.book.mapper.RecyclableBookMapper;
+import org.example.baozi.book.service.BookCatalogService;
+import org.example.baozi.book.service.RecyclableBookSearchService;
+import org.example.baozi.book.util.CompressedBitmap;
+import org.example.baozi.book.util.NGramInvertedIndex;
+import org.example.baozi.book.util.TransactionUtil;
+import org.example.baozi.book.vo.RecyclableBookVO;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 可回收书籍检索服务实现类
+ * 启动时从数据库加载全部可回收书籍，之后随新增和删除增量更新
+ * 新增和删除都通过Redis频道通知所有节点
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecyclableBookSearchServiceImpl implements RecyclableBookSearchService, MessageListener {
+
+    private static final String ADD_CHANNEL = RedisServiceImpl.KEY_PREFIX_BOOK + "search-add";
+    private static final String REMOVE_CHANNEL = RedisServiceImpl.KEY_PREFIX_BOOK + "search-remove";
+
+    private final RecyclableBookMapper recyclableBookMapper;
+    private final BookCatalogService bookCatalogService;
+    private final RedisServiceImpl redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // 各字段权重，书名命中比出版社、版次命中更相关
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float PUBLISHER_WEIGHT = 1f;
+    private static final float EDITION_WEIGHT = 1f;
+
+    private static final List<String> FACETS = List.of(FACET_CAMPUS, FACET_PUBLISHER, FACET_EDITION);
+
+    private final NGramInvertedIndex<Integer> index = new NGramInvertedIndex<>();
+
+    /**
+     * 分类 -> 取值 -> 书籍ID位图
+     */
+    private final Map<String, Map<String, CompressedBitmap>> facets = new HashMap<>();
+
+    /**
+     * 书籍ID -> 各分类的取值，顺序与FACETS一致，删除时使用
+     */
+    private final Map<Integer, String[]> facetValues = new HashMap<>();
+
+    /**
+     * 全部书籍ID
+     */
+    private final CompressedBitmap all = new CompressedBitmap();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void loadIndex() {
+        FACETS.forEach(facet -> facets.put(facet, new HashMap<>()));
+        List<RecyclableBookVO> books = recyclableBookMapper.selectIndexRows();
+        for (RecyclableBookVO book : books) {
+            put(book.getRId(), book.getTitle(), book.getPublisher(), book.getEdition(), book.getCampus(), book.getCatalogId());
+        }
+        log.info("可回收书籍检索索引加载完成，共 {} 条", index.size());
+        listenerContainer.addMessageListener(this, List.of(new ChannelTopic(ADD_CHANNEL), new ChannelTopic(REMOVE_CHANNEL)));
+    }
+
+    /**
+     * 按关键词检索可回收书籍
+     * @param keyword 关键词
+     * @return 按相关度排序的可回收书籍ID
+     */
+    @Override
+    public List<Integer> search(String keyword) {
+        return index.search(keyword);
+    }
+
+    /**
+     * 按关键词和分类筛选可回收书籍
+     * @param keyword 关键词，可为空
+     * @param filters 分类筛选条件，分类 -> 取值，取值为空表示不筛选
+     * @return 有关键词时按相关度排序，否则按发布时间从新到旧排序的可回收书籍ID
+     */
+    @Override
+    public List<Integer> search(String keyword, Map<String, String> filters) {
+        List<Integer> ranked = StringUtils.hasText(keyword) ? index.search(keyword) : null;
+
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matched = filter(filters, null);
+            if (ranked == null) {
+                return Arrays.stream(matched.toDescendingArray()).boxed().toList();
+            }
+            return ranked.stream().filter(matched::contains).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 统计各分类取值下的书籍数量
+     * 统计某个分类时不应用该分类自身的筛选条件，便于用户切换选项
+     * @param keyword 关键词，可为空
+     * @param filters 分类筛选条件
+     * @param limit 每个分类最多返回的取值数量
+     * @return 分类 -> (取值 -> 数量)，按数量从多到少排序
+     */
+    @Override
+    public Map<String, Map<String, Integer>> facetCounts(String keyword, Map<String, String> filters, int limit) {
+        CompressedBitmap keywordMatched = null;
+        if (StringUtils.hasText(keyword)) {
+            keywordMatched = new CompressedBitmap();
+            for (Integer id : index.search(keyword)) {
+                keywordMatched.add(id);
+            }
+        }
+
+        Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String facet : FACETS) {
+                CompressedBitmap matched = filter(filters, facet);
+                if (keywordMatched != null) {
+                    matched = matched.and(keywordMatched);
+                }
+
+                List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+                for (Map.Entry<String, CompressedBitmap> entry : facets.get(facet).entrySet()) {
+                    int count = matched.andCardinality(entry.getValue());
+                    if (count > 0) {
+                        counts.add(Map.entry(entry.getKey(), count));
+                    }
+                }
+                counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+                Map<String, Integer> values = new LinkedHashMap<>();
+                counts.stream().limit(limit).forEach(entry -> values.put(entry.getKey(), entry.getValue()));
+                result.put(facet, values);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 将可回收书籍加入所有节点的索引，存在事务时在事务提交后生效
+     * 本节点立即加入，Redis不可用时其他节点在重启加载时补上
+     * @param books 可回收书籍
+     * @param campus 书籍所在校区
+     */
+    @Override
+    public void index(Collection<RecyclableBook> books, String campus) {
+        TransactionUtil.afterCommit(() -> {
+            List<Map<String, Object>> rows = new ArrayList<>(books.size());
+            for (RecyclableBook book : books) {
+                put(book.getRId(), book.getBookTitle(), book.getPublisher(), book.getPrintingEdition(), campus, book.getCatalogId());
+                Map<String, Object> row = new HashMap<>();
+                row.put("rId", book.getRId());
+                row.put("title", book.getBookTitle());
+                row.put("publisher", book.getPublisher());
+                row.put("edition", book.getPrintingEdition());
+                row.put("campus", campus);
+                row.put("catalogId", book.getCatalogId());
+                rows.add(row);
+            }
+            try {
+                redisService.publish(ADD_CHANNEL, rows);
+            } catch (Exception e) {
+                log.warn("可回收书籍检索索引新增通知发送失败", e);
+            }
+        });
+    }
+
+    /**
+     * 从所有节点的索引中移除可回收书籍，存在事务时在事务提交后生效
+     * Redis不可用时只移除本节点
+     * @param rId 可回收书籍ID
+     */
+    @Override
+    public void remove(Integer rId) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.publish(REMOVE_CHANNEL, rId);
+            } catch (Exception e) {
+                removeLocal(rId);
+            }
+        });
+    }
+
+    /**
+     * 收到其他节点（包括本节点）的新增或删除通知，重复加入同一本书时覆盖原有条目
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object event = redisService.deserializeMessage(message.getBody());
+        if (event instanceof Number rId) {
+            removeLocal(rId.intValue());
+        } else if (event instanceof List<?> rows) {
+            for (Object item : rows) {
+                if (item instanceof Map<?, ?> row && row.get("rId") instanceof Number rId) {
+                    put(rId.intValue(), (String) row.get("title"), (String) row.get("publisher"), (String) row.get("edition"),
+                            (String) row.get("campus"), row.get("catalogId") instanceof Number catalogId ? catalogId.intValue() : null);
+                }
+            }
+        }
+    }
+
+    private void removeLocal(Integer rId) {
+        index.remove(rId);
+        lock.writeLock().lock();
+        try {
+            removeFacets(rId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Integer rId, String title, String publisher, String edition, String campus, Integer catalogId) {
+        Map<String, Float> fields = new LinkedHashMap<>();
+        fields.put(title, TITLE_WEIGHT);
+        fields.merge(publisher, PUBLISHER_WEIGHT, Float::sum);
+        fields.merge(edition, EDITION_WEIGHT, Float::sum);
+        fields.remove(null);
+        index.put(rId, fields);
+
+        // 分类使用教材目录中的统一写法，同一出版社、版次的不同写法归为一类
+        BookCatalog catalog = bookCatalogService.getCatalog(catalogId);
+        if (catalog != null) {
+            publisher = catalog.getPublisher();
+            edition = catalog.getEdition();
+        }
+        String[] values = {campus, publisher, edition};
+        lock.writeLock().lock();
+        try {
+            removeFacets(rId);
+            for (int i = 0; i < values.length; i++) {
+                if (StringUtils.hasText(values[i])) {
+                    facets.get(FACETS.get(i)).computeIfAbsent(values[i], k -> new CompressedBitmap()).add(rId);
+                }
+            }
+            facetValues.put(rId, values);
+            all.add(rId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeFacets(Integer rId) {
+        String[] values = facetValues.remove(rId);
+        if (values == null) {
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            Map<String, CompressedBitmap> bitmaps = facets.get(FACETS.get(i));
+            CompressedBitmap bitmap = values[i] == null ? null : bitmaps.get(values[i]);
+            if (bitmap != null) {
+                bitmap.remove(rId);
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(values[i]);
+                }
+            }
+        }
+        all.remove(rId);
+    }
+
+    /**
+     * 对筛选条件对应的位图求交集，需持有读锁，结果可能是内部位图，不能修改
+     * @param filters 分类筛选条件
+     * @param excluded 不参与筛选的分类
+     * @return 满足条件的书籍ID位图
+     */
+    private CompressedBitmap filter(Map<String, String> filters, String excluded) {
+        CompressedBitmap matched = all;
+        for (String facet : FACETS) {
+            String value = filters.get(facet);
+            if (facet.equals(excluded) || !StringUtils.hasText(value)) {
+                continue;
+            }
+            CompressedBitmap bitmap = facets.get(facet).get(value);
+            if (bitmap == null) {
+                return new CompressedBitmap();
+            }
+            matched = matched.and(bitmap);
+        }
+        return matched;
+    }
+}
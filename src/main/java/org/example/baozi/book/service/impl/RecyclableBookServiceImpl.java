@@ -5,15 +5,35 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
+import org.example.baozi.book.entity.Book;
 import org.example.baozi.book.entity.RecyclableBook;
 import org.example.baozi.book.mapper.RecyclableBookMapper;
 import org.example.baozi.book.response.PageResult;
+import org.example.baozi.book.service.BookCatalogService;
+import org.example.baozi.book.service.BookService;
+import org.example.baozi.book.service.CoverCacheService;
+import org.example.baozi.book.service.CoverHashService;
+import org.example.baozi.book.service.ListingCountService;
+import org.example.baozi.book.service.ListingResponseCacheService;
+import org.example.baozi.book.service.RecyclableBookSearchService;
 import org.example.baozi.book.service.RecyclableBookService;
+import org.example.baozi.book.service.TrendingService;
+import org.example.baozi.book.service.WishService;
+import org.example.baozi.book.util.CursorUtil;
+import org.example.baozi.book.util.FieldProjection;
 import org.example.baozi.book.vo.RecyclableBookVO;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +44,34 @@ import java.util.stream.Collectors;
 public class RecyclableBookServiceImpl extends ServiceImpl<RecyclableBookMapper, RecyclableBook> implements RecyclableBookService {
 
     private final RecyclableBookMapper recyclableBookMapper;
+    private final BookService bookService;
+    private final RecyclableBookSearchService recyclableBookSearchService;
+    private final ListingCountService listingCountService;
+    private final ListingResponseCacheService listingResponseCacheService;
+    private final WishService wishService;
+    private final BookCatalogService bookCatalogService;
+    private final TrendingService trendingService;
+    private final CoverCacheService coverCacheService;
+    private final CoverHashService coverHashService;
+
+    /**
+     * 可回收书籍列表可返回的属性
+     * 关键词检索按rid还原顺序，游标分页需要id和createTime，这些列总是查询
+     */
+    private static final FieldProjection.Definition<RecyclableBookVO> LISTING_FIELDS = FieldProjection.<RecyclableBookVO>define()
+            .field("rid", "r.r_id as rId", RecyclableBookVO::getRId)
+            .field("id", "b.id", RecyclableBookVO::getId)
+            .field("ownerId", "b.owner_id as ownerId", RecyclableBookVO::getOwnerId)
+            .field("campus", "b.campus", RecyclableBookVO::getCampus)
+            .field("createTime", "b.create_time as createTime", RecyclableBookVO::getCreateTime)
+            .field("title", "r.book_title as title", RecyclableBookVO::getTitle)
+            .field("publisher", "r.publisher", RecyclableBookVO::getPublisher)
+            .field("edition", "r.printing_edition as edition", RecyclableBookVO::getEdition)
+            .field("catalogId", "r.catalog_id as catalogId", RecyclableBookVO::getCatalogId)
+            .required("rid", "id", "createTime");
+
+    // 每个分类最多返回的取值数量
+    private static final int MAX_FACET_VALUES = 20;
 
 
     /**
@@ -42,34 +90,186 @@ public class RecyclableBookServiceImpl extends ServiceImpl<RecyclableBookMapper,
         recyclableBook.setBookTitle(bookTitle);
         recyclableBook.setPrintingEdition(printingEdition);
         recyclableBook.setPublisher(publisher);
+        recyclableBook.setCatalogId(bookCatalogService.resolve(bookTitle, publisher, printingEdition));
         
         // 保存可回收书籍信息
         save(recyclableBook);
+        Book book = bookService.getBookInfo(bookId);
+        recyclableBookSearchService.index(List.of(recyclableBook), book == null ? null : book.getCampus());
+        listingCountService.adjustRecyclableBooks(1);
+        listingResponseCacheService.invalidate();
+        wishService.matchNewBooks(List.of(recyclableBook), book == null ? null : book.getOwnerId());
+        trendingService.recordUpload(book == null ? null : book.getCampus(), bookTitle);
         
         return recyclableBook.getRId();
     }
     
+    /**
+     * 批量添加可回收书籍
+     * 封面并行处理，书籍和可回收书籍使用JDBC批量插入
+     * @param ownerId 上传者学号
+     * @param campus 校区
+     * @param bookCovers 封面图片
+     * @param bookNames 书名
+     * @param printingEditions 印刷版次
+     * @param publishers 出版商
+     * @return 每本书的处理结果，顺序与上传顺序一致
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Map<String, Object>> addRecyclableBooks(String ownerId, String campus, List<MultipartFile> bookCovers,
+                                                        List<String> bookNames, List<String> printingEditions, List<String> publishers) {
+        int count = bookCovers.size();
+        List<Map<String, Object>> results = new ArrayList<>(count);
+        List<Integer> validIndexes = new ArrayList<>(count);
+        List<byte[]> images = new ArrayList<>(count);
+
+        // 校验每本书的信息并读取封面
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("index", i);
+            results.add(result);
+
+            MultipartFile cover = bookCovers.get(i);
+            if (cover == null || cover.isEmpty()) {
+                result.put("success", false);
+                result.put("message", "封面图片不能为空");
+                continue;
+            }
+            if (!StringUtils.hasText(bookNames.get(i))) {
+                result.put("success", false);
+                result.put("message", "书名不能为空");
+                continue;
+            }
+            try {
+                images.add(cover.getBytes());
+                validIndexes.add(i);
+            } catch (IOException e) {
+                result.put("success", false);
+                result.put("message", "图片处理失败");
+            }
+        }
+
+        if (validIndexes.isEmpty()) {
+            return results;
+        }
+
+        // 批量创建书籍
+        List<Long> bookIds = bookService.createBooks(ownerId, campus, images);
+
+        // 批量保存可回收书籍信息
+        List<RecyclableBook> recyclableBooks = new ArrayList<>(validIndexes.size());
+        for (int j = 0; j < validIndexes.size(); j++) {
+            int i = validIndexes.get(j);
+            RecyclableBook recyclableBook = new RecyclableBook();
+            recyclableBook.setBookId(bookIds.get(j));
+            recyclableBook.setBookTitle(bookNames.get(i));
+            recyclableBook.setPrintingEdition(printingEditions.get(i));
+            recyclableBook.setPublisher(publishers.get(i));
+            recyclableBook.setCatalogId(bookCatalogService.resolve(bookNames.get(i), publishers.get(i), printingEditions.get(i)));
+            recyclableBooks.add(recyclableBook);
+        }
+        saveBatch(recyclableBooks);
+        recyclableBookSearchService.index(recyclableBooks, campus);
+        listingCountService.adjustRecyclableBooks(recyclableBooks.size());
+        listingResponseCacheService.invalidate();
+        wishService.matchNewBooks(recyclableBooks, ownerId);
+        for (RecyclableBook recyclableBook : recyclableBooks) {
+            trendingService.recordUpload(campus, recyclableBook.getBookTitle());
+        }
+
+        for (int j = 0; j < validIndexes.size(); j++) {
+            Map<String, Object> result = results.get(validIndexes.get(j));
+            result.put("success", true);
+            result.put("bookId", recyclableBooks.get(j).getBookId());
+            result.put("recyclableBookId", recyclableBooks.get(j).getRId());
+        }
+        return results;
+    }
+    
     /**
      * 分页查询可回收书籍列表
      * @param pages 分页参数
-     * @param keyword 关键词（用于书名搜索）
+     * @param keyword 关键词（检索书名、出版社和印刷版次）
+     * @param filters 分类筛选条件（校区、出版社、印刷版次）
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 分页结果
      */
     @Override
-    public PageResult<RecyclableBookVO> getRecyclableBooks(Page<RecyclableBook> pages, String keyword) {
-        // 方案1: 直接使用自定义查询方法进行分页
-        Page<RecyclableBookVO> resultPage = recyclableBookMapper.getRBookByPage(pages);
-        
-        // 如果需要关键词过滤，可以在XML中添加条件
+    public PageResult<?> getRecyclableBooks(Page<RecyclableBook> pages, String keyword, Map<String, String> filters, String fields) {
+        FieldProjection<RecyclableBookVO> projection = LISTING_FIELDS.project(fields);
+        boolean filtered = filters.values().stream().anyMatch(StringUtils::hasText);
+        if (StringUtils.hasText(keyword) || filtered) {
+            return FieldProjection.apply(projection, searchRecyclableBooks(pages, keyword, filters, projection));
+        }
+
+        // 方案1: 直接使用自定义查询方法进行分页，总数由计数器提供，不再执行COUNT查询
+        pages.setSearchCount(false);
+        Page<RecyclableBookVO> resultPage = recyclableBookMapper.getRBookByPage(pages, FieldProjection.columns(projection));
         
-        return new PageResult<>(
+        return FieldProjection.apply(projection, new PageResult<>(
                 resultPage.getRecords(),// 当前页数据
-                resultPage.getTotal(), //总记录数
+                listingCountService.countRecyclableBooks(), //总记录数
                 resultPage.getSize(), //每页条数
                 resultPage.getCurrent() //当前页码
-        );
+        ));
+    }
+
+    /**
+     * 游标分页查询可回收书籍列表
+     * 游标分页，查询代价与页数无关，总数由计数器提供
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
+     * @return 分页结果
+     */
+    @Override
+    public PageResult<?> getRecyclableBooksByCursor(String cursor, Integer size, String fields) {
+        FieldProjection<RecyclableBookVO> projection = LISTING_FIELDS.project(fields);
+        size = CursorUtil.clampSize(size);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        // 多查一条用于判断是否还有下一页
+        List<RecyclableBookVO> rows = recyclableBookMapper.getRBookByCursor(position.createTime(), position.id(), size + 1,
+                FieldProjection.columns(projection));
+        return FieldProjection.apply(projection, CursorUtil.toPageResult(rows, size, listingCountService.countRecyclableBooks(),
+                RecyclableBookVO::getCreateTime, RecyclableBookVO::getId));
+    }
+
+    /**
+     * 统计可回收书籍的分类数量
+     * @param keyword 关键词
+     * @param filters 分类筛选条件
+     * @return 分类 -> (取值 -> 数量)
+     */
+    @Override
+    public Map<String, Map<String, Integer>> getRecyclableBookFacets(String keyword, Map<String, String> filters) {
+        return recyclableBookSearchService.facetCounts(keyword, filters, MAX_FACET_VALUES);
     }
 
+    /**
+     * 关键词检索和分类筛选
+     * 先从内存索引得到排好序的ID，再按主键只查询当前页的数据
+     */
+    private PageResult<RecyclableBookVO> searchRecyclableBooks(Page<RecyclableBook> pages, String keyword, Map<String, String> filters,
+                                                               FieldProjection<RecyclableBookVO> projection) {
+        List<Integer> ids = recyclableBookSearchService.search(keyword, filters);
+
+        long from = (pages.getCurrent() - 1) * pages.getSize();
+        if (from < 0 || from >= ids.size()) {
+            return new PageResult<>(List.of(), ids.size(), pages.getSize(), pages.getCurrent());
+        }
+        List<Integer> pageIds = ids.subList((int) from, (int) Math.min(from + pages.getSize(), ids.size()));
+
+        // 按索引给出的顺序返回
+        Map<Integer, RecyclableBookVO> rows = recyclableBookMapper.getRBookByIds(pageIds, FieldProjection.columns(projection)).stream()
+                .collect(Collectors.toMap(RecyclableBookVO::getRId, Function.identity()));
+        List<RecyclableBookVO> records = pageIds.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new PageResult<>(records, ids.size(), pages.getSize(), pages.getCurrent());
+    }
 
     /**
      * 获取可回收书籍详情
@@ -80,4 +280,31 @@ public class RecyclableBookServiceImpl extends ServiceImpl<RecyclableBookMapper,
     public RecyclableBook getRecyclableBookInfo(Integer rId) {
         return getById(rId);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 删除可回收书籍
+     * @param rId 可回收书籍ID
+     * @return 是否删除成功
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deleteRecyclableBook(Integer rId) {
+        RecyclableBook recyclableBook = getById(rId);
+        if (recyclableBook == null || !removeById(rId)) {
+            return false;
+        }
+        // 可回收书籍对应的书籍只属于这一条发布，一并删除，避免封面数据残留
+        Book book = bookService.getBookInfo(recyclableBook.getBookId());
+        if (book != null) {
+            bookService.removeById(book.getId());
+            if (book.getCoverHash() != null) {
+                coverHashService.remove(book.getId(), book.getOwnerId(), book.getCoverHash());
+            }
+        }
+        coverCacheService.evict(recyclableBook.getBookId());
+        recyclableBookSearchService.remove(rId);
+        listingCountService.adjustRecyclableBooks(-1);
+        listingResponseCacheService.invalidate();
+        return true;
+    }
+}
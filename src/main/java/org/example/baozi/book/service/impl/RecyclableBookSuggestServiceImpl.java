@@ -0,0 +1,89 @@
+package org.example.baozi.book.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.mapper.RecyclableBookMapper;
+import org.example.baozi.book.service.RecyclableBookSuggestService;
+import org.example.baozi.book.util.PrefixSuggester;
+import org.example.baozi.book.util.PrefixSuggester.Suggestion;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 可回收书籍搜索联想服务实现类
+ * 联想词典在后台定时重建，完成后原子替换，输入时的每次按键都不会访问数据库
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecyclableBookSuggestServiceImpl implements RecyclableBookSuggestService {
+
+    private final RecyclableBookMapper recyclableBookMapper;
+
+    // 每个前缀最多保留的联想词数量
+    private static final int TOP_K = 10;
+    private static final String TYPE_TITLE = "title";
+    private static final String TYPE_PUBLISHER = "publisher";
+
+    private final AtomicReference<PrefixSuggester<String>> suggester =
+            new AtomicReference<>(PrefixSuggester.build(List.of(), TOP_K));
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 获取联想词
+     * @param prefix 输入的前缀
+     * @param limit 返回数量上限
+     * @return 联想词列表，包含text(联想词)、type(title或publisher)和count(可回收书籍数量)
+     */
+    @Override
+    public List<Map<String, Object>> suggest(String prefix, int limit) {
+        List<Suggestion<String>> suggestions = suggester.get().suggest(prefix, Math.min(limit, TOP_K));
+        List<Map<String, Object>> result = new ArrayList<>(suggestions.size());
+        for (Suggestion<String> suggestion : suggestions) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("text", suggestion.text());
+            item.put("type", suggestion.payload());
+            item.put("count", suggestion.weight());
+            result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * 重建联想词典
+     */
+    @Override
+    @Scheduled(initialDelayString = "${book.suggest.rebuild-interval:300000}",
+            fixedDelayString = "${book.suggest.rebuild-interval:300000}")
+    public void rebuild() {
+        try {
+            List<Suggestion<String>> suggestions = new ArrayList<>();
+            addSuggestions(recyclableBookMapper.selectTitleCounts(), TYPE_TITLE, suggestions);
+            addSuggestions(recyclableBookMapper.selectPublisherCounts(), TYPE_PUBLISHER, suggestions);
+            suggester.set(PrefixSuggester.build(suggestions, TOP_K));
+            log.debug("联想词典重建完成，共 {} 个词", suggestions.size());
+        } catch (Exception e) {
+            // 重建失败时继续使用旧词典
+            log.error("联想词典重建失败", e);
+        }
+    }
+
+    private void addSuggestions(List<Map<String, Object>> rows, String type, List<Suggestion<String>> suggestions) {
+        for (Map<String, Object> row : rows) {
+            String text = (String) row.get("text");
+            long weight = ((Number) row.get("weight")).longValue();
+            suggestions.add(new Suggestion<>(text, weight, type));
+        }
+    }
+}
@@ -2,11 +2,20 @@ package org.example.baozi.book.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Redis服务实现类
@@ -26,6 +35,56 @@ public class RedisServiceImpl {
     public static final String KEY_PREFIX_REPORT = "report:";
     public static final String KEY_PREFIX_BOOK = "book:";
     public static final String KEY_PREFIX_COLLECTOR = "collector:";
+    public static final String KEY_PREFIX_COUNT = "count:";
+    public static final String KEY_PREFIX_TRENDING = "trending:";
+    public static final String KEY_PREFIX_ORDER = "order:";
+    public static final String KEY_PREFIX_LOCK = "lock:";
+    public static final String KEY_PREFIX_STAT = "stat:";
+
+    // 比较持有者后再续期或删除，保证只有持有者能操作锁
+    private static final RedisScript<Long> RENEW_LOCK_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    // 成员的分数等于ARGV[2]时才删除，返回删除的成员数
+    private static final RedisScript<Long> REMOVE_IF_SCORE_SCRIPT = RedisScript.of(
+            "local score = redis.call('zscore', KEYS[1], ARGV[1]) "
+                    + "if score and tonumber(score) == tonumber(ARGV[2]) then return redis.call('zrem', KEYS[1], ARGV[1]) else return 0 end",
+            Long.class);
+    // 把KEYS[1]中分数不小于ARGV[1]的成员连同KEYS[2]中的同名字段复制到KEYS[3]、KEYS[4]，再用后两个键替换前两个键
+    // KEYS[3]不存在时说明没有新数据，直接删除前两个键；返回复制的成员数
+    private static final RedisScript<Long> REPLACE_ZSET_AND_HASH_SCRIPT = RedisScript.of(
+            "local members = redis.call('zrangebyscore', KEYS[1], ARGV[1], '+inf', 'WITHSCORES') "
+                    + "local copied = 0 "
+                    + "for i = 1, #members, 2 do "
+                    + "local value = redis.call('hget', KEYS[2], members[i]) "
+                    + "if value then redis.call('zadd', KEYS[3], members[i + 1], members[i]) "
+                    + "redis.call('hset', KEYS[4], members[i], value) copied = copied + 1 end end "
+                    + "if redis.call('exists', KEYS[3]) == 1 then "
+                    + "redis.call('rename', KEYS[4], KEYS[2]) redis.call('rename', KEYS[3], KEYS[1]) "
+                    + "else redis.call('del', KEYS[1], KEYS[2]) end "
+                    + "return copied",
+            Long.class);
+    // 对KEYS中除最后一个以外的哈希做相同的字段递增，并把这些键加入最后一个键对应的索引集合，ARGV为字段和增量交替排列
+    private static final RedisScript<Long> INCREMENT_HASHES_SCRIPT = RedisScript.of(
+            "for i = 1, #KEYS - 1 do "
+                    + "for j = 1, #ARGV, 2 do redis.call('hincrby', KEYS[i], ARGV[j], ARGV[j + 1]) end "
+                    + "redis.call('sadd', KEYS[#KEYS], KEYS[i]) end "
+                    + "return #KEYS - 1",
+            Long.class);
+    // 从索引集合中取出最多ARGV[1]个键，读取并删除对应的哈希，返回键和字段值交替排列的列表
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN_HASHES_SCRIPT = RedisScript.of(
+            "local result = {} "
+                    + "for _, key in ipairs(redis.call('spop', KEYS[1], ARGV[1])) do "
+                    + "table.insert(result, key) table.insert(result, redis.call('hgetall', key)) redis.call('del', key) end "
+                    + "return result",
+            List.class);
+    // 脚本的参数和返回的字符串按原样读写，不经过JSON序列化，整数返回值本来就不经过反序列化
+    @SuppressWarnings("rawtypes")
+    private static final RedisSerializer RAW_STRING = RedisSerializer.string();
 
     /**
      * 存储键值对
@@ -294,4 +353,464 @@ public class RedisServiceImpl {
             throw new RuntimeException("Redis operation failed", e);
         }
     }
+
+    /**
+     * 键不存在时才设置值
+     * @param key Redis键
+     * @param value 值
+     * @return 是否设置成功
+     */
+    public boolean setIfAbsent(String key, Object value) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value));
+        } catch (Exception e) {
+            log.error("Redis setIfAbsent error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 增加有序集合中成员的分数
+     * @param key Redis键
+     * @param member 成员
+     * @param delta 增量
+     * @return 增加后的分数
+     */
+    public double incrementZSetScore(String key, Object member, double delta) {
+        try {
+            Double score = redisTemplate.opsForZSet().incrementScore(key, member, delta);
+            return score == null ? 0 : score;
+        } catch (Exception e) {
+            log.error("Redis zset increment error: key={}, member={}", key, member, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 以管道方式执行一组命令，所有命令在一次网络往返中发送
+     * 管道中的命令不是原子的，回调中读到的返回值都是null，结果按顺序在返回值中给出
+     * @param commands 要执行的命令
+     * @return 各命令的结果
+     */
+    public List<Object> executePipelined(Consumer<RedisOperations<String, Object>> commands) {
+        try {
+            return redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    commands.accept((RedisOperations<String, Object>) operations);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.error("Redis pipeline error", e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 按权重合并多个有序集合，同一成员的分数相加
+     * @param destKey 结果键
+     * @param keys 要合并的键
+     * @param weights 每个键的权重，与keys一一对应
+     * @return 结果集合的成员数
+     */
+    public long unionZSets(String destKey, List<String> keys, double[] weights) {
+        try {
+            Long count = redisTemplate.opsForZSet().unionAndStore(keys.get(0), keys.subList(1, keys.size()),
+                    destKey, Aggregate.SUM, Weights.of(weights));
+            return count == null ? 0 : count;
+        } catch (Exception e) {
+            log.error("Redis zset union error: destKey={}", destKey, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 获取有序集合中分数最高的成员
+     * @param key Redis键
+     * @param count 数量
+     * @return 按分数从高到低排列的成员和分数
+     */
+    public Set<ZSetOperations.TypedTuple<Object>> getZSetTop(String key, long count) {
+        try {
+            Set<ZSetOperations.TypedTuple<Object>> result = redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, count - 1);
+            return result == null ? Collections.emptySet() : result;
+        } catch (Exception e) {
+            log.error("Redis zset range error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 键不存在时才设置值，并设置过期时间
+     * @param key Redis键
+     * @param value 值
+     * @param expire 过期时间
+     * @param timeUnit 时间单位
+     * @return 是否设置成功
+     */
+    public boolean setIfAbsent(String key, Object value, long expire, TimeUnit timeUnit) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, expire, timeUnit));
+        } catch (Exception e) {
+            log.error("Redis setIfAbsent error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 批量写入Hash
+     * @param key Redis键
+     * @param entries Hash的键值对
+     */
+    public void putAllHash(String key, Map<?, ?> entries) {
+        try {
+            redisTemplate.opsForHash().putAll(key, entries);
+        } catch (Exception e) {
+            log.error("Redis put all hash error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 批量获取Hash中的值
+     * @param key Redis键
+     * @param hashKeys Hash的键
+     * @return 与hashKeys一一对应的值，不存在的为null
+     */
+    public List<Object> multiGetHash(String key, Collection<Object> hashKeys) {
+        try {
+            return redisTemplate.opsForHash().multiGet(key, hashKeys);
+        } catch (Exception e) {
+            log.error("Redis multi get hash error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 重命名键，目标键已存在时会被覆盖
+     * @param oldKey 原键
+     * @param newKey 新键
+     */
+    public void rename(String oldKey, String newKey) {
+        try {
+            redisTemplate.rename(oldKey, newKey);
+        } catch (Exception e) {
+            log.error("Redis rename error: oldKey={}, newKey={}", oldKey, newKey, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 向有序集合添加成员
+     * @param key Redis键
+     * @param member 成员
+     * @param score 分数
+     */
+    public void addToZSet(String key, Object member, double score) {
+        try {
+            redisTemplate.opsForZSet().add(key, member, score);
+        } catch (Exception e) {
+            log.error("Redis zset add error: key={}, member={}", key, member, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 批量向有序集合添加成员
+     * @param key Redis键
+     * @param scores 成员 -> 分数
+     */
+    public void addAllToZSet(String key, Map<Object, Double> scores) {
+        if (scores.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+        scores.forEach((member, score) -> tuples.add(new DefaultTypedTuple<>(member, score)));
+        try {
+            redisTemplate.opsForZSet().add(key, tuples);
+        } catch (Exception e) {
+            log.error("Redis zset add all error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 从有序集合移除成员
+     * @param key Redis键
+     * @param members 成员
+     * @return 移除的成员数
+     */
+    public long removeFromZSet(String key, Object... members) {
+        try {
+            Long count = redisTemplate.opsForZSet().remove(key, members);
+            return count == null ? 0 : count;
+        } catch (Exception e) {
+            log.error("Redis zset remove error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 获取有序集合的成员数
+     * @param key Redis键
+     * @return 成员数
+     */
+    public long getZSetSize(String key) {
+        try {
+            Long size = redisTemplate.opsForZSet().zCard(key);
+            return size == null ? 0 : size;
+        } catch (Exception e) {
+            log.error("Redis zset size error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 统计有序集合中分数在区间内的成员数
+     * @param key Redis键
+     * @param min 最小分数（包含）
+     * @param max 最大分数（包含）
+     * @return 成员数
+     */
+    public long countZSet(String key, double min, double max) {
+        try {
+            Long count = redisTemplate.opsForZSet().count(key, min, max);
+            return count == null ? 0 : count;
+        } catch (Exception e) {
+            log.error("Redis zset count error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 按排名从高到低获取有序集合的成员
+     * @param key Redis键
+     * @param start 起始排名（包含）
+     * @param end 结束排名（包含）
+     * @return 按分数从高到低排列的成员和分数
+     */
+    public Set<ZSetOperations.TypedTuple<Object>> getZSetRangeDesc(String key, long start, long end) {
+        try {
+            Set<ZSetOperations.TypedTuple<Object>> result = redisTemplate.opsForZSet().reverseRangeWithScores(key, start, end);
+            return result == null ? Collections.emptySet() : result;
+        } catch (Exception e) {
+            log.error("Redis zset range error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 获取分数不大于max的成员，按分数从高到低排列
+     * @param key Redis键
+     * @param max 最大分数（包含）
+     * @param count 数量
+     * @return 成员和分数
+     */
+    public Set<ZSetOperations.TypedTuple<Object>> getZSetRangeByScoreDesc(String key, double max, long count) {
+        try {
+            Set<ZSetOperations.TypedTuple<Object>> result = redisTemplate.opsForZSet()
+                    .reverseRangeByScoreWithScores(key, Double.NEGATIVE_INFINITY, max, 0, count);
+            return result == null ? Collections.emptySet() : result;
+        } catch (Exception e) {
+            log.error("Redis zset range by score error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 向频道发布消息
+     * @param channel 频道
+     * @param message 消息，使用值序列化器序列化
+     */
+    public void publish(String channel, Object message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.error("Redis publish error: channel={}", channel, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 反序列化订阅收到的消息
+     * @param body 消息内容
+     * @return 消息对象
+     */
+    public Object deserializeMessage(byte[] body) {
+        return redisTemplate.getValueSerializer().deserialize(body);
+    }
+
+    /**
+     * 成员不存在时才添加到有序集合
+     * @param key Redis键
+     * @param member 成员
+     * @param score 分数
+     * @return 是否添加成功
+     */
+    public boolean addToZSetIfAbsent(String key, Object member, double score) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForZSet().addIfAbsent(key, member, score));
+        } catch (Exception e) {
+            log.error("Redis zset add if absent error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 获取有序集合成员的分数
+     * @param key Redis键
+     * @param member 成员
+     * @return 分数，成员不存在时返回null
+     */
+    public Double getZSetScore(String key, Object member) {
+        try {
+            return redisTemplate.opsForZSet().score(key, member);
+        } catch (Exception e) {
+            log.error("Redis zset score error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 成员的分数仍等于给定值时才从有序集合移除，用于多个操作竞争同一成员时只让一个生效
+     * @param key Redis键
+     * @param member 成员
+     * @param score 期望的分数
+     * @return 是否移除成功，成员不存在或分数已变化时返回false
+     */
+    public boolean removeFromZSetIfScore(String key, Object member, long score) {
+        try {
+            Long result = redisTemplate.execute(REMOVE_IF_SCORE_SCRIPT, List.of(key), member, score);
+            return result != null && result == 1;
+        } catch (Exception e) {
+            log.error("Redis zset remove if score error: key={}, member={}", key, member, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 尝试获取分布式锁
+     * @param key 锁的键
+     * @param owner 持有者标识
+     * @param expire 过期时间
+     * @param timeUnit 时间单位
+     * @return 是否获取成功
+     */
+    public boolean tryLock(String key, String owner, long expire, TimeUnit timeUnit) {
+        return setIfAbsent(key, owner, expire, timeUnit);
+    }
+
+    /**
+     * 续期分布式锁，只有持有者能续期
+     * @param key 锁的键
+     * @param owner 持有者标识
+     * @param expire 过期时间
+     * @param timeUnit 时间单位
+     * @return 是否仍持有锁
+     */
+    public boolean renewLock(String key, String owner, long expire, TimeUnit timeUnit) {
+        try {
+            Long result = redisTemplate.execute(RENEW_LOCK_SCRIPT, List.of(key), owner, timeUnit.toMillis(expire));
+            return result != null && result == 1;
+        } catch (Exception e) {
+            log.error("Redis renew lock error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 释放分布式锁，只有持有者能释放
+     * @param key 锁的键
+     * @param owner 持有者标识
+     */
+    public void unlock(String key, String owner) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(key), owner);
+        } catch (Exception e) {
+            log.error("Redis unlock error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 原子地用新的有序集合和Hash替换旧的，替换前把旧有序集合中分数不小于minScore的成员
+     * 连同Hash中的同名字段复制到新键中，用于重建期间写入的新数据不被覆盖
+     * 要求有序集合成员序列化后的内容与Hash字段相同（如整数成员和对应的字符串字段）
+     * @param key 有序集合的键
+     * @param hashKey Hash的键
+     * @param newKey 新有序集合的键，不存在时表示新数据为空
+     * @param newHashKey 新Hash的键
+     * @param minScore 需要保留的最小分数
+     * @return 从旧键复制的成员数
+     */
+    @SuppressWarnings("unchecked")
+    public long replaceZSetAndHash(String key, String hashKey, String newKey, String newHashKey, double minScore) {
+        try {
+            Long copied = redisTemplate.execute(REPLACE_ZSET_AND_HASH_SCRIPT, RAW_STRING, RAW_STRING,
+                    List.of(key, hashKey, newKey, newHashKey), String.valueOf(minScore));
+            return copied == null ? 0 : copied;
+        } catch (Exception e) {
+            log.error("Redis replace zset and hash error: key={}", key, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 原子地对多个哈希的相同字段做递增，并把这些哈希的键加入索引集合，便于之后用 {@link #drainHashes} 取出
+     * 字段值为纯数字，读取时不经过JSON反序列化
+     * @param indexKey 索引集合的键
+     * @param keys 哈希的键
+     * @param deltas 字段 -> 增量
+     */
+    @SuppressWarnings("unchecked")
+    public void incrementHashes(String indexKey, List<String> keys, Map<String, Long> deltas) {
+        List<String> scriptKeys = new ArrayList<>(keys);
+        scriptKeys.add(indexKey);
+        Object[] args = new Object[deltas.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            args[i++] = entry.getKey();
+            args[i++] = String.valueOf(entry.getValue());
+        }
+        try {
+            redisTemplate.execute(INCREMENT_HASHES_SCRIPT, RAW_STRING, RAW_STRING, scriptKeys, args);
+        } catch (Exception e) {
+            log.error("Redis increment hashes error: keys={}", keys, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+    }
+
+    /**
+     * 从索引集合中取出一批键，原子地读取并删除对应的哈希
+     * 多个节点同时调用时每个哈希只会被其中一个节点取到
+     * @param indexKey 索引集合的键
+     * @param count 最多取出的键数
+     * @return 键 -> (字段 -> 值)
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Long>> drainHashes(String indexKey, int count) {
+        List<Object> result;
+        try {
+            result = redisTemplate.execute(DRAIN_HASHES_SCRIPT, RAW_STRING, RAW_STRING,
+                    List.of(indexKey), String.valueOf(count));
+        } catch (Exception e) {
+            log.error("Redis drain hashes error: key={}", indexKey, e);
+            throw new RuntimeException("Redis operation failed", e);
+        }
+        Map<String, Map<String, Long>> hashes = new LinkedHashMap<>();
+        if (result == null) {
+            return hashes;
+        }
+        for (int i = 0; i + 1 < result.size(); i += 2) {
+            List<Object> entries = (List<Object>) result.get(i + 1);
+            Map<String, Long> fields = new HashMap<>();
+            for (int j = 0; j + 1 < entries.size(); j += 2) {
+                fields.put(String.valueOf(entries.get(j)), Long.valueOf(String.valueOf(entries.get(j + 1))));
+            }
+            hashes.put(String.valueOf(result.get(i)), fields);
+        }
+        return hashes;
+    }
 }
@@ -7,8 +7,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.baozi.book.entity.Report;
 import org.example.baozi.book.mapper.ReportMapper;
 import org.example.baozi.book.response.PageResult;
+import org.example.baozi.book.service.ListingCountService;
 import org.example.baozi.book.service.ReportService;
 import org.example.baozi.book.service.StudentService;
+import org.example.baozi.book.util.CursorUtil;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -29,6 +31,7 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
     private final ReportMapper reportMapper;
     private final StudentService studentService;
     private final RedisServiceImpl redisService;
+    private final ListingCountService listingCountService;
     
     // Redis键前缀
     private static final String REPORT_KEY = RedisServiceImpl.KEY_PREFIX_REPORT;
@@ -67,6 +70,8 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         boolean result = save(report);
         
         if (result) {
+            listingCountService.moveReport(null, STATUS_PENDING);
+
             // 缓存举报信息
             String reportKey = REPORT_KEY + report.getId();
             redisService.setValueWithExpire(reportKey, report, CACHE_EXPIRE, TimeUnit.SECONDS);
@@ -93,6 +98,8 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
     public PageResult<Report> getReportPage(Integer page, Integer size, Integer status) {
         // 设置分页参数
         Page<Report> pageParam = new Page<>(page, size);
+        // 总数由计数器提供，不再执行COUNT查询
+        pageParam.setSearchCount(false);
         
         // 查询举报分页数据
         Page<Report> reportPage = reportMapper.getReportPage(pageParam, status);
@@ -100,12 +107,29 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         // 构建返回结果
         return new PageResult<>(
                 reportPage.getRecords(),
-                reportPage.getTotal(),
+                listingCountService.countReports(status),
                 reportPage.getSize(),
                 reportPage.getCurrent()
         );
     }
 
+    /**
+     * 游标分页查询举报信息
+     * 游标分页，查询代价与页数无关，总数由计数器提供
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @param status 处理状态
+     * @return 分页结果
+     */
+    @Override
+    public PageResult<Report> getReportPageByCursor(String cursor, Integer size, Integer status) {
+        size = CursorUtil.clampSize(size);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        // 多查一条用于判断是否还有下一页
+        List<Report> rows = reportMapper.getReportByCursor(status, position.createTime(), position.id(), size + 1);
+        return CursorUtil.toPageResult(rows, size, listingCountService.countReports(status), Report::getCreateTime, Report::getId);
+    }
+
     /**
      * 处理举报信息
      * @param id 举报ID
@@ -144,6 +168,8 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         boolean updateResult = updateById(report);
         
         if (updateResult) {
+            listingCountService.moveReport(STATUS_PENDING, STATUS_PROCESSED);
+
             // 更新缓存
             String reportKey = REPORT_KEY + id;
             redisService.setValueWithExpire(reportKey, report, CACHE_EXPIRE, TimeUnit.SECONDS);
@@ -245,6 +271,8 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         boolean updateResult = updateById(report);
         
         if (updateResult) {
+            listingCountService.moveReport(STATUS_PROCESSED, STATUS_CANCELLED);
+
             // 更新缓存
             String reportKey = REPORT_KEY + id;
             redisService.setValueWithExpire(reportKey, report, CACHE_EXPIRE, TimeUnit.SECONDS);
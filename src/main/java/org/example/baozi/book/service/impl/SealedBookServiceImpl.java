@@ -9,12 +9,24 @@ import org.example.baozi.book.entity.SealedBook;
 import org.example.baozi.book.entity.Student;
 import org.example.baozi.book.mapper.BookMapper;
 import org.example.baozi.book.mapper.CollectOrderMapper;
+import org.example.baozi.book.mapper.OrderViewMapper;
 import org.example.baozi.book.mapper.SealedBookMapper;
 import org.example.baozi.book.mapper.StudentMapper;
+import org.example.baozi.book.service.ListingCountService;
+import org.example.baozi.book.service.OrderDispatchService;
+import org.example.baozi.book.service.OrderEventService;
+import org.example.baozi.book.service.OrderTimeoutService;
+import org.example.baozi.book.service.PendingOrderQueueService;
+import org.example.baozi.book.service.PricingService;
 import org.example.baozi.book.service.SealedBookService;
+import org.example.baozi.book.response.PageResult;
+import org.example.baozi.book.util.CursorUtil;
+import org.example.baozi.book.util.FieldProjection;
+import org.example.baozi.book.vo.CollectOrderVO;
 import org.example.baozi.book.vo.SealedBookVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,6 +41,26 @@ public class SealedBookServiceImpl extends ServiceImpl<SealedBookMapper, SealedB
     private final BookMapper bookMapper;
     private final SealedBookMapper sealedBookMapper;
     private final CollectOrderMapper collectOrderMapper;
+    private final OrderViewMapper orderViewMapper;
+    private final ListingCountService listingCountService;
+    private final StudentMapper studentMapper;
+    private final PendingOrderQueueService pendingOrderQueueService;
+    private final OrderEventService orderEventService;
+    private final OrderDispatchService orderDispatchService;
+    private final OrderTimeoutService orderTimeoutService;
+    private final PricingService pricingService;
+
+    /**
+     * 待售书籍列表可返回的属性
+     */
+    private static final FieldProjection.Definition<SealedBookVO> SEALED_BOOK_FIELDS = FieldProjection.<SealedBookVO>define()
+            .field("id", "b.id", SealedBookVO::getId)
+            .field("ownerId", "b.owner_id as ownerId", SealedBookVO::getOwnerId)
+            .field("createTime", "b.create_time as createTime", SealedBookVO::getCreateTime)
+            .field("campus", "b.campus", SealedBookVO::getCampus)
+            .field("weight", "s.book_weight as weight", SealedBookVO::getWeight)
+            .field("price", "s.price as price", SealedBookVO::getPrice)
+            .field("hasCover", "b.has_cover as hasCover", SealedBookVO::getHasCover);
 
     /**
      * 添加待售书籍
@@ -43,8 +75,9 @@ public class SealedBookServiceImpl extends ServiceImpl<SealedBookMapper, SealedB
         sealedBook.setBookId(bookId);
         sealedBook.setBookWeight(bookWeight);
         
-        // 计算价格（重量 * 1.6）
-        Double price = calculatePrice(bookWeight);
+        // 按书籍所在校区的回收价格计算
+        Book book = bookMapper.selectById(bookId);
+        Double price = calculatePrice(bookWeight, book == null ? null : book.getCampus());
         sealedBook.setPrice(price);
         
         // 设置初始状态为未接单
@@ -59,12 +92,14 @@ public class SealedBookServiceImpl extends ServiceImpl<SealedBookMapper, SealedB
     /**
      * 获取学生所有待售书籍
      * @param ownerId 学生ID
+     * @param fields 需要返回的属性，逗号分隔，为空时返回全部属性
      * @return 待售书籍列表
      */
     @Override
-    public List<SealedBookVO> getStudentSealedBooks(String ownerId) {
+    public List<?> getStudentSealedBooks(String ownerId, String fields) {
+        FieldProjection<SealedBookVO> projection = SEALED_BOOK_FIELDS.project(fields);
         // 首先查询属于该学生的所有书籍
-        return sealedBookMapper.sealedBookList(ownerId);
+        return FieldProjection.apply(projection, sealedBookMapper.sealedBookList(ownerId, FieldProjection.columns(projection)));
     }
     
     /**
@@ -88,18 +123,14 @@ public class SealedBookServiceImpl extends ServiceImpl<SealedBookMapper, SealedB
     }
     
     /**
-     * 计算书籍价格（重量*1.6）
+     * 按校区当前的回收价格计算书籍价格，价格取自内存中的规则快照
      * @param bookWeight 书籍重量
+     * @param campus 校区
      * @return 计算得到的价格
      */
     @Override
-    public Double calculatePrice(Double bookWeight) {
-        if (bookWeight == null || bookWeight <= 0) {
-            return 0.0;
-        }
-        
-        // 价格计算公式：重量 * 1.6
-        return bookWeight * 1.6;
+    public Double calculatePrice(Double bookWeight, String campus) {
+        return pricingService.calculatePrice(bookWeight, campus).doubleValue();
     }
 
     /**
@@ -108,6 +139,7 @@ public class SealedBookServiceImpl extends ServiceImpl<SealedBookMapper, SealedB
      * @return 是否创建成功
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public Integer createSealedOrder(Integer sealedId) {
         SealedBook sealedBook = getById(sealedId);
         if (sealedBook == null) {
@@ -120,9 +152,34 @@ public class SealedBookServiceImpl extends ServiceImpl<SealedBookMapper, SealedB
             order.setStudentId(book.getOwnerId());
             order.setSealedBookId(sealedBook.getSId());
             order.setCampus(book.getCampus());
+            // 记录下单时的每公斤价格，完成订单时按该价格结算
+            order.setPricePerKg(pricingService.getQuote(book.getCampus()).pricePerKg().doubleValue());
             int result=collectOrderMapper.insert(order);
+            if (result == 1) {
+                orderViewMapper.refresh(List.of(order.getId()));
+                listingCountService.adjustPendingOrders(order.getCampus(), 1);
+                pendingOrderQueueService.add(order, studentMapper.selectById(order.getStudentId()));
+                orderEventService.publish(OrderEventService.ORDER_CREATED, order);
+                orderDispatchService.dispatch(order);
+                orderTimeoutService.schedule(OrderTimeoutService.PENDING, order.getId());
+            }
             return result==1?order.getId():-1;
         }
 
     }
-} 
\ No newline at end of file
+
+    /**
+     * 游标分页获取学生的订单，读取订单列表读模型，不关联其他表
+     * @param studentId 学号
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页大小
+     * @return 订单分页列表，不统计总数
+     */
+    @Override
+    public PageResult<CollectOrderVO> getStudentOrders(String studentId, String cursor, Integer size) {
+        size = CursorUtil.clampSize(size);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        List<CollectOrderVO> rows = collectOrderMapper.getOrderByStudentCursor(studentId, position.createTime(), position.id(), size + 1);
+        return CursorUtil.toPageResult(rows, size, -1, CollectOrderVO::getCreateTime, CollectOrderVO::getId);
+    }
+}
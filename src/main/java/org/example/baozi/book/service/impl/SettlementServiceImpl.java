@@ -0,0 +1,266 @@
+package org.example.baozi.book.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.CollectOrder;
+import org.example.baozi.book.entity.Collector;
+import org.example.baozi.book.entity.PayoutBatch;
+import org.example.baozi.book.entity.SettlementEntry;
+import org.example.baozi.book.entity.Student;
+import org.example.baozi.book.mapper.CollectorMapper;
+import org.example.baozi.book.mapper.PayoutBatchMapper;
+import org.example.baozi.book.mapper.SettlementLedgerMapper;
+import org.example.baozi.book.mapper.StudentMapper;
+import org.example.baozi.book.service.SettlementService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结算服务实现类
+ * 生成批次时先在一个短事务中登记批次并把已提交的未结算流水标记为属于该批次，
+ * 仍在提交中的流水不会被标记，由之后的批次结算，不依赖创建时间推断哪些流水已经可见
+ * 生成打款文件时按ID分页流式读取批次的流水，内存中只保留每个收款方的合计，
+ * 打款笔数与收款方数量有关，与订单数量无关
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SettlementServiceImpl implements SettlementService {
+
+    private static final String LOCK_KEY = RedisServiceImpl.KEY_PREFIX_LOCK + "settlement";
+    private static final long LOCK_MINUTES = 30;
+    private static final int PAGE_SIZE = 1000;
+    private static final String CSV_HEADER = "payee_type,payee_id,payment_method,amount,entry_count";
+
+    private final SettlementLedgerMapper settlementLedgerMapper;
+    private final PayoutBatchMapper payoutBatchMapper;
+    private final StudentMapper studentMapper;
+    private final CollectorMapper collectorMapper;
+    private final RedisServiceImpl redisService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${book.settlement.output-dir:payouts}")
+    private String outputDir;
+
+    private Path outputPath;
+
+    private record Payee(String type, String id, String paymentMethod) {
+    }
+
+    private static final class Total {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private int count;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        outputPath = Paths.get(outputDir);
+        Files.createDirectories(outputPath);
+    }
+
+    /**
+     * 记录结算流水，金额为0的不记录
+     * 收款方式取完成时学生和收书员设置的收款方式，之后修改收款方式不影响已完成的订单
+     */
+    @Override
+    public void recordCompletion(CollectOrder order, BigDecimal studentAmount, BigDecimal commissionAmount) {
+        if (studentAmount.signum() > 0) {
+            Student student = studentMapper.selectById(order.getStudentId());
+            insert(order.getId(), SettlementEntry.PAYEE_STUDENT, order.getStudentId(),
+                    student == null ? null : student.getPaymentMethod(), studentAmount);
+        }
+        if (commissionAmount.signum() > 0) {
+            Collector collector = collectorMapper.selectById(order.getCollectorId());
+            insert(order.getId(), SettlementEntry.PAYEE_COLLECTOR, order.getCollectorId(),
+                    collector == null ? null : collector.getPaymentMethod(), commissionAmount);
+        }
+    }
+
+    private void insert(Integer orderId, String payeeType, String payeeId, String paymentMethod, BigDecimal amount) {
+        SettlementEntry entry = new SettlementEntry();
+        entry.setOrderId(orderId);
+        entry.setPayeeType(payeeType);
+        entry.setPayeeId(payeeId);
+        entry.setPaymentMethod(paymentMethod);
+        entry.setAmount(amount);
+        settlementLedgerMapper.insert(entry);
+    }
+
+    /**
+     * 定时生成打款文件
+     */
+    @Scheduled(cron = "${book.settlement.cron:0 0 2 * * *}")
+    public void scheduledPayout() {
+        try {
+            PayoutBatch batch = runPayout();
+            if (batch != null) {
+                log.info("打款批次{}已生成：{}笔，共{}元", batch.getId(), batch.getPayeeCount(), batch.getTotalAmount());
+            }
+        } catch (Exception e) {
+            log.error("生成打款批次失败", e);
+        }
+    }
+
+    /**
+     * 先补全上次没有生成文件的批次，再为未结算的流水登记新批次并生成文件
+     */
+    @Override
+    public PayoutBatch runPayout() {
+        String owner = UUID.randomUUID().toString();
+        if (!redisService.tryLock(LOCK_KEY, owner, LOCK_MINUTES, TimeUnit.MINUTES)) {
+            log.info("其他节点正在生成打款批次");
+            return null;
+        }
+        try {
+            for (PayoutBatch unfinished : payoutBatchMapper.selectList(new LambdaQueryWrapper<PayoutBatch>()
+                    .isNull(PayoutBatch::getFileName)
+                    .orderByAsc(PayoutBatch::getId))) {
+                complete(unfinished);
+                log.info("已补全打款批次{}的文件", unfinished.getId());
+            }
+
+            Long toId = settlementLedgerMapper.selectMaxUnsettledId();
+            if (toId == null) {
+                return null;
+            }
+            PayoutBatch batch = transactionTemplate.execute(status -> {
+                PayoutBatch created = new PayoutBatch();
+                created.setFirstEntryId(0L);
+                created.setLastEntryId(0L);
+                created.setEntryCount(0);
+                created.setPayeeCount(0);
+                created.setTotalAmount(BigDecimal.ZERO);
+                payoutBatchMapper.insert(created);
+                if (settlementLedgerMapper.markBatch(created.getId(), toId) == 0) {
+                    status.setRollbackOnly();
+                    return null;
+                }
+                return created;
+            });
+            if (batch == null) {
+                return null;
+            }
+            complete(batch);
+            return batch;
+        } catch (IOException e) {
+            throw new IllegalStateException("写入打款文件失败", e);
+        } finally {
+            redisService.unlock(LOCK_KEY, owner);
+        }
+    }
+
+    /**
+     * 汇总批次的流水并生成打款文件
+     * 先写入临时文件再改名，文件完整后才登记文件名，登记失败时删除文件，下次重新生成
+     */
+    private void complete(PayoutBatch batch) throws IOException {
+        Map<Payee, Total> totals = new HashMap<>();
+        int entryCount = 0;
+        long firstId = 0;
+        long afterId = 0;
+        List<SettlementEntry> page;
+        do {
+            page = settlementLedgerMapper.selectByBatch(batch.getId(), afterId, PAGE_SIZE);
+            for (SettlementEntry entry : page) {
+                Total total = totals.computeIfAbsent(
+                        new Payee(entry.getPayeeType(), entry.getPayeeId(), entry.getPaymentMethod()), k -> new Total());
+                total.amount = total.amount.add(entry.getAmount());
+                total.count++;
+            }
+            if (!page.isEmpty()) {
+                if (entryCount == 0) {
+                    firstId = page.get(0).getId();
+                }
+                afterId = page.get(page.size() - 1).getId();
+            }
+            entryCount += page.size();
+        } while (page.size() == PAGE_SIZE);
+
+        String fileName = "payout-" + batch.getId() + ".csv";
+        BigDecimal totalAmount = writeFile(fileName, totals);
+
+        batch.setFirstEntryId(firstId);
+        batch.setLastEntryId(afterId);
+        batch.setEntryCount(entryCount);
+        batch.setPayeeCount(totals.size());
+        batch.setTotalAmount(totalAmount);
+        batch.setFileName(fileName);
+        try {
+            payoutBatchMapper.updateById(batch);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(outputPath.resolve(fileName));
+            throw e;
+        }
+    }
+
+    private BigDecimal writeFile(String fileName, Map<Payee, Total> totals) throws IOException {
+        List<Map.Entry<Payee, Total>> rows = new ArrayList<>(totals.entrySet());
+        rows.sort(Map.Entry.comparingByKey(Comparator.comparing(Payee::type).thenComparing(Payee::id)
+                .thenComparing(Payee::paymentMethod, Comparator.nullsFirst(Comparator.naturalOrder()))));
+
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        Path temp = outputPath.resolve(fileName + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (Map.Entry<Payee, Total> row : rows) {
+                Payee payee = row.getKey();
+                Total total = row.getValue();
+                writer.write(String.join(",", csv(payee.type()), csv(payee.id()), csv(payee.paymentMethod()),
+                        total.amount.toPlainString(), String.valueOf(total.count)));
+                writer.newLine();
+                totalAmount = totalAmount.add(total.amount);
+            }
+        }
+        Files.move(temp, outputPath.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return totalAmount;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    @Override
+    public List<PayoutBatch> listBatches(int limit) {
+        return payoutBatchMapper.selectList(new LambdaQueryWrapper<PayoutBatch>()
+                .orderByDesc(PayoutBatch::getId)
+                .last("LIMIT " + Math.max(1, Math.min(limit, 100))));
+    }
+
+    @Override
+    public Path getBatchFile(Long batchId) {
+        PayoutBatch batch = payoutBatchMapper.selectById(batchId);
+        // 文件尚未生成的批次
+        if (batch == null || batch.getFileName() == null) {
+            return null;
+        }
+        Path file = outputPath.resolve(batch.getFileName());
+        return Files.exists(file) ? file : null;
+    }
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.baozi.book.entity.Student;
+import org.example.baozi.book.mapper.OrderViewMapper;
 import org.example.baozi.book.mapper.StudentMapper;
 import org.example.baozi.book.service.StudentService;
 import org.example.baozi.book.service.TokenService;
@@ -31,6 +32,7 @@ public class StudentServiceImpl extends ServiceImpl<StudentMapper, Student> impl
     private final StudentMapper studentMapper;
     private final RedisServiceImpl redisService;
     private final TokenService tokenService;
+    private final OrderViewMapper orderViewMapper;
     
     // Redis键前缀
     private static final String STUDENT_KEY = RedisServiceImpl.KEY_PREFIX_STUDENT;
@@ -81,9 +83,13 @@ public class StudentServiceImpl extends ServiceImpl<StudentMapper, Student> impl
      */
     @Override
     @CachePut(value = "student", key = "#student.studentId")
+    @Transactional(rollbackFor = Exception.class)
     public boolean updateStudentProfile(Student student) {
         boolean result = updateById(student);
         if (result) {
+            // 同步订单列表中冗余的联系电话和宿舍
+            orderViewMapper.refreshStudent(student.getStudentId());
+
             // 更新Redis缓存
             String key = STUDENT_KEY + student.getStudentId();
             redisService.setValueWithExpire(key, student, CACHE_EXPIRE, TimeUnit.SECONDS);
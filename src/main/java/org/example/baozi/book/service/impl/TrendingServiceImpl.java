@@ -0,0 +1,243 @@
+package org.example.baozi.book.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.service.TrendingService;
+import org.example.baozi.book.util.TitleNormalizer;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 热门书籍排行服务实现类
+ * 每个校区、每种排行按小时分桶保存在Redis有序集合中，
+ * 定时按时间衰减的权重合并最近的分桶得到排行，结果缓存在内存中
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrendingServiceImpl implements TrendingService {
+
+    private final RedisServiceImpl redisService;
+
+    private static final String KEY_PREFIX = RedisServiceImpl.KEY_PREFIX_TRENDING;
+    // 出现过的校区
+    private static final String CAMPUS_KEY = KEY_PREFIX + "campuses";
+    // 规范化书名 -> 展示用的书名，每小时清理一次计算窗口内没有出现过的书名
+    private static final String TITLE_KEY = KEY_PREFIX + "titles";
+    private static final String ALL_CAMPUS = "all";
+
+    // 各类事件的热度
+    private static final double UPLOAD_SCORE = 3;
+    private static final double VIEW_SCORE = 1;
+    private static final double CONTACT_SCORE = 5;
+    private static final double WISH_SCORE = 5;
+
+    // 参与计算的小时分桶数量和热度半衰期（小时）
+    private static final int WINDOW_HOURS = 48;
+    private static final double HALF_LIFE_HOURS = 12;
+    // 每类排行缓存的数量
+    private static final int TOP_N = 50;
+
+    /**
+     * 校区 -> 排行类型 -> 排行
+     */
+    private final AtomicReference<Map<String, Map<String, List<Map<String, Object>>>>> rankings =
+            new AtomicReference<>(Map.of());
+
+    /**
+     * 本节点已经写入过Redis的校区，避免每次记录都重复写入
+     */
+    private final Set<String> knownCampuses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 上次清理书名的小时
+     */
+    private volatile long lastPrunedHour = -1;
+
+    @Override
+    public void recordUpload(String campus, String title) {
+        TransactionUtil.afterCommit(() -> record(KIND_OFFERED, campus, title, UPLOAD_SCORE));
+    }
+
+    @Override
+    public void recordView(String campus, String title) {
+        record(KIND_OFFERED, campus, title, VIEW_SCORE);
+    }
+
+    @Override
+    public void recordContact(String campus, String title) {
+        record(KIND_WANTED, campus, title, CONTACT_SCORE);
+    }
+
+    @Override
+    public void recordWish(String campus, String title) {
+        record(KIND_WANTED, campus, title, WISH_SCORE);
+    }
+
+    /**
+     * 获取热门排行，读取定时计算好的结果，不访问数据库
+     * @param campus 校区，为空表示全部校区
+     * @param limit 每类返回的数量
+     * @return 排行类型 -> 书名和热度列表
+     */
+    @Override
+    public Map<String, List<Map<String, Object>>> getTrending(String campus, int limit) {
+        Map<String, List<Map<String, Object>>> ranking = rankings.get()
+                .getOrDefault(StringUtils.hasText(campus) ? campus : ALL_CAMPUS, Map.of());
+        Map<String, List<Map<String, Object>>> result = new LinkedHashMap<>();
+        for (String kind : List.of(KIND_OFFERED, KIND_WANTED)) {
+            List<Map<String, Object>> items = ranking.getOrDefault(kind, List.of());
+            result.put(kind, items.subList(0, Math.min(Math.max(limit, 0), items.size())));
+        }
+        return result;
+    }
+
+    /**
+     * 重新计算热门排行
+     * 越早的分桶权重越低，每过一个半衰期权重减半
+     */
+    @Override
+    @Scheduled(initialDelay = 10_000, fixedDelayString = "${book.trending.refresh-interval:60000}")
+    public void refresh() {
+        try {
+            long currentHour = currentHour();
+            double[] weights = new double[WINDOW_HOURS];
+            for (int i = 0; i < WINDOW_HOURS; i++) {
+                weights[i] = Math.pow(0.5, i / HALF_LIFE_HOURS);
+            }
+
+            List<String> campuses = new ArrayList<>();
+            for (Object campus : redisService.getSetMembers(CAMPUS_KEY)) {
+                campuses.add(campus.toString());
+            }
+            campuses.add(ALL_CAMPUS);
+
+            Map<String, Map<String, List<Map<String, Object>>>> next = new HashMap<>();
+            for (String campus : campuses) {
+                Map<String, List<Map<String, Object>>> byKind = new HashMap<>();
+                for (String kind : List.of(KIND_OFFERED, KIND_WANTED)) {
+                    List<String> keys = new ArrayList<>(WINDOW_HOURS);
+                    for (int i = 0; i < WINDOW_HOURS; i++) {
+                        keys.add(bucketKey(kind, campus, currentHour - i));
+                    }
+                    String resultKey = KEY_PREFIX + kind + ":" + campus + ":ranking";
+                    redisService.unionZSets(resultKey, keys, weights);
+                    byKind.put(kind, toRanking(redisService.getZSetTop(resultKey, TOP_N)));
+                }
+                next.put(campus, byKind);
+            }
+            rankings.set(next);
+            if (lastPrunedHour != currentHour) {
+                pruneTitles();
+                lastPrunedHour = currentHour;
+            }
+        } catch (Exception e) {
+            // 刷新失败时继续使用上一次的排行
+            log.error("热门排行刷新失败", e);
+        }
+    }
+
+    /**
+     * 同时计入书籍所在校区和全部校区的当前小时分桶
+     * 所有写入通过管道在一次往返中完成
+     */
+    private void record(String kind, String campus, String title, double score) {
+        String member = TitleNormalizer.normalize(title);
+        if (member.isEmpty()) {
+            return;
+        }
+        try {
+            long hour = currentHour();
+            // 分桶只在计算窗口内有用，之后自动过期
+            long expireHours = WINDOW_HOURS + 1;
+            boolean hasCampus = StringUtils.hasText(campus);
+            boolean newCampus = hasCampus && !knownCampuses.contains(campus);
+            redisService.executePipelined(operations -> {
+                List<String> keys = new ArrayList<>(2);
+                keys.add(bucketKey(kind, ALL_CAMPUS, hour));
+                if (hasCampus) {
+                    keys.add(bucketKey(kind, campus, hour));
+                }
+                for (String key : keys) {
+                    operations.opsForZSet().incrementScore(key, member, score);
+                    operations.expire(key, expireHours, TimeUnit.HOURS);
+                }
+                if (newCampus) {
+                    operations.opsForSet().add(CAMPUS_KEY, campus);
+                }
+                operations.opsForHash().put(TITLE_KEY, member, title.trim());
+            });
+            if (newCampus) {
+                knownCampuses.add(campus);
+            }
+        } catch (Exception e) {
+            // 热度统计失败不影响正常业务
+            log.warn("记录书籍热度失败: {} {} {}", kind, campus, title, e);
+        }
+    }
+
+    /**
+     * 删除计算窗口内没有出现过的书名，避免书名哈希无限增长
+     * 全部校区的排行包含窗口内的所有书名，刚被清理的书名在下次记录时会重新写入
+     */
+    private void pruneTitles() {
+        Set<Object> live = new HashSet<>();
+        for (String kind : List.of(KIND_OFFERED, KIND_WANTED)) {
+            for (ZSetOperations.TypedTuple<Object> tuple
+                    : redisService.getZSetRangeDesc(KEY_PREFIX + kind + ":" + ALL_CAMPUS + ":ranking", 0, -1)) {
+                live.add(tuple.getValue());
+            }
+        }
+        // 当前小时的分桶可能在合并之后又写入了新书名
+        for (String kind : List.of(KIND_OFFERED, KIND_WANTED)) {
+            for (ZSetOperations.TypedTuple<Object> tuple
+                    : redisService.getZSetRangeDesc(bucketKey(kind, ALL_CAMPUS, currentHour()), 0, -1)) {
+                live.add(tuple.getValue());
+            }
+        }
+        List<Object> stale = new ArrayList<>();
+        for (Object member : redisService.getHashEntries(TITLE_KEY).keySet()) {
+            if (!live.contains(member)) {
+                stale.add(member);
+            }
+        }
+        if (!stale.isEmpty()) {
+            redisService.deleteHashKeys(TITLE_KEY, stale.toArray());
+            log.info("已清理 {} 个不在热门统计窗口内的书名", stale.size());
+        }
+    }
+
+    private List<Map<String, Object>> toRanking(Iterable<ZSetOperations.TypedTuple<Object>> tuples) {
+        List<Map<String, Object>> ranking = new ArrayList<>();
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            Object title = redisService.getHashValue(TITLE_KEY, tuple.getValue());
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("title", title != null ? title : tuple.getValue());
+            item.put("score", tuple.getScore() == null ? 0 : Math.round(tuple.getScore() * 100) / 100.0);
+            ranking.add(item);
+        }
+        return ranking;
+    }
+
+    private static String bucketKey(String kind, String campus, long hour) {
+        return KEY_PREFIX + kind + ":" + campus + ":" + hour;
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / TimeUnit.HOURS.toMillis(1);
+    }
+}
@@ -0,0 +1,349 @@
+package org.example.baozi.book.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.UploadTask;
+import org.example.baozi.book.mapper.UploadTaskMapper;
+import org.example.baozi.book.service.BookService;
+import org.example.baozi.book.service.SealedBookService;
+import org.example.baozi.book.service.UploadTaskService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步上传任务服务实现类
+ * 上传的图片和参数先写入本地暂存目录并刷盘，保证进程重启后任务不丢失；
+ * 有界队列的工作线程负责写库，队列满时直接拒绝新的上传，实现背压
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadTaskServiceImpl implements UploadTaskService {
+
+    private final BookService bookService;
+    private final SealedBookService sealedBookService;
+    private final RedisServiceImpl redisService;
+    private final TransactionTemplate transactionTemplate;
+    private final UploadTaskMapper uploadTaskMapper;
+
+    @Value("${book.upload.staging-dir:upload-staging}")
+    private String stagingDir;
+
+    // Redis键前缀
+    private static final String TASK_KEY = "upload:task:";
+    private static final long TASK_EXPIRE = 24 * 60 * 60; // 24小时
+
+    // 工作线程与队列大小
+    private static final int WORKER_THREADS = 4;
+    private static final int QUEUE_CAPACITY = 200;
+    // 恢复任务时队列已满的重试间隔
+    private static final long RESUBMIT_RETRY_MILLIS = 200;
+
+    // 任务状态
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String IMAGE_SUFFIX = ".img";
+    private static final String META_SUFFIX = ".properties";
+
+    private Path stagingPath;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        stagingPath = Paths.get(stagingDir);
+        Files.createDirectories(stagingPath);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> new Thread(r, "upload-worker-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.prestartAllCoreThreads();
+
+        // 恢复上次未处理完的暂存任务，先在启动时确定任务列表，避免和新上传的任务重复
+        List<String> stagedTasks = listStagedTasks();
+        if (!stagedTasks.isEmpty()) {
+            log.info("恢复暂存的上传任务 {} 个", stagedTasks.size());
+            Thread recovery = new Thread(() -> resubmit(stagedTasks), "upload-recovery");
+            recovery.setDaemon(true);
+            recovery.start();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        // 未处理的任务仍在暂存目录中，下次启动时恢复
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 受理待售书籍上传
+     * @param studentId 学号
+     * @param campus 校区
+     * @param bookImage 书籍图片
+     * @param weight 书籍重量
+     * @return 任务ID，处理队列已满时返回null
+     * @throws IOException 如果暂存图片失败
+     */
+    @Override
+    public String submitSealedUpload(String studentId, String campus, MultipartFile bookImage, Double weight) throws IOException {
+        // 队列已满时不再暂存，尽早拒绝
+        if (executor.getQueue().remainingCapacity() == 0) {
+            log.warn("上传处理队列已满，拒绝学生 {} 的上传", studentId);
+            return null;
+        }
+
+        String taskId = UUID.randomUUID().toString().replace("-", "");
+
+        // 先写图片，再写元数据；元数据文件存在即表示暂存完整
+        boolean hasImage = bookImage != null && !bookImage.isEmpty();
+        if (hasImage) {
+            try (InputStream in = bookImage.getInputStream()) {
+                writeDurably(stagingPath.resolve(taskId + IMAGE_SUFFIX), in);
+            }
+        }
+        Properties meta = new Properties();
+        meta.setProperty("studentId", studentId);
+        meta.setProperty("campus", campus == null ? "" : campus);
+        meta.setProperty("weight", String.valueOf(weight));
+        meta.setProperty("hasImage", String.valueOf(hasImage));
+        writeMeta(taskId, meta);
+
+        updateStatus(taskId, studentId, STATUS_PENDING, null);
+
+        try {
+            executor.execute(() -> process(taskId));
+        } catch (RejectedExecutionException e) {
+            log.warn("上传处理队列已满，拒绝任务 {}", taskId);
+            deleteStaged(taskId);
+            redisService.deleteValue(TASK_KEY + taskId);
+            return null;
+        }
+
+        return taskId;
+    }
+
+    /**
+     * 查询任务状态
+     * @param taskId 任务ID
+     * @param studentId 学号，只能查询自己的任务
+     * @return 任务状态信息，任务不存在时返回null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getTaskStatus(String taskId, String studentId) {
+        Object value = redisService.getValue(TASK_KEY + taskId);
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<String, Object> status = (Map<String, Object>) value;
+        if (!studentId.equals(status.get("studentId"))) {
+            return null;
+        }
+        return status;
+    }
+
+    /**
+     * 处理暂存的上传任务：写入书籍、待售书籍和订单
+     * 任务ID与书籍和订单在同一事务中写入upload_task，重启恢复时已写入的任务不会重复创建
+     * @param taskId 任务ID
+     */
+    private void process(String taskId) {
+        Properties meta;
+        try {
+            meta = readMeta(taskId);
+        } catch (IOException e) {
+            log.error("读取暂存任务失败: {}", taskId, e);
+            failUnreadable(taskId);
+            return;
+        }
+        String studentId = meta.getProperty("studentId");
+
+        // 重启恢复时，已完成的任务只需清理暂存文件
+        Map<String, Object> current = getTaskStatus(taskId, studentId);
+        if (current != null && STATUS_DONE.equals(current.get("status"))) {
+            deleteStaged(taskId);
+            return;
+        }
+
+        try {
+            updateStatus(taskId, studentId, STATUS_PROCESSING, null);
+            byte[] image = Boolean.parseBoolean(meta.getProperty("hasImage"))
+                    ? Files.readAllBytes(stagingPath.resolve(taskId + IMAGE_SUFFIX))
+                    : null;
+            String campus = meta.getProperty("campus");
+            Double weight = Double.valueOf(meta.getProperty("weight"));
+
+            UploadTask task;
+            try {
+                task = transactionTemplate.execute(status -> {
+                    UploadTask processed = uploadTaskMapper.selectById(taskId);
+                    if (processed != null) {
+                        return processed;
+                    }
+                    Long bookId = bookService.createBook(studentId, campus, image);
+                    Integer sealedBookId = sealedBookService.addSealedBook(bookId, weight);
+                    Integer orderId = sealedBookService.createSealedOrder(sealedBookId);
+
+                    UploadTask created = new UploadTask();
+                    created.setTaskId(taskId);
+                    created.setSealedBookId(sealedBookId);
+                    created.setOrderId(orderId);
+                    uploadTaskMapper.insert(created);
+                    return created;
+                });
+            } catch (DuplicateKeyException e) {
+                // 同一任务被并发处理，另一次已经提交
+                task = uploadTaskMapper.selectById(taskId);
+                if (task == null) {
+                    throw e;
+                }
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("sealedBookId", task.getSealedBookId());
+            result.put("orderId", task.getOrderId());
+            updateStatus(taskId, studentId, STATUS_DONE, result);
+            log.info("上传任务 {} 处理完成: {}", taskId, result);
+        } catch (Exception e) {
+            log.error("上传任务 {} 处理失败", taskId, e);
+            Map<String, Object> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            try {
+                updateStatus(taskId, studentId, STATUS_FAILED, error);
+            } catch (Exception statusError) {
+                // 保留暂存文件，下次启动时重试；已写入数据库的任务不会重复创建
+                log.error("更新上传任务 {} 状态失败", taskId, statusError);
+                return;
+            }
+        }
+        deleteStaged(taskId);
+    }
+
+    /**
+     * 暂存的元数据无法读取：按受理时记录的学号把任务标记为失败，并清理暂存文件
+     */
+    private void failUnreadable(String taskId) {
+        try {
+            if (redisService.getValue(TASK_KEY + taskId) instanceof Map<?, ?> current) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("message", "暂存的上传内容已损坏");
+                updateStatus(taskId, String.valueOf(current.get("studentId")), STATUS_FAILED, error);
+            }
+        } catch (Exception e) {
+            log.error("更新上传任务 {} 状态失败", taskId, e);
+        }
+        deleteStaged(taskId);
+    }
+
+    /**
+     * 扫描暂存目录，找出上次未处理完的任务
+     * @return 任务ID列表
+     */
+    private List<String> listStagedTasks() throws IOException {
+        List<String> taskIds = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(stagingPath, "*" + META_SUFFIX)) {
+            for (Path metaFile : stream) {
+                String fileName = metaFile.getFileName().toString();
+                taskIds.add(fileName.substring(0, fileName.length() - META_SUFFIX.length()));
+            }
+        }
+        return taskIds;
+    }
+
+    /**
+     * 重新提交暂存任务，队列满时等待工作线程腾出空间后重试
+     * @param taskIds 任务ID列表
+     */
+    private void resubmit(List<String> taskIds) {
+        try {
+            for (String taskId : taskIds) {
+                while (true) {
+                    try {
+                        executor.execute(() -> process(taskId));
+                        break;
+                    } catch (RejectedExecutionException e) {
+                        if (executor.isShutdown()) {
+                            return;
+                        }
+                        Thread.sleep(RESUBMIT_RETRY_MILLIS);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 更新任务状态
+     */
+    private void updateStatus(String taskId, String studentId, String status, Map<String, Object> extra) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("taskId", taskId);
+        value.put("studentId", studentId);
+        value.put("status", status);
+        if (extra != null) {
+            value.putAll(extra);
+        }
+        redisService.setValueWithExpire(TASK_KEY + taskId, value, TASK_EXPIRE, TimeUnit.SECONDS);
+    }
+
+    private void writeMeta(String taskId, Properties meta) throws IOException {
+        Path temp = stagingPath.resolve(taskId + META_SUFFIX + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            meta.store(out, null);
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, stagingPath.resolve(taskId + META_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Properties readMeta(String taskId) throws IOException {
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(stagingPath.resolve(taskId + META_SUFFIX))) {
+            meta.load(in);
+        }
+        return meta;
+    }
+
+    private void writeDurably(Path target, InputStream in) throws IOException {
+        Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private void deleteStaged(String taskId) {
+        try {
+            Files.deleteIfExists(stagingPath.resolve(taskId + META_SUFFIX));
+            Files.deleteIfExists(stagingPath.resolve(taskId + IMAGE_SUFFIX));
+        } catch (IOException e) {
+            log.warn("删除暂存文件失败: {}", taskId, e);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.baozi.book.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.baozi.book.entity.Notification;
+import org.example.baozi.book.entity.RecyclableBook;
+import org.example.baozi.book.entity.Wish;
+import org.example.baozi.book.mapper.WishMapper;
+import org.example.baozi.book.service.NotificationService;
+import org.example.baozi.book.service.WishService;
+import org.example.baozi.book.util.TitleNormalizer;
+import org.example.baozi.book.util.TransactionUtil;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 求书心愿服务实现类
+ * 等待中的心愿按规范化书名建立内存索引，新书发布时只查找同名的心愿，
+ * 匹配代价与匹配到的心愿数量成正比，与心愿总数无关
+ * 心愿登记和关闭后通过Redis频道通知各节点，各节点从数据库读取心愿的最新状态更新自己的索引
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WishServiceImpl extends ServiceImpl<WishMapper, Wish> implements WishService, MessageListener {
+
+    private static final String CHANNEL = RedisServiceImpl.KEY_PREFIX_BOOK + "wish-changed";
+
+    private final NotificationService notificationService;
+    private final RedisServiceImpl redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // 心愿状态
+    private static final int STATUS_OPEN = 0;
+    private static final int STATUS_CLOSED = 1;
+    // 每个学生最多同时登记的心愿数量
+    private static final int MAX_OPEN_WISHES = 20;
+    private static final String NOTIFICATION_TYPE = "WISH_MATCH";
+
+    /**
+     * 规范化书名 -> (心愿ID -> 心愿)
+     */
+    private final Map<String, Map<Integer, Wish>> index = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void loadIndex() {
+        List<Wish> wishes = list(new LambdaQueryWrapper<Wish>().eq(Wish::getStatus, STATUS_OPEN));
+        wishes.forEach(this::indexWish);
+        log.info("心愿索引加载完成，共 {} 条", wishes.size());
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 收到其他节点（包括本节点）心愿变化的通知，按数据库中的状态更新索引
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            if (redisService.deserializeMessage(message.getBody()) instanceof Number id) {
+                refreshLocal(id.intValue());
+            }
+        } catch (Exception e) {
+            log.warn("心愿变化消息处理失败", e);
+        }
+    }
+
+    /**
+     * 登记心愿
+     * @param studentId 学生学号
+     * @param title 书名
+     * @param publisher 出版商（可选）
+     * @param edition 印刷版次（可选）
+     * @return 心愿ID，等待中的心愿数量已达上限时返回-1
+     */
+    @Override
+    public Integer addWish(String studentId, String title, String publisher, String edition) {
+        long open = count(new LambdaQueryWrapper<Wish>()
+                .eq(Wish::getStudentId, studentId)
+                .eq(Wish::getStatus, STATUS_OPEN));
+        if (open >= MAX_OPEN_WISHES) {
+            return -1;
+        }
+
+        Wish wish = new Wish();
+        wish.setStudentId(studentId);
+        wish.setTitle(title);
+        wish.setPublisher(publisher);
+        wish.setEdition(edition);
+        wish.setStatus(STATUS_OPEN);
+        save(wish);
+
+        indexWish(wish);
+        broadcast(wish.getId());
+        return wish.getId();
+    }
+
+    /**
+     * 获取学生的心愿列表
+     * @param studentId 学生学号
+     * @return 心愿列表
+     */
+    @Override
+    public List<Wish> getWishes(String studentId) {
+        return list(new LambdaQueryWrapper<Wish>()
+                .eq(Wish::getStudentId, studentId)
+                .orderByAsc(Wish::getStatus)
+                .orderByDesc(Wish::getId));
+    }
+
+    /**
+     * 关闭心愿，不再接收通知
+     * @param studentId 学生学号
+     * @param id 心愿ID
+     * @return 是否成功
+     */
+    @Override
+    public boolean closeWish(String studentId, Integer id) {
+        Wish wish = getById(id);
+        if (wish == null || !wish.getStudentId().equals(studentId) || wish.getStatus() != STATUS_OPEN) {
+            return false;
+        }
+        wish.setStatus(STATUS_CLOSED);
+        if (!updateById(wish)) {
+            return false;
+        }
+
+        unindexWish(wish);
+        broadcast(id);
+        return true;
+    }
+
+    /**
+     * 将新发布的可回收书籍与等待中的心愿匹配，并通知心愿登记者，存在事务时在事务提交后执行
+     * @param books 新发布的可回收书籍
+     * @param ownerId 发布者学号，不通知发布者本人
+     */
+    @Override
+    public void matchNewBooks(Collection<RecyclableBook> books, String ownerId) {
+        TransactionUtil.afterCommit(() -> {
+            List<Notification> notifications = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (RecyclableBook book : books) {
+                    Map<Integer, Wish> wishes = index.get(TitleNormalizer.normalize(book.getBookTitle()));
+                    if (wishes == null) {
+                        continue;
+                    }
+                    for (Wish wish : wishes.values()) {
+                        if (!Objects.equals(wish.getStudentId(), ownerId) && matches(wish, book)) {
+                            notifications.add(notification(wish, book));
+                        }
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            try {
+                notificationService.send(notifications);
+            } catch (Exception e) {
+                log.error("发送心愿匹配通知失败", e);
+            }
+        });
+    }
+
+    /**
+     * 通知各节点心愿已变化，存在事务时在事务提交后发送，发送失败时只更新本节点
+     */
+    private void broadcast(Integer id) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisService.publish(CHANNEL, id);
+            } catch (Exception e) {
+                log.warn("心愿变化通知发送失败: {}", id, e);
+                refreshLocal(id);
+            }
+        });
+    }
+
+    /**
+     * 按数据库中的最新状态更新本节点的索引
+     */
+    private void refreshLocal(Integer id) {
+        Wish wish = getById(id);
+        if (wish == null) {
+            return;
+        }
+        if (wish.getStatus() == STATUS_OPEN) {
+            indexWish(wish);
+        } else {
+            unindexWish(wish);
+        }
+    }
+
+    private void unindexWish(Wish wish) {
+        String key = TitleNormalizer.normalize(wish.getTitle());
+        lock.writeLock().lock();
+        try {
+            Map<Integer, Wish> wishes = index.get(key);
+            if (wishes != null) {
+                wishes.remove(wish.getId());
+                if (wishes.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexWish(Wish wish) {
+        String key = TitleNormalizer.normalize(wish.getTitle());
+        if (key.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.computeIfAbsent(key, k -> new HashMap<>()).put(wish.getId(), wish);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 书名已相同，再检查心愿中填写了的出版商和版次
+     */
+    private boolean matches(Wish wish, RecyclableBook book) {
+        return optionalFieldMatches(wish.getPublisher(), book.getPublisher())
+                && optionalFieldMatches(wish.getEdition(), book.getPrintingEdition());
+    }
+
+    private boolean optionalFieldMatches(String wanted, String actual) {
+        if (!StringUtils.hasText(wanted)) {
+            return true;
+        }
+        return TitleNormalizer.normalize(actual).contains(TitleNormalizer.normalize(wanted));
+    }
+
+    private Notification notification(Wish wish, RecyclableBook book) {
+        Notification notification = new Notification();
+        notification.setUserId(wish.getStudentId());
+        notification.setType(NOTIFICATION_TYPE);
+        notification.setContent("你想要的《" + wish.getTitle() + "》已有同学发布，快去看看吧");
+        notification.setRelatedId(book.getRId().longValue());
+        return notification;
+    }
+}
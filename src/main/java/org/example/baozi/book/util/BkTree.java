@@ -0,0 +1,132 @@
+package org.example.baozi.book.util;
+
+import java.util.*;
+
+/**
+ * 基于汉明距离的BK树
+ * 用于在大量64位感知哈希中查找与给定哈希距离不超过阈值的条目，
+ * 利用三角不等式剪枝，查询时只需访问少量节点
+ * 非线程安全，由调用方加锁
+ * @param <V> 附加在哈希上的数据类型
+ */
+public class BkTree<V> {
+
+    private Node<V> root;
+    private int size;
+
+    /**
+     * 查询结果
+     * @param hash 哈希值
+     * @param value 附加数据
+     * @param distance 与查询哈希的距离
+     */
+    public record Match<V>(long hash, V value, int distance) {
+    }
+
+    /**
+     * 添加一个条目，相同的哈希和附加数据已存在时不重复添加
+     * @param hash 哈希值
+     * @param value 附加数据
+     * @return 是否添加了新条目
+     */
+    public boolean add(long hash, V value) {
+        if (root == null) {
+            root = new Node<>(hash, value);
+            size++;
+            return true;
+        }
+        Node<V> node = root;
+        while (true) {
+            int distance = PerceptualHash.distance(node.hash, hash);
+            if (distance == 0) {
+                // 完全相同的哈希挂在同一节点上
+                if (node.values.contains(value)) {
+                    return false;
+                }
+                node.values.add(value);
+                size++;
+                return true;
+            }
+            Node<V> child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node<>(hash, value));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * 移除一个条目
+     * 节点本身保留在树中作为路径，只移除其上的数据，不影响其他条目的查找
+     * @param hash 哈希值
+     * @param value 附加数据
+     * @return 条目是否存在
+     */
+    public boolean remove(long hash, V value) {
+        Node<V> node = root;
+        while (node != null) {
+            int distance = PerceptualHash.distance(node.hash, hash);
+            if (distance == 0) {
+                if (node.values.remove(value)) {
+                    size--;
+                    return true;
+                }
+                return false;
+            }
+            node = node.children.get(distance);
+        }
+        return false;
+    }
+
+    /**
+     * 查找距离不超过阈值的所有条目，按距离从小到大排序
+     * @param hash 查询的哈希值
+     * @param maxDistance 最大汉明距离
+     * @return 匹配的条目
+     */
+    public List<Match<V>> search(long hash, int maxDistance) {
+        List<Match<V>> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node<V>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<V> node = stack.pop();
+            int distance = PerceptualHash.distance(node.hash, hash);
+            if (distance <= maxDistance) {
+                for (V value : node.values) {
+                    matches.add(new Match<>(node.hash, value, distance));
+                }
+            }
+            // 只有距离在[d-max, d+max]范围内的子树可能包含结果
+            for (Map.Entry<Integer, Node<V>> entry : node.children.entrySet()) {
+                if (Math.abs(entry.getKey() - distance) <= maxDistance) {
+                    stack.push(entry.getValue());
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance));
+        return matches;
+    }
+
+    /**
+     * @return 条目数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<V> {
+        private final long hash;
+        private final List<V> values = new ArrayList<>(1);
+        private final Map<Integer, Node<V>> children = new HashMap<>(4);
+
+        Node(long hash, V value) {
+            this.hash = hash;
+            this.values.add(value);
+        }
+    }
+}
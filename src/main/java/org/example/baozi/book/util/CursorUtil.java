@@ -0,0 +1,96 @@
+package org.example.baozi.book.util;
+
+import org.example.baozi.book.response.PageResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页工具类
+ * 游标记录上一页最后一条数据的 (create_time, id)，下一页从该位置之后继续查询，
+ * 查询代价与页数无关，不会像OFFSET那样越往后越慢
+ * 游标对前端是不透明的字符串，前端只需原样传回
+ */
+public class CursorUtil {
+
+    /**
+     * 游标位置
+     * @param createTime 上一页最后一条数据的创建时间，为null表示从第一页开始
+     * @param id 上一页最后一条数据的ID
+     */
+    public record Cursor(LocalDateTime createTime, Long id) {
+    }
+
+    /**
+     * 每页最多条数
+     */
+    public static final int MAX_SIZE = 100;
+
+    private static final Cursor FIRST = new Cursor(null, null);
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 生成游标
+     * @param createTime 创建时间
+     * @param id ID
+     * @return 游标字符串
+     */
+    public static String encode(LocalDateTime createTime, Long id) {
+        String raw = createTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     * @param cursor 游标字符串，为空表示从第一页开始
+     * @return 游标位置
+     * @throws InvalidRequestException 游标格式错误
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.indexOf(SEPARATOR);
+            return new Cursor(LocalDateTime.parse(raw.substring(0, index)), Long.parseLong(raw.substring(index + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidRequestException("分页游标无效");
+        }
+    }
+
+    /**
+     * 把每页条数限制在 [1, MAX_SIZE] 内，避免查询条数为0或负数
+     * @param size 请求的每页条数，为空时取1
+     * @return 实际使用的每页条数
+     */
+    public static int clampSize(Integer size) {
+        return size == null ? 1 : Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * 将按 (create_time, id) 倒序查询的结果转换为游标分页结果
+     * 查询时应多取一条（size + 1），用于判断是否还有下一页
+     * @param rows 查询结果
+     * @param size 每页条数
+     * @param total 总记录数，未知时传-1
+     * @param createTime 获取创建时间
+     * @param id 获取ID
+     * @return 分页结果，没有下一页时nextCursor为null
+     */
+    public static <T> PageResult<T> toPageResult(List<T> rows, int size, long total,
+                                                 Function<T, LocalDateTime> createTime, Function<T, ? extends Number> id) {
+        String nextCursor = null;
+        List<T> data = rows;
+        if (size > 0 && rows.size() > size) {
+            data = rows.subList(0, size);
+            T last = data.get(size - 1);
+            nextCursor = encode(createTime.apply(last), id.apply(last).longValue());
+        }
+        return new PageResult<>(data, total, size, nextCursor);
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.baozi.book.util;
+
+import java.text.Normalizer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 宿舍地址工具类
+ * 从“10栋305”“东区3号楼-402”“C3-402”这类宿舍地址中取出楼栋，用于把同一栋楼的订单归为一组
+ */
+public class DormitoryUtil {
+
+    /**
+     * 未填写宿舍或无法识别时的楼栋
+     */
+    public static final String UNKNOWN_BUILDING = "未知";
+
+    // 到第一个楼栋标记为止，如“东区3号楼”“10栋”
+    private static final Pattern BUILDING_PATTERN = Pattern.compile("^(.*?(?:号楼|栋|幢|楼|座))");
+
+    // 没有楼栋标记时末尾的房间号，如“C3-402”中的“-402”
+    private static final Pattern ROOM_PATTERN = Pattern.compile("[\\s\\-_#/]*\\d+[a-zA-Z]?(?:室|房|号)?$");
+
+    /**
+     * 取出宿舍地址中的楼栋
+     * @param dormitory 宿舍地址
+     * @return 楼栋，无法识别时返回 {@link #UNKNOWN_BUILDING}
+     */
+    public static String building(String dormitory) {
+        if (dormitory == null || dormitory.isBlank()) {
+            return UNKNOWN_BUILDING;
+        }
+        String text = Normalizer.normalize(dormitory.trim(), Normalizer.Form.NFKC);
+        Matcher matcher = BUILDING_PATTERN.matcher(text);
+        if (matcher.find()) {
+            return matcher.group(1).replaceAll("\\s+", "");
+        }
+        String building = ROOM_PATTERN.matcher(text).replaceFirst("").trim();
+        return building.isEmpty() ? text : building;
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.baozi.book.util;
+
+import org.example.baozi.book.response.PageResult;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 列表字段投影（稀疏字段集）
+ * 客户端通过fields参数指定需要的属性，SQL只查询对应的列，响应只序列化这些属性，
+ * 适合移动端只展示书名和封面这类精简列表
+ * 可选的属性和对应的列由 {@link Definition} 白名单给出，列表达式只来自白名单，可以直接拼接到SQL中
+ * 同一组字段的投影只解析一次，之后从缓存中获取
+ * @param <T> 列表数据类型
+ */
+public final class FieldProjection<T> {
+
+    /**
+     * 每个定义最多缓存的字段组合数量
+     */
+    private static final int MAX_CACHED = 256;
+
+    private record Field<T>(String name, String column, Function<T, Object> getter) {
+    }
+
+    /**
+     * 可投影字段的白名单
+     * @param <T> 列表数据类型
+     */
+    public static final class Definition<T> {
+        private final Map<String, Field<T>> fields = new LinkedHashMap<>();
+        private final Set<String> required = new LinkedHashSet<>();
+        private final Map<String, FieldProjection<T>> cache = new ConcurrentHashMap<>();
+
+        /**
+         * 添加可投影字段
+         * @param name 响应中的属性名
+         * @param column SQL中的列表达式，需带上别名
+         * @param getter 读取属性值
+         * @return 当前定义
+         */
+        public Definition<T> field(String name, String column, Function<T, Object> getter) {
+            fields.put(name, new Field<>(name, column, getter));
+            return this;
+        }
+
+        /**
+         * 设置必须查询的字段，如分页游标和排序需要的列，这些字段未被请求时不会序列化
+         * @param names 属性名
+         * @return 当前定义
+         */
+        public Definition<T> required(String... names) {
+            for (String name : names) {
+                if (!fields.containsKey(name)) {
+                    throw new IllegalStateException("unknown field: " + name);
+                }
+                required.add(name);
+            }
+            return this;
+        }
+
+        /**
+         * 解析fields参数
+         * @param names 逗号分隔的属性名
+         * @return 字段投影，参数为空时返回null，表示查询全部字段
+         * @throws InvalidRequestException 包含不支持的属性名
+         */
+        public FieldProjection<T> project(String names) {
+            if (!StringUtils.hasText(names)) {
+                return null;
+            }
+            FieldProjection<T> projection = cache.get(names);
+            if (projection == null) {
+                projection = parse(names);
+                if (cache.size() < MAX_CACHED) {
+                    cache.putIfAbsent(names, projection);
+                }
+            }
+            return projection;
+        }
+
+        private FieldProjection<T> parse(String names) {
+            Set<String> requested = new LinkedHashSet<>();
+            for (String name : names.split(",")) {
+                name = name.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!fields.containsKey(name)) {
+                    throw new InvalidRequestException("不支持的字段: " + name);
+                }
+                requested.add(name);
+            }
+            if (requested.isEmpty()) {
+                throw new InvalidRequestException("字段列表不能为空");
+            }
+
+            // 按定义顺序输出，保证同一组字段的查询和响应结构一致
+            List<String> columns = new ArrayList<>();
+            List<Field<T>> selected = new ArrayList<>();
+            for (Field<T> field : fields.values()) {
+                boolean wanted = requested.contains(field.name());
+                if (wanted || required.contains(field.name())) {
+                    columns.add(field.column());
+                }
+                if (wanted) {
+                    selected.add(field);
+                }
+            }
+            return new FieldProjection<>(List.copyOf(columns), List.copyOf(selected));
+        }
+    }
+
+    private final List<String> columns;
+    private final List<Field<T>> selected;
+
+    private FieldProjection(List<String> columns, List<Field<T>> selected) {
+        this.columns = columns;
+        this.selected = selected;
+    }
+
+    /**
+     * 创建字段白名单，列表数据类型由调用方指定，如 {@code FieldProjection.<BookVO>define()}
+     * @return 空的定义
+     */
+    public static <T> Definition<T> define() {
+        return new Definition<>();
+    }
+
+    /**
+     * @return 需要查询的列表达式，包含必须查询的列
+     */
+    public List<String> columns() {
+        return columns;
+    }
+
+    /**
+     * 只保留请求的属性
+     * @param row 一行数据
+     * @return 属性名 -> 属性值
+     */
+    public Map<String, Object> apply(T row) {
+        Map<String, Object> result = new LinkedHashMap<>(selected.size() * 2);
+        for (Field<T> field : selected) {
+            result.put(field.name(), field.getter().apply(row));
+        }
+        return result;
+    }
+
+    /**
+     * 只保留请求的属性
+     * @param rows 列表数据
+     * @return 投影后的列表
+     */
+    public List<Map<String, Object>> apply(List<T> rows) {
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            result.add(apply(row));
+        }
+        return result;
+    }
+
+    /**
+     * 获取投影需要查询的列
+     * @param projection 字段投影，可以为null
+     * @return 列表达式，投影为null时返回null，表示查询全部列
+     */
+    public static List<String> columns(FieldProjection<?> projection) {
+        return projection == null ? null : projection.columns();
+    }
+
+    /**
+     * 对分页结果做投影
+     * @param projection 字段投影，为null时原样返回
+     * @param page 分页结果
+     * @return 投影后的分页结果
+     */
+    public static <T> PageResult<?> apply(FieldProjection<T> projection, PageResult<T> page) {
+        if (projection == null) {
+            return page;
+        }
+        PageResult<Map<String, Object>> result = new PageResult<>(projection.apply(page.getData()),
+                page.getTotal(), page.getPageSize(), page.getCurrentPage());
+        result.setNextCursor(page.getNextCursor());
+        return result;
+    }
+
+    /**
+     * 对列表做投影
+     * @param projection 字段投影，为null时原样返回
+     * @param rows 列表数据
+     * @return 投影后的列表
+     */
+    public static <T> List<?> apply(FieldProjection<T> projection, List<T> rows) {
+        return projection == null ? rows : projection.apply(rows);
+    }
+}
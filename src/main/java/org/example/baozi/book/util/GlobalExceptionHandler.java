@@ -48,4 +48,16 @@ public class GlobalExceptionHandler {
         log.error(e.getMessage(), e);
         return ResponseMessage.error("参数不符合规范");
     }
+
+    /**
+     * 请求参数取值错误，如分页游标无效
+     * @param e
+     * @return
+     */
+    @ExceptionHandler(value = InvalidRequestException.class)
+    @ResponseBody
+    public ResponseMessage<String> handleInvalidRequestException(InvalidRequestException e) {
+        log.warn(e.getMessage());
+        return ResponseMessage.error(e.getMessage());
+    }
 }
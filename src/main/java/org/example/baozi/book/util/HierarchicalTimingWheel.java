@@ -0,0 +1,192 @@
+package org.example.baozi.book.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层时间轮
+ * 每层有wheelSize个槽，第0层每个槽对应一个tick，第i层每个槽对应wheelSize^i个tick，
+ * 到期时间较远的任务放在高层，随时间推进逐层下放到低层，最后在第0层到期
+ * 添加和取消任务都是O(1)，推进时只处理当前tick对应的槽，与任务总数无关
+ * 超出最高层范围的任务先放在最高层，下放时重新计算位置
+ * 线程安全
+ * @param <T> 任务附带的数据类型
+ */
+public class HierarchicalTimingWheel<T> {
+
+    /**
+     * 定时任务
+     * @param key 任务标识，同一标识只保留最后一次添加的任务
+     * @param deadline 到期时间（毫秒时间戳）
+     * @param payload 附带数据
+     */
+    public record Timeout<T>(String key, long deadline, T payload) {
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long startMillis;
+    // 每层一个槽对应的tick数
+    private final long[] spans;
+    // 每个槽是一个带哨兵的双向循环链表
+    private final Node<T>[][] slots;
+    private final Map<String, Node<T>> nodes = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param tickMillis 每个tick的毫秒数
+     * @param wheelSize 每层的槽数
+     * @param levels 层数
+     * @param startMillis 起始时间（毫秒时间戳）
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("invalid timing wheel: tick=" + tickMillis + ", size=" + wheelSize + ", levels=" + levels);
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.startMillis = startMillis;
+        this.spans = new long[levels];
+        this.slots = new Node[levels][wheelSize];
+        long span = 1;
+        for (int level = 0; level < levels; level++) {
+            spans[level] = span;
+            span *= wheelSize;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                slots[level][slot] = new Node<>(null, 0);
+            }
+        }
+    }
+
+    /**
+     * 添加任务，已存在相同标识的任务时替换
+     * 到期时间早于当前时间的任务在下一个tick到期
+     * @param key 任务标识
+     * @param deadline 到期时间（毫秒时间戳）
+     * @param payload 附带数据
+     */
+    public synchronized void schedule(String key, long deadline, T payload) {
+        Node<T> old = nodes.remove(key);
+        if (old != null) {
+            old.unlink();
+        }
+        long deadlineTick = Math.floorDiv(deadline - startMillis + tickMillis - 1, tickMillis);
+        Node<T> node = new Node<>(new Timeout<>(key, deadline, payload), Math.max(deadlineTick, currentTick + 1));
+        nodes.put(key, node);
+        place(node);
+    }
+
+    /**
+     * 取消任务
+     * @param key 任务标识
+     * @return 任务是否存在
+     */
+    public synchronized boolean cancel(String key) {
+        Node<T> node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        node.unlink();
+        return true;
+    }
+
+    /**
+     * 推进到指定时间
+     * @param now 当前时间（毫秒时间戳）
+     * @return 到期的任务，按到期的tick先后排列
+     */
+    public synchronized List<Timeout<T>> advance(long now) {
+        long targetTick = Math.floorDiv(now - startMillis, tickMillis);
+        List<Timeout<T>> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 先从高层往低层下放，再处理第0层到期的槽
+            for (int level = spans.length - 1; level > 0; level--) {
+                if (currentTick % spans[level] == 0) {
+                    for (Node<T> node : detach(level, (int) ((currentTick / spans[level]) % wheelSize))) {
+                        if (node.deadlineTick <= currentTick) {
+                            expire(node, expired);
+                        } else {
+                            place(node);
+                        }
+                    }
+                }
+            }
+            for (Node<T> node : detach(0, (int) (currentTick % wheelSize))) {
+                expire(node, expired);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return 未到期的任务数
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 放入剩余时间所在的最低一层：第i层的槽在任务到期前最后一次轮到时下放
+     */
+    private void place(Node<T> node) {
+        long delta = node.deadlineTick - currentTick;
+        for (int level = 0; level < spans.length; level++) {
+            if (delta < spans[level] * wheelSize) {
+                slots[level][(int) ((node.deadlineTick / spans[level]) % wheelSize)].append(node);
+                return;
+            }
+        }
+        // 超出范围：放入最高层刚轮到过的槽，一整圈后下放时重新计算
+        int top = spans.length - 1;
+        slots[top][(int) ((currentTick / spans[top]) % wheelSize)].append(node);
+    }
+
+    private List<Node<T>> detach(int level, int slot) {
+        Node<T> head = slots[level][slot];
+        List<Node<T>> result = new ArrayList<>();
+        while (head.next != head) {
+            Node<T> node = head.next;
+            node.unlink();
+            result.add(node);
+        }
+        return result;
+    }
+
+    private void expire(Node<T> node, List<Timeout<T>> expired) {
+        nodes.remove(node.timeout.key());
+        expired.add(node.timeout);
+    }
+
+    private static final class Node<T> {
+        private final Timeout<T> timeout;
+        private final long deadlineTick;
+        private Node<T> prev = this;
+        private Node<T> next = this;
+
+        Node(Timeout<T> timeout, long deadlineTick) {
+            this.timeout = timeout;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * 作为哨兵时在链表尾部添加节点
+         */
+        void append(Node<T> node) {
+            node.prev = prev;
+            node.next = this;
+            prev.next = node;
+            prev = node;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+}
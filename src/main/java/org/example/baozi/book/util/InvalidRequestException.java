@@ -0,0 +1,12 @@
+package org.example.baozi.book.util;
+
+/**
+ * 请求参数取值不合法，如分页游标无效、字段名不支持
+ * 异常信息会直接返回给客户端，只用于可以展示给用户的校验错误
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.baozi.book.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于N-gram的内存倒排索引
+ * 中文按单字和相邻两字切分，英文和数字按整词切分并转为小写，
+ * 适合书名、出版社这类短文本的关键词检索，避免数据库LIKE '%kw%'全表扫描
+ * 每个字段可以设置不同权重，检索结果按 权重×IDF 累加得分排序
+ * @param <ID> 文档ID类型
+ */
+public class NGramInvertedIndex<ID extends Comparable<ID>> {
+
+    /**
+     * 词项 -> (文档ID -> 字段权重之和)
+     */
+    private final Map<String, Map<ID, Float>> postings = new HashMap<>();
+
+    /**
+     * 文档ID -> 文档包含的词项，删除和更新时使用
+     */
+    private final Map<ID, Set<String>> documents = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 添加或更新文档
+     * @param id 文档ID
+     * @param fields 字段文本和对应的权重
+     */
+    public void put(ID id, Map<String, Float> fields) {
+        Map<String, Float> weights = new HashMap<>();
+        fields.forEach((text, weight) -> {
+            for (String token : tokenize(text, false)) {
+                weights.merge(token, weight, Float::sum);
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            weights.forEach((token, weight) -> postings.computeIfAbsent(token, k -> new HashMap<>()).put(id, weight));
+            documents.put(id, weights.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     * @param id 文档ID
+     */
+    public void remove(ID id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索包含全部关键词词项的文档
+     * @param keyword 关键词
+     * @return 按得分从高到低排序的文档ID，得分相同时ID大的（较新的）在前
+     */
+    public List<ID> search(String keyword) {
+        Set<String> tokens = tokenize(keyword, true);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            List<Map<ID, Float>> lists = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Map<ID, Float> posting = postings.get(token);
+                if (posting == null) {
+                    return List.of();
+                }
+                lists.add(posting);
+            }
+            // 从最短的倒排表开始求交集
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            Map<ID, Float> scores = new HashMap<>();
+            Map<ID, Float> shortest = lists.get(0);
+            outer:
+            for (Map.Entry<ID, Float> entry : shortest.entrySet()) {
+                ID id = entry.getKey();
+                float score = 0;
+                for (Map<ID, Float> posting : lists) {
+                    Float weight = posting.get(id);
+                    if (weight == null) {
+                        continue outer;
+                    }
+                    score += weight * idf(docCount, posting.size());
+                }
+                scores.put(id, score);
+            }
+
+            List<ID> result = new ArrayList<>(scores.keySet());
+            result.sort(Comparator.<ID, Float>comparing(scores::get).reversed()
+                    .thenComparing(Comparator.<ID>reverseOrder()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 索引中的文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(ID id) {
+        Set<String> tokens = documents.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<ID, Float> posting = postings.get(token);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private static float idf(int docCount, int docFrequency) {
+        return (float) Math.log(1.0 + (double) docCount / docFrequency);
+    }
+
+    /**
+     * 切分文本
+     * 建索引时中文同时生成单字和两字词项；查询时中文只用两字词项（单个汉字除外），
+     * 这样多字查询相当于要求相邻字符同时出现，结果更精确
+     * @param text 文本
+     * @param query 是否为查询
+     * @return 词项集合
+     */
+    static Set<String> tokenize(String text, boolean query) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase();
+        int i = 0;
+        int length = lower.length();
+        while (i < length) {
+            char c = lower.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(lower.charAt(i))) {
+                    i++;
+                }
+                addCjkTokens(lower.substring(start, i), query, tokens);
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && !isCjk(lower.charAt(i)) && Character.isLetterOrDigit(lower.charAt(i))) {
+                    i++;
+                }
+                tokens.add(lower.substring(start, i));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addCjkTokens(String run, boolean query, Set<String> tokens) {
+        if (run.length() == 1 || !query) {
+            for (int i = 0; i < run.length(); i++) {
+                tokens.add(run.substring(i, i + 1));
+            }
+        }
+        for (int i = 0; i + 1 < run.length(); i++) {
+            tokens.add(run.substring(i, i + 2));
+        }
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
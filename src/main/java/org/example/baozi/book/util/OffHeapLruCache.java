@@ -0,0 +1,238 @@
+package org.example.baozi.book.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 堆外LRU字节缓存
+ * 数据存放在DirectByteBuffer中，不占用Java堆，避免大量图片字节数组带来的GC压力
+ * 采用按字节计算的容量上限，淘汰时参考访问频率（TinyLFU思想）决定是否接纳新数据，
+ * 防止偶发的冷数据把热点数据挤出缓存
+ * @param <K> 键类型
+ */
+public class OffHeapLruCache<K> {
+
+    /**
+     * 缓存总字节上限
+     */
+    private final long maxBytes;
+
+    /**
+     * 单个条目字节上限，超过的不缓存
+     */
+    private final long maxEntryBytes;
+
+    /**
+     * 访问顺序的LinkedHashMap，头部为最久未访问的条目
+     */
+    private final LinkedHashMap<K, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * 访问频率估计
+     */
+    private final FrequencySketch sketch;
+
+    private long usedBytes;
+
+    // 统计指标
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder admissions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes 缓存总字节上限
+     * @param maxEntryBytes 单个条目字节上限
+     * @param expectedEntries 预计缓存条目数，用于确定频率统计的大小
+     */
+    public OffHeapLruCache(long maxBytes, long maxEntryBytes, int expectedEntries) {
+        if (maxBytes <= 0 || maxEntryBytes <= 0 || maxEntryBytes > maxBytes) {
+            throw new IllegalArgumentException("invalid cache size: maxBytes=" + maxBytes + ", maxEntryBytes=" + maxEntryBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.sketch = new FrequencySketch(Math.max(expectedEntries, 64));
+    }
+
+    /**
+     * 读取缓存，命中时返回堆外数据的只读视图，不拷贝到堆中
+     * 视图有独立的position，条目之后被淘汰也不影响已返回的视图
+     * @param key 键
+     * @return 缓存数据的只读视图，未命中返回null
+     */
+    public synchronized ByteBuffer get(K key) {
+        sketch.increment(key);
+        ByteBuffer buffer = entries.get(key);
+        if (buffer == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 写入缓存
+     * 空间不足时，只有新数据的访问频率高于被淘汰数据时才会接纳
+     * @param key 键
+     * @param value 数据
+     * @return 是否被缓存
+     */
+    public boolean put(K key, byte[] value) {
+        if (value == null || value.length == 0 || value.length > maxEntryBytes) {
+            return false;
+        }
+        // 堆外内存的申请和拷贝放在锁外
+        ByteBuffer buffer = ByteBuffer.allocateDirect(value.length);
+        buffer.put(value).flip();
+
+        synchronized (this) {
+            ByteBuffer old = entries.get(key);
+            long oldBytes = old == null ? 0 : old.capacity();
+
+            // 先确定需要淘汰的全部数据，全部通过接纳检查后才真正移除，被拒绝时原有缓存保持不变
+            int candidateFrequency = sketch.frequency(key);
+            List<K> victims = new ArrayList<>();
+            long freed = 0;
+            // 遍历entrySet不改变访问顺序，不能在循环中调用get
+            Iterator<Map.Entry<K, ByteBuffer>> iterator = entries.entrySet().iterator();
+            while (usedBytes - oldBytes - freed + value.length > maxBytes && iterator.hasNext()) {
+                Map.Entry<K, ByteBuffer> entry = iterator.next();
+                K victim = entry.getKey();
+                if (victim.equals(key)) {
+                    continue;
+                }
+                // 新数据不比最久未访问的数据更热，则拒绝接纳
+                if (candidateFrequency <= sketch.frequency(victim)) {
+                    rejections.increment();
+                    return false;
+                }
+                victims.add(victim);
+                freed += entry.getValue().capacity();
+            }
+
+            for (K victim : victims) {
+                usedBytes -= entries.remove(victim).capacity();
+                evictions.increment();
+            }
+            entries.put(key, buffer);
+            usedBytes += value.length - oldBytes;
+            admissions.increment();
+            return true;
+        }
+    }
+
+    /**
+     * 移除缓存
+     * @param key 键
+     */
+    public synchronized void invalidate(K key) {
+        ByteBuffer old = entries.remove(key);
+        if (old != null) {
+            usedBytes -= old.capacity();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * 获取缓存统计信息
+     * @return 命中率、容量使用等指标
+     */
+    public synchronized Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requestCount = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("usedBytes", usedBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", requestCount == 0 ? 0.0 : (double) hitCount / requestCount);
+        stats.put("admissions", admissions.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    /**
+     * 基于Count-Min Sketch的访问频率估计
+     * 计数达到采样上限后整体减半，使频率能随时间衰减
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(expectedEntries * 4 - 1) << 1;
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = width * 10;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int index = indexOf(hash, i);
+                if (table[i][index] < MAX_COUNT) {
+                    table[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int min = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, table[i][indexOf(hash, i)]);
+            }
+            return min;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = (byte) (row[j] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int h) {
+            h ^= h >>> 16;
+            h *= 0x45D9F3B;
+            return h ^ (h >>> 16);
+        }
+    }
+}
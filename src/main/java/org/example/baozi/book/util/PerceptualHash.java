@@ -0,0 +1,71 @@
+package org.example.baozi.book.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * 图片感知哈希工具类
+ * 使用差值哈希（dHash）：缩放为9x8灰度图，比较每行相邻像素的亮度，得到64位指纹
+ * 同一张图片经过压缩、缩放、轻微调色后指纹基本不变，可用汉明距离判断图片是否相似
+ */
+@Slf4j
+public class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+
+    /**
+     * 计算图片的差值哈希
+     * @param imageData 图片数据
+     * @return 64位哈希值，无法解析图片时返回null
+     */
+    public static Long dHash(byte[] imageData) {
+        if (imageData == null || imageData.length == 0) {
+            return null;
+        }
+
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(imageData));
+        } catch (IOException e) {
+            log.warn("图片解析失败: {}", e.getMessage());
+            return null;
+        }
+        if (image == null) {
+            return null;
+        }
+
+        // 缩放为9x8灰度图
+        BufferedImage gray = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, WIDTH, HEIGHT, null);
+        graphics.dispose();
+
+        // 左侧像素比右侧亮则记为1
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int left = gray.getRaster().getSample(x, y, 0);
+                int right = gray.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 计算两个哈希值的汉明距离
+     * @param a 哈希值
+     * @param b 哈希值
+     * @return 不同的位数
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
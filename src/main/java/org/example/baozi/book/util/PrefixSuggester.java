@@ -0,0 +1,103 @@
+package org.example.baozi.book.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 前缀联想词典
+ * 基于字典树，每个节点在构建时预先保存该前缀下权重最高的前K个词，
+ * 查询时只需沿前缀走到对应节点即可直接返回结果，与词典大小无关
+ * 构建完成后不可修改，可在后台重建后整体替换，读取时无需加锁
+ * @param <T> 联想词附带的数据类型
+ */
+public final class PrefixSuggester<T> {
+
+    /**
+     * 联想结果
+     * @param text 联想词
+     * @param weight 权重（热度）
+     * @param payload 附带数据
+     */
+    public record Suggestion<T>(String text, long weight, T payload) {
+    }
+
+    private static final class Node<T> {
+        private final Map<Character, Node<T>> children = new HashMap<>(4);
+        private final List<Suggestion<T>> top = new ArrayList<>(2);
+    }
+
+    private final Node<T> root = new Node<>();
+    private final int topK;
+    private final int size;
+
+    private PrefixSuggester(int topK, int size) {
+        this.topK = topK;
+        this.size = size;
+    }
+
+    /**
+     * 构建联想词典
+     * @param suggestions 全部联想词，同一个词只应出现一次
+     * @param topK 每个前缀最多保留的联想词数量
+     * @return 联想词典
+     */
+    public static <T> PrefixSuggester<T> build(List<Suggestion<T>> suggestions, int topK) {
+        List<Suggestion<T>> sorted = new ArrayList<>(suggestions);
+        // 按权重从高到低插入，每个节点先到先得即为前K个
+        sorted.sort(Comparator.<Suggestion<T>>comparingLong(Suggestion::weight).reversed()
+                .thenComparing(Suggestion::text));
+
+        PrefixSuggester<T> suggester = new PrefixSuggester<>(topK, sorted.size());
+        for (Suggestion<T> suggestion : sorted) {
+            suggester.insert(suggestion);
+        }
+        return suggester;
+    }
+
+    private void insert(Suggestion<T> suggestion) {
+        String key = normalize(suggestion.text());
+        Node<T> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node<>());
+            if (node.top.size() < topK) {
+                node.top.add(suggestion);
+            }
+        }
+    }
+
+    /**
+     * 查询前缀联想词
+     * @param prefix 前缀，忽略大小写和首尾空白
+     * @param limit 返回数量上限，不超过构建时的topK，不大于0时返回空列表
+     * @return 按权重从高到低排序的联想词
+     */
+    public List<Suggestion<T>> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Node<T> node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(node.top.subList(0, Math.min(Math.max(limit, 0), node.top.size())));
+    }
+
+    /**
+     * @return 词典中的词数
+     */
+    public int size() {
+        return size;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.baozi.book.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events 推送中心
+ * 按主题管理订阅者，发布事件时只把事件放入每个订阅者自己的有界缓冲区，
+ * 真正写出由线程池异步完成，发布方不会被慢连接阻塞
+ * 订阅者的缓冲区写满时断开该连接，客户端重连后重新拉取列表，不会悄悄丢事件
+ */
+@Slf4j
+public class SseHub {
+
+    /**
+     * 待推送的事件，数据已序列化为JSON，同一事件推送给多个订阅者时只序列化一次
+     * @param id 事件ID
+     * @param name 事件名称
+     * @param json 事件数据
+     */
+    public record Event(String id, String name, String json) {
+    }
+
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final int bufferSize;
+    private final long timeout;
+
+    /**
+     * @param executor 写出事件的线程池
+     * @param bufferSize 每个订阅者最多缓冲的事件数
+     * @param timeout 连接超时时间（毫秒），超时后客户端自动重连
+     */
+    public SseHub(Executor executor, int bufferSize, long timeout) {
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 订阅主题
+     * @param topic 主题
+     * @return SSE连接
+     */
+    public SseEmitter subscribe(String topic) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        // 在compute中加入，避免与最后一个订阅者退出时删除主题的操作交错
+        topics.compute(topic, (k, subscribers) -> {
+            Set<Subscriber> result = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            result.add(subscriber);
+            return result;
+        });
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+
+    /**
+     * 向主题的全部订阅者推送事件，不阻塞
+     * @param topic 主题
+     * @param event 事件
+     */
+    public void publish(String topic, Event event) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * 向全部订阅者发送心跳注释，保持连接并及时发现已断开的连接
+     */
+    public void heartbeat() {
+        Event ping = new Event(null, null, null);
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(ping);
+            }
+        }
+    }
+
+    /**
+     * @return 当前订阅者数量
+     */
+    public int size() {
+        int count = 0;
+        for (Set<Subscriber> subscribers : topics.values()) {
+            count += subscribers.size();
+        }
+        return count;
+    }
+
+    private final class Subscriber implements Runnable {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final Queue<Event> buffer = new ArrayBlockingQueue<>(bufferSize);
+        // 是否已经提交了写出任务，保证同一连接同时只有一个线程在写
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(String topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                log.debug("SSE订阅者缓冲区已满，断开连接: {}", topic);
+                emitter.complete();
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    emitter.complete();
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Event event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    emitter.send(build(event));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            // 写出期间又有新事件进入缓冲区
+            if (!closed.get() && !buffer.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private SseEmitter.SseEventBuilder build(Event event) {
+            if (event.json() == null) {
+                return SseEmitter.event().comment("ping");
+            }
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.name()).data(event.json(), MediaType.APPLICATION_JSON);
+            return event.id() == null ? builder : builder.id(event.id());
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                buffer.clear();
+                topics.computeIfPresent(topic, (k, subscribers) -> {
+                    subscribers.remove(this);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.baozi.book.util;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 书名规范化工具类
+ * 把全角字符转为半角、英文转为小写，并去掉空白和标点，
+ * 使“《高等数学》（上册）”和“高等数学 上册”这类写法得到相同的结果
+ */
+public class TitleNormalizer {
+
+    // 出版商名称中可以省略的后缀，按长度从长到短排列
+    private static final List<String> PUBLISHER_SUFFIXES = List.of("出版社有限公司", "有限责任公司", "有限公司", "出版集团", "出版社", "出版");
+
+    private static final Map<Character, Integer> CHINESE_DIGITS = Map.of(
+            '一', 1, '二', 2, '三', 3, '四', 4, '五', 5, '六', 6, '七', 7, '八', 8, '九', 9, '十', 10);
+
+    // 版次的写法，如“第2版”“第二版”“2版”“2nd edition”，按顺序尝试
+    private static final List<Pattern> EDITION_PATTERNS = List.of(
+            Pattern.compile("第((?<!\\d)\\d{1,3}|[一二三四五六七八九十]+)版"),
+            Pattern.compile("((?<!\\d)\\d{1,3}|[一二三四五六七八九十]+)(?:版|st|nd|rd|th|edition)"),
+            Pattern.compile("^(\\d{1,3})$"));
+
+    /**
+     * 规范化文本
+     * @param text 原始文本
+     * @return 规范化后的文本，text为null时返回空字符串
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+        StringBuilder builder = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 规范化出版商，去掉“出版社”“有限公司”等后缀
+     * @param publisher 出版商
+     * @return 规范化后的出版商
+     */
+    public static String normalizePublisher(String publisher) {
+        String normalized = normalize(publisher);
+        for (String suffix : PUBLISHER_SUFFIXES) {
+            if (normalized.length() > suffix.length() && normalized.endsWith(suffix)) {
+                return normalized.substring(0, normalized.length() - suffix.length());
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * 规范化印刷版次，提取其中的版次数字
+     * “第二版”“第2版”“2版”“2nd”都得到“2”，无法识别时返回规范化文本
+     * @param edition 印刷版次
+     * @return 规范化后的版次
+     */
+    public static String normalizeEdition(String edition) {
+        String normalized = normalize(edition);
+        for (Pattern pattern : EDITION_PATTERNS) {
+            Matcher matcher = pattern.matcher(normalized);
+            if (matcher.find()) {
+                String number = matcher.group(1);
+                return String.valueOf(Character.isDigit(number.charAt(0)) ? Integer.parseInt(number) : chineseNumber(number));
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * 解析一百以内的中文数字，如“十二”“二十”“二十一”
+     */
+    private static int chineseNumber(String text) {
+        int tenIndex = text.indexOf('十');
+        if (tenIndex < 0) {
+            return CHINESE_DIGITS.get(text.charAt(0));
+        }
+        int tens = tenIndex == 0 ? 1 : CHINESE_DIGITS.get(text.charAt(0));
+        int ones = tenIndex == text.length() - 1 ? 0 : CHINESE_DIGITS.get(text.charAt(tenIndex + 1));
+        return tens * 10 + ones;
+    }
+}
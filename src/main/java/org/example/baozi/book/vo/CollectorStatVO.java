@@ -0,0 +1,32 @@
+package org.example.baozi.book.vo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 收书员或校区在一段日期内的业绩统计视图对象
+ */
+@Data
+public class CollectorStatVO {
+    /**
+     * 开始日期（包含）
+     */
+    private LocalDate from;
+
+    /**
+     * 结束日期（包含）
+     */
+    private LocalDate to;
+
+    /**
+     * 整个日期范围的汇总
+     */
+    private DailyStatVO total;
+
+    /**
+     * 每天的统计，按日期先后排列，没有数据的日期不返回
+     */
+    private List<DailyStatVO> days;
+}
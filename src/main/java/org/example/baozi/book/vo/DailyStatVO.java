@@ -0,0 +1,47 @@
+package org.example.baozi.book.vo;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 收书员业绩统计视图对象
+ */
+@Data
+public class DailyStatVO {
+    /**
+     * 统计日期，汇总数据为空
+     */
+    private LocalDate date;
+
+    /**
+     * 接单数
+     */
+    private Long acceptedCount;
+
+    /**
+     * 完成订单数
+     */
+    private Long completedCount;
+
+    /**
+     * 超时退回订单数
+     */
+    private Long releasedCount;
+
+    /**
+     * 完成订单的总重量（公斤）
+     */
+    private Double totalWeight;
+
+    /**
+     * 跑腿费总额（元）
+     */
+    private BigDecimal commissionAmount;
+
+    /**
+     * 从接单到完成的平均时长（分钟），没有完成订单时为空
+     */
+    private Double avgFinishMinutes;
+}
@@ -0,0 +1,32 @@
+package org.example.baozi.book.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 按宿舍楼分组的待接单订单视图对象
+ */
+@Data
+public class DormitoryClusterVO {
+    /**
+     * 宿舍楼
+     */
+    private String building;
+
+    /**
+     * 订单数量
+     */
+    private Integer orderCount;
+
+    /**
+     * 最早下单时间
+     */
+    private LocalDateTime earliestCreateTime;
+
+    /**
+     * 楼内的待接单订单，按下单时间先后排序
+     */
+    private List<CollectOrderVO> orders;
+}
@@ -3,6 +3,7 @@ package org.example.baozi.book.vo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.example.baozi.book.entity.Book;
 
 import java.time.LocalDateTime;
@@ -12,7 +13,10 @@ import java.time.LocalDateTime;
  */
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class RecyclableBookVO {
+    // 可回收书籍ID
+    private Integer rId;
     // Book 的基本信息
     private Integer id;
     private String ownerId;
@@ -24,5 +28,7 @@ public class RecyclableBookVO {
     private String title;
     private String publisher;
     private String edition;
+    // 教材目录ID
+    private Integer catalogId;
 
 }
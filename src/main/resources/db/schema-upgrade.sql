@@ -0,0 +1,194 @@
+-- 数据库结构升级脚本
+-- 按顺序执行，每段对应一次功能变更
+
+-- 封面感知哈希，用于识别不同学生重复使用的封面图片
+ALTER TABLE book ADD COLUMN cover_hash BIGINT NULL COMMENT '封面图片感知哈希';
+
+-- 封面标记列，列表查询只读取该列，不再访问BLOB列
+ALTER TABLE book ADD COLUMN has_cover TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否有封面图片';
+UPDATE book SET has_cover = IF(book_data IS NOT NULL, 1, 0);
+
+-- 游标分页索引，按 (create_time, id) 定位，查询代价与页数无关
+ALTER TABLE book ADD INDEX idx_book_create_time_id (create_time, id);
+ALTER TABLE collect_order ADD INDEX idx_order_campus_status_time (campus, status, create_time, id);
+ALTER TABLE collect_order ADD INDEX idx_order_collector_time (collector_id, create_time, id);
+ALTER TABLE report ADD INDEX idx_report_status_time (status, report_time, id);
+
+-- 求书心愿
+CREATE TABLE IF NOT EXISTS wish (
+    id          INT AUTO_INCREMENT PRIMARY KEY,
+    student_id  VARCHAR(20)  NOT NULL COMMENT '学生学号',
+    title       VARCHAR(255) NOT NULL COMMENT '想要的书名',
+    publisher   VARCHAR(255) NULL COMMENT '出版商',
+    edition     VARCHAR(255) NULL COMMENT '印刷版次',
+    status      TINYINT      NOT NULL DEFAULT 0 COMMENT '0:等待中 1:已关闭',
+    create_time DATETIME     NOT NULL,
+    INDEX idx_wish_student (student_id, status),
+    INDEX idx_wish_status (status)
+) COMMENT '求书心愿';
+
+-- 站内通知
+CREATE TABLE IF NOT EXISTS notification (
+    id          INT AUTO_INCREMENT PRIMARY KEY,
+    user_id     VARCHAR(20)  NOT NULL COMMENT '接收者ID',
+    type        VARCHAR(32)  NOT NULL COMMENT '通知类型',
+    content     VARCHAR(512) NOT NULL COMMENT '通知内容',
+    related_id  BIGINT       NULL COMMENT '关联数据ID',
+    is_read     TINYINT(1)   NOT NULL DEFAULT 0 COMMENT '是否已读',
+    create_time DATETIME     NOT NULL,
+    INDEX idx_notification_user (user_id, is_read, id)
+) COMMENT '站内通知';
+
+-- 教材目录，可回收书籍按规范化的书名、出版商、版次对应到统一的目录
+CREATE TABLE IF NOT EXISTS book_catalog (
+    id             INT AUTO_INCREMENT PRIMARY KEY,
+    normalized_key VARCHAR(512) NOT NULL COMMENT '规范化书名|规范化出版商|规范化版次',
+    title          VARCHAR(255) NOT NULL COMMENT '书名',
+    publisher      VARCHAR(255) NULL COMMENT '出版商',
+    edition        VARCHAR(255) NULL COMMENT '印刷版次',
+    create_time    DATETIME     NOT NULL,
+    UNIQUE KEY uk_catalog_key (normalized_key)
+) COMMENT '教材目录';
+-- 已有数据的目录ID在应用启动时自动补充
+ALTER TABLE recyclable_book ADD COLUMN catalog_id INT NULL COMMENT '教材目录ID';
+ALTER TABLE recyclable_book ADD INDEX idx_recyclable_catalog (catalog_id);
+
+-- 订单列表读模型，冗余学生和收书员的联系方式，与订单、个人信息在同一事务中更新
+-- 校区、收书员和学生的订单列表都只按索引范围扫描这一张表
+CREATE TABLE IF NOT EXISTS order_view (
+    id                INT          NOT NULL PRIMARY KEY COMMENT '订单ID',
+    student_id        VARCHAR(20)  NOT NULL COMMENT '学生学号',
+    student_phone     VARCHAR(20)  NULL COMMENT '学生联系电话',
+    student_dormitory VARCHAR(100) NULL COMMENT '学生宿舍',
+    collector_id      VARCHAR(20)  NULL COMMENT '收书员ID',
+    collector_name    VARCHAR(50)  NULL COMMENT '收书员姓名',
+    collector_phone   VARCHAR(20)  NULL COMMENT '收书员联系电话',
+    sealed_book_id    INT          NULL COMMENT '待售书籍ID',
+    campus            VARCHAR(50)  NULL COMMENT '校区',
+    status            TINYINT      NOT NULL DEFAULT 0 COMMENT '0:待接单 1:已接单 2:已完成 3:已取消',
+    create_time       DATETIME     NULL,
+    accept_time       DATETIME     NULL,
+    finish_time       DATETIME     NULL,
+    actual_weight     DOUBLE       NULL COMMENT '实际重量',
+    price_per_kg      DOUBLE       NULL COMMENT '每斤价格',
+    commission_amount DOUBLE       NULL COMMENT '佣金',
+    student_amount    DOUBLE       NULL COMMENT '学生所得',
+    INDEX idx_order_view_campus (campus, status, create_time, id),
+    INDEX idx_order_view_collector (collector_id, create_time, id),
+    INDEX idx_order_view_student (student_id, create_time, id)
+) COMMENT '订单列表读模型';
+INSERT INTO order_view (id, student_id, student_phone, student_dormitory, collector_id, collector_name, collector_phone,
+                        sealed_book_id, campus, status, create_time, accept_time, finish_time,
+                        actual_weight, price_per_kg, commission_amount, student_amount)
+SELECT co.id, co.student_id, s.phone, s.dormitory, co.collector_id, c.real_name, c.phone,
+       co.sealed_book_id, co.campus, co.status, co.create_time, co.accept_time, co.finish_time,
+       co.actual_weight, co.price_per_kg, co.commission_amount, co.student_amount
+FROM collect_order co
+LEFT JOIN student s ON s.student_id = co.student_id
+LEFT JOIN collector c ON c.collector_id = co.collector_id;
+
+-- 结算流水，订单完成时为学生和收书员各追加一条，只插入不修改，金额使用精确小数
+CREATE TABLE IF NOT EXISTS settlement_ledger (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_id       INT           NOT NULL COMMENT '订单ID',
+    payee_type     VARCHAR(16)   NOT NULL COMMENT 'STUDENT:学生 COLLECTOR:收书员',
+    payee_id       VARCHAR(20)   NOT NULL COMMENT '收款方ID',
+    payment_method VARCHAR(255)  NULL COMMENT '收款方式',
+    amount         DECIMAL(12,2) NOT NULL COMMENT '金额（元）',
+    create_time    DATETIME      NOT NULL,
+    UNIQUE KEY uk_ledger_order_payee (order_id, payee_type),
+    INDEX idx_ledger_create_time (create_time)
+) COMMENT '结算流水';
+
+-- 打款批次，按结算流水ID的范围划分，已结算的水位为最后一个批次的last_entry_id
+CREATE TABLE IF NOT EXISTS payout_batch (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    first_entry_id BIGINT        NOT NULL COMMENT '第一条结算流水ID',
+    last_entry_id  BIGINT        NOT NULL COMMENT '最后一条结算流水ID',
+    entry_count    INT           NOT NULL COMMENT '流水条数',
+    payee_count    INT           NOT NULL COMMENT '打款笔数',
+    total_amount   DECIMAL(14,2) NOT NULL COMMENT '打款总金额（元）',
+    file_name      VARCHAR(255)  NOT NULL COMMENT '打款文件名',
+    create_time    DATETIME      NOT NULL
+) COMMENT '打款批次';
+
+-- 回收价格规则，按校区和生效时间配置每公斤价格和收书员跑腿费比例，campus为空表示全部校区
+CREATE TABLE IF NOT EXISTS pricing_rule (
+    id              INT AUTO_INCREMENT PRIMARY KEY,
+    campus          VARCHAR(50)  NULL COMMENT '适用校区，为空表示全部校区',
+    price_per_kg    DECIMAL(8,2) NOT NULL COMMENT '每公斤回收价格（元）',
+    commission_rate DECIMAL(5,4) NOT NULL COMMENT '收书员跑腿费比例',
+    effective_from  DATETIME     NULL COMMENT '生效时间，为空表示立即生效',
+    effective_to    DATETIME     NULL COMMENT '失效时间（不含），为空表示长期有效',
+    create_time     DATETIME     NOT NULL
+) COMMENT '回收价格规则';
+
+INSERT INTO pricing_rule (campus, price_per_kg, commission_rate, create_time)
+SELECT NULL, 1.60, 0.2000, NOW() FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM pricing_rule);
+
+-- 收书员业绩按天统计，scope为COLLECTOR时scope_id是收书员ID，为CAMPUS时是校区
+-- 由Redis中的增量计数定期累加写入，查询业绩时不扫描订单表
+CREATE TABLE IF NOT EXISTS collector_daily_stat (
+    id               BIGINT AUTO_INCREMENT PRIMARY KEY,
+    stat_date        DATE        NOT NULL COMMENT '统计日期',
+    scope            VARCHAR(16) NOT NULL COMMENT 'COLLECTOR:收书员 CAMPUS:校区',
+    scope_id         VARCHAR(50) NOT NULL COMMENT '收书员ID或校区',
+    accepted_count   BIGINT      NOT NULL DEFAULT 0 COMMENT '接单数',
+    completed_count  BIGINT      NOT NULL DEFAULT 0 COMMENT '完成订单数',
+    released_count   BIGINT      NOT NULL DEFAULT 0 COMMENT '超时退回订单数',
+    weight_grams     BIGINT      NOT NULL DEFAULT 0 COMMENT '完成订单总重量（克）',
+    commission_cents BIGINT      NOT NULL DEFAULT 0 COMMENT '跑腿费总额（分）',
+    finish_seconds   BIGINT      NOT NULL DEFAULT 0 COMMENT '接单到完成的总时长（秒）',
+    finish_count     BIGINT      NOT NULL DEFAULT 0 COMMENT '计入总时长的订单数',
+    UNIQUE KEY uk_stat_scope_date (scope, scope_id, stat_date)
+) COMMENT '收书员业绩按天统计';
+
+-- 用已有订单初始化业绩统计，只在统计表为空时执行；退回的订单已清空接单时间，无法计入
+INSERT INTO collector_daily_stat (stat_date, scope, scope_id, accepted_count, completed_count, released_count,
+                                  weight_grams, commission_cents, finish_seconds, finish_count)
+SELECT e.stat_date, e.scope, e.scope_id, SUM(e.accepted), SUM(e.completed), 0,
+       SUM(e.grams), SUM(e.cents), SUM(e.seconds), SUM(e.timed)
+FROM (
+    SELECT DATE(co.accept_time) AS stat_date, 'COLLECTOR' AS scope, co.collector_id AS scope_id,
+           1 AS accepted, 0 AS completed, 0 AS grams, 0 AS cents, 0 AS seconds, 0 AS timed
+    FROM collect_order co
+    WHERE co.accept_time IS NOT NULL AND co.collector_id IS NOT NULL
+    UNION ALL
+    SELECT DATE(co.accept_time), 'CAMPUS', co.campus, 1, 0, 0, 0, 0, 0
+    FROM collect_order co
+    WHERE co.accept_time IS NOT NULL AND co.campus IS NOT NULL
+    UNION ALL
+    SELECT DATE(co.finish_time), 'COLLECTOR', co.collector_id, 0, 1,
+           ROUND(IFNULL(co.actual_weight, 0) * 1000), ROUND(IFNULL(co.commission_amount, 0) * 100),
+           IF(co.accept_time IS NULL, 0, TIMESTAMPDIFF(SECOND, co.accept_time, co.finish_time)),
+           IF(co.accept_time IS NULL, 0, 1)
+    FROM collect_order co
+    WHERE co.status = 2 AND co.finish_time IS NOT NULL AND co.collector_id IS NOT NULL
+    UNION ALL
+    SELECT DATE(co.finish_time), 'CAMPUS', co.campus, 0, 1,
+           ROUND(IFNULL(co.actual_weight, 0) * 1000), ROUND(IFNULL(co.commission_amount, 0) * 100),
+           IF(co.accept_time IS NULL, 0, TIMESTAMPDIFF(SECOND, co.accept_time, co.finish_time)),
+           IF(co.accept_time IS NULL, 0, 1)
+    FROM collect_order co
+    WHERE co.status = 2 AND co.finish_time IS NOT NULL AND co.campus IS NOT NULL
+) e
+WHERE NOT EXISTS (SELECT 1 FROM collector_daily_stat)
+GROUP BY e.stat_date, e.scope, e.scope_id;
+
+-- 已处理的异步上传任务，与书籍和订单在同一事务中写入，重启恢复时据此跳过已处理的任务
+CREATE TABLE IF NOT EXISTS upload_task (
+    task_id        VARCHAR(32) PRIMARY KEY COMMENT '任务ID',
+    sealed_book_id INT         NOT NULL COMMENT '待售书籍ID',
+    order_id       INT         NOT NULL COMMENT '订单ID',
+    create_time    DATETIME    NOT NULL
+) COMMENT '已处理的异步上传任务';
+
+-- 结算流水标记所属的打款批次，未结算的流水payout_batch_id为空，不再依赖创建时间推断水位
+ALTER TABLE settlement_ledger ADD COLUMN payout_batch_id BIGINT NULL COMMENT '打款批次ID，为空表示未结算';
+ALTER TABLE settlement_ledger ADD INDEX idx_ledger_payout_batch (payout_batch_id, id);
+UPDATE settlement_ledger l JOIN payout_batch b ON l.id BETWEEN b.first_entry_id AND b.last_entry_id
+SET l.payout_batch_id = b.id
+WHERE l.payout_batch_id IS NULL;
+-- 打款文件生成后才填写文件名，为空表示批次已标记流水、文件尚未生成
+ALTER TABLE payout_batch MODIFY COLUMN file_name VARCHAR(255) NULL COMMENT '打款文件名，为空表示尚未生成';
@@ -0,0 +1,164 @@
+package org.example.baozi.book.service.impl;
+
+import org.example.baozi.book.mapper.CollectOrderMapper;
+import org.example.baozi.book.response.PageResult;
+import org.example.baozi.book.util.CursorUtil;
+import org.example.baozi.book.vo.CollectOrderVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PendingOrderQueueServiceImplTest {
+
+    private static final String LOADED_KEY = RedisServiceImpl.KEY_PREFIX_ORDER + "queue-campuses";
+    private static final String NORTH_QUEUE = RedisServiceImpl.KEY_PREFIX_ORDER + "queue:north";
+    private static final String NORTH_SUMMARY = NORTH_QUEUE + ":summary";
+    private static final String SOUTH_QUEUE = RedisServiceImpl.KEY_PREFIX_ORDER + "queue:south";
+    private static final String SOUTH_SUMMARY = SOUTH_QUEUE + ":summary";
+
+    @Mock
+    private RedisServiceImpl redisService;
+    @Mock
+    private CollectOrderMapper collectOrderMapper;
+
+    private PendingOrderQueueServiceImpl queueService;
+
+    @BeforeEach
+    void setUp() {
+        queueService = new PendingOrderQueueServiceImpl(redisService, collectOrderMapper);
+        ReflectionTestUtils.setField(queueService, "reconcileInterval", 60_000L);
+    }
+
+    private static CollectOrderVO order(int id, String campus, LocalDateTime createTime) {
+        CollectOrderVO vo = new CollectOrderVO();
+        vo.setId(id);
+        vo.setStudentId("s" + id);
+        vo.setCampus(campus);
+        vo.setCreateTime(createTime);
+        return vo;
+    }
+
+    private static double score(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcileRebuildsEveryLoadedCampus() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 8, 0);
+        when(redisService.tryLock(anyString(), anyString(), eq(60_000L), eq(TimeUnit.MILLISECONDS))).thenReturn(true);
+        when(collectOrderMapper.selectPendingSummaries(null)).thenReturn(List.of(
+                order(1, "north", time), order(2, "north", time.plusMinutes(1))));
+        // south之前加载过，现在已经没有待接单订单
+        when(redisService.getSetMembers(LOADED_KEY)).thenReturn(Set.of("south"));
+        long before = System.currentTimeMillis();
+
+        queueService.reconcile();
+
+        ArgumentCaptor<Map<Object, Object>> summaries = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Map<Object, Double>> scores = ArgumentCaptor.forClass(Map.class);
+        verify(redisService).putAllHash(eq(NORTH_SUMMARY + ":rebuild"), summaries.capture());
+        verify(redisService).addAllToZSet(eq(NORTH_QUEUE + ":rebuild"), scores.capture());
+        assertThat(summaries.getValue()).containsOnlyKeys("1", "2");
+        assertThat((Map<String, Object>) summaries.getValue().get("2"))
+                .containsEntry("createTime", time.plusMinutes(1).toString())
+                .containsEntry("studentId", "s2");
+        assertThat(scores.getValue()).containsEntry(1, score(time)).containsEntry(2, score(time.plusMinutes(1)));
+
+        // 保留重建窗口内新加入的订单
+        ArgumentCaptor<Double> since = ArgumentCaptor.forClass(Double.class);
+        verify(redisService).replaceZSetAndHash(eq(NORTH_QUEUE), eq(NORTH_SUMMARY),
+                eq(NORTH_QUEUE + ":rebuild"), eq(NORTH_SUMMARY + ":rebuild"), since.capture());
+        assertThat(since.getValue()).isCloseTo(before - 5 * 60_000.0, within(5_000.0));
+
+        // 空校区用空的临时键替换，队列被清空
+        verify(redisService).deleteValue(SOUTH_QUEUE + ":rebuild");
+        verify(redisService).deleteValue(SOUTH_SUMMARY + ":rebuild");
+        verify(redisService, never()).putAllHash(eq(SOUTH_SUMMARY + ":rebuild"), anyMap());
+        verify(redisService).replaceZSetAndHash(eq(SOUTH_QUEUE), eq(SOUTH_SUMMARY),
+                eq(SOUTH_QUEUE + ":rebuild"), eq(SOUTH_SUMMARY + ":rebuild"), anyDouble());
+        verify(redisService).addToSet(LOADED_KEY, "north");
+        verify(redisService).addToSet(LOADED_KEY, "south");
+    }
+
+    @Test
+    void reconcileSkipsWithoutLock() {
+        when(redisService.tryLock(anyString(), anyString(), eq(60_000L), eq(TimeUnit.MILLISECONDS))).thenReturn(false);
+
+        queueService.reconcile();
+
+        verifyNoInteractions(collectOrderMapper);
+        verify(redisService, never()).replaceZSetAndHash(anyString(), anyString(), anyString(), anyString(), anyDouble());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cursorPageOrdersTiesById() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 8, 0);
+        Map<String, CollectOrderVO> orders = new HashMap<>();
+        for (CollectOrderVO vo : List.of(order(5, "north", time), order(3, "north", time), order(4, "north", time),
+                order(2, "north", time.minusMinutes(1)))) {
+            orders.put(String.valueOf(vo.getId()), vo);
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new LinkedHashSet<>();
+        // 有序集合中同分数的成员按字节序排列，与ID顺序无关
+        for (int id : new int[]{5, 3, 4, 2}) {
+            tuples.add(new DefaultTypedTuple<>(id, score(orders.get(String.valueOf(id)).getCreateTime())));
+        }
+        when(redisService.isInSet(LOADED_KEY, "north")).thenReturn(true);
+        when(redisService.countZSet(NORTH_QUEUE, score(time), score(time))).thenReturn(3L);
+        when(redisService.getZSetRangeByScoreDesc(NORTH_QUEUE, score(time), 6)).thenReturn(tuples);
+        when(redisService.getZSetSize(NORTH_QUEUE)).thenReturn(4L);
+        when(redisService.multiGetHash(eq(NORTH_SUMMARY), any())).thenAnswer(invocation ->
+                invocation.<Collection<Object>>getArgument(1).stream().map(id -> {
+                    CollectOrderVO vo = orders.get(id.toString());
+                    return (Object) Map.of("id", vo.getId(), "studentId", vo.getStudentId(),
+                            "campus", vo.getCampus(), "createTime", vo.getCreateTime().toString());
+                }).toList());
+
+        PageResult<CollectOrderVO> page = queueService.getOrdersByCursor("north", CursorUtil.encode(time, 5L), 2);
+
+        assertThat(page.getData()).extracting(CollectOrderVO::getId).containsExactly(4, 3);
+        CursorUtil.Cursor next = CursorUtil.decode(page.getNextCursor());
+        assertThat(next.createTime()).isEqualTo(time);
+        assertThat(next.id()).isEqualTo(3L);
+        assertThat(page.getTotal()).isEqualTo(4);
+    }
+
+    @Test
+    void unloadedCampusFallsBackToDatabase() {
+        when(redisService.isInSet(LOADED_KEY, "east")).thenReturn(false);
+
+        assertThat(queueService.getOrders("east", 1, 10)).isNull();
+        assertThat(queueService.getAllOrders("east")).isNull();
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.baozi.book.service.impl;
+
+import org.example.baozi.book.entity.PayoutBatch;
+import org.example.baozi.book.entity.SettlementEntry;
+import org.example.baozi.book.mapper.CollectorMapper;
+import org.example.baozi.book.mapper.PayoutBatchMapper;
+import org.example.baozi.book.mapper.SettlementLedgerMapper;
+import org.example.baozi.book.mapper.StudentMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SettlementServiceImplTest {
+
+    private static final long BATCH_ID = 7L;
+
+    @Mock
+    private SettlementLedgerMapper settlementLedgerMapper;
+    @Mock
+    private PayoutBatchMapper payoutBatchMapper;
+    @Mock
+    private StudentMapper studentMapper;
+    @Mock
+    private CollectorMapper collectorMapper;
+    @Mock
+    private RedisServiceImpl redisService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    private Path outputDir;
+
+    private SettlementServiceImpl settlementService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        settlementService = new SettlementServiceImpl(settlementLedgerMapper, payoutBatchMapper, studentMapper,
+                collectorMapper, redisService, transactionTemplate);
+        ReflectionTestUtils.setField(settlementService, "outputDir", outputDir.toString());
+        settlementService.init();
+    }
+
+    private void stubLock() {
+        when(redisService.tryLock(anyString(), anyString(), anyLong(), eq(TimeUnit.MINUTES))).thenReturn(true);
+    }
+
+    private void stubTransaction() {
+        stubLock();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(new SimpleTransactionStatus()));
+        doAnswer(invocation -> {
+            invocation.<PayoutBatch>getArgument(0).setId(BATCH_ID);
+            return 1;
+        }).when(payoutBatchMapper).insert(any(PayoutBatch.class));
+    }
+
+    private static SettlementEntry entry(long id, String payeeType, String payeeId, String paymentMethod, String amount) {
+        SettlementEntry entry = new SettlementEntry();
+        entry.setId(id);
+        entry.setPayeeType(payeeType);
+        entry.setPayeeId(payeeId);
+        entry.setPaymentMethod(paymentMethod);
+        entry.setAmount(new BigDecimal(amount));
+        entry.setPayoutBatchId(BATCH_ID);
+        return entry;
+    }
+
+    /**
+     * 按afterId和limit分页返回流水，模拟数据库的键集分页
+     */
+    private void stubLedger(List<SettlementEntry> ledger) {
+        when(settlementLedgerMapper.selectByBatch(eq(BATCH_ID), anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return ledger.stream().filter(entry -> entry.getId() > afterId).limit(limit).toList();
+        });
+    }
+
+    @Test
+    void aggregatesLedgerPerPayeeAcrossPages() throws IOException {
+        List<SettlementEntry> ledger = new ArrayList<>();
+        for (long id = 1; id <= 1500; id++) {
+            switch ((int) (id % 3)) {
+                case 0 -> ledger.add(entry(id, SettlementEntry.PAYEE_STUDENT, "s1", "alipay", "1.10"));
+                case 1 -> ledger.add(entry(id, SettlementEntry.PAYEE_STUDENT, "s2", null, "2.00"));
+                default -> ledger.add(entry(id, SettlementEntry.PAYEE_COLLECTOR, "c1", "wechat,cn", "0.50"));
+            }
+        }
+        when(settlementLedgerMapper.selectMaxUnsettledId()).thenReturn(1500L);
+        when(settlementLedgerMapper.markBatch(BATCH_ID, 1500L)).thenReturn(1500);
+        stubTransaction();
+        stubLedger(ledger);
+
+        PayoutBatch batch = settlementService.runPayout();
+
+        assertThat(batch.getFirstEntryId()).isEqualTo(1L);
+        assertThat(batch.getLastEntryId()).isEqualTo(1500L);
+        assertThat(batch.getEntryCount()).isEqualTo(1500);
+        assertThat(batch.getPayeeCount()).isEqualTo(3);
+        assertThat(batch.getTotalAmount()).isEqualByComparingTo("1800");
+        verify(payoutBatchMapper).updateById(batch);
+        assertThat(Files.readAllLines(outputDir.resolve(batch.getFileName()))).containsExactly(
+                "payee_type,payee_id,payment_method,amount,entry_count",
+                "COLLECTOR,c1,\"wechat,cn\",250.00,500",
+                "STUDENT,s1,alipay,550.00,500",
+                "STUDENT,s2,,1000.00,500");
+        verify(redisService).unlock(anyString(), anyString());
+    }
+
+    @Test
+    void skipsWhenNothingToSettle() {
+        stubLock();
+        when(settlementLedgerMapper.selectMaxUnsettledId()).thenReturn(null);
+
+        assertThat(settlementService.runPayout()).isNull();
+        verify(payoutBatchMapper, never()).insert(any(PayoutBatch.class));
+        verify(redisService).unlock(anyString(), anyString());
+    }
+
+    @Test
+    void rollsBackBatchWhenNoEntryMarked() {
+        when(settlementLedgerMapper.selectMaxUnsettledId()).thenReturn(10L);
+        when(settlementLedgerMapper.markBatch(BATCH_ID, 10L)).thenReturn(0);
+        stubTransaction();
+
+        assertThat(settlementService.runPayout()).isNull();
+        verify(settlementLedgerMapper, never()).selectByBatch(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    void completesUnfinishedBatchBeforeNewOne() {
+        stubLock();
+        PayoutBatch unfinished = new PayoutBatch();
+        unfinished.setId(BATCH_ID);
+        when(payoutBatchMapper.selectList(any())).thenReturn(List.of(unfinished));
+        stubLedger(List.of(entry(1, SettlementEntry.PAYEE_STUDENT, "s1", "alipay", "3.00")));
+
+        assertThat(settlementService.runPayout()).isNull();
+        assertThat(unfinished.getFileName()).isEqualTo("payout-" + BATCH_ID + ".csv");
+        assertThat(unfinished.getTotalAmount()).isEqualByComparingTo("3");
+        verify(payoutBatchMapper).updateById(unfinished);
+    }
+
+    @Test
+    void deletesFileWhenBatchUpdateFails() {
+        stubLock();
+        PayoutBatch unfinished = new PayoutBatch();
+        unfinished.setId(BATCH_ID);
+        when(payoutBatchMapper.selectList(any())).thenReturn(List.of(unfinished));
+        stubLedger(List.of(entry(1, SettlementEntry.PAYEE_STUDENT, "s1", "alipay", "3.00")));
+        when(payoutBatchMapper.updateById(unfinished)).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> settlementService.runPayout()).isInstanceOf(IllegalStateException.class);
+        assertThat(outputDir.resolve("payout-" + BATCH_ID + ".csv")).doesNotExist();
+        verify(redisService).unlock(anyString(), anyString());
+    }
+
+    @Test
+    void batchWithoutFileHasNoDownload() {
+        PayoutBatch batch = new PayoutBatch();
+        batch.setId(BATCH_ID);
+        when(payoutBatchMapper.selectById(BATCH_ID)).thenReturn(batch);
+
+        assertThat(settlementService.getBatchFile(BATCH_ID)).isNull();
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BkTreeTest {
+
+    @Test
+    void addIgnoresDuplicateEntry() {
+        BkTree<Long> tree = new BkTree<>();
+
+        assertThat(tree.add(0b1011L, 1L)).isTrue();
+        assertThat(tree.add(0b1011L, 1L)).isFalse();
+        assertThat(tree.add(0b1011L, 2L)).isTrue();
+        assertThat(tree.size()).isEqualTo(2);
+    }
+
+    @Test
+    void searchReturnsMatchesSortedByDistance() {
+        BkTree<String> tree = new BkTree<>();
+        tree.add(0b0000L, "a");
+        tree.add(0b0001L, "b");
+        tree.add(0b0111L, "c");
+        tree.add(0b1111_1111L, "d");
+
+        List<BkTree.Match<String>> matches = tree.search(0b0000L, 3);
+
+        assertThat(matches).extracting(BkTree.Match::value).containsExactly("a", "b", "c");
+        assertThat(matches).extracting(BkTree.Match::distance).containsExactly(0, 1, 3);
+    }
+
+    @Test
+    void removeKeepsOtherEntriesReachable() {
+        BkTree<String> tree = new BkTree<>();
+        tree.add(0b0000L, "a");
+        tree.add(0b0001L, "b");
+        tree.add(0b0011L, "c");
+
+        assertThat(tree.remove(0b0000L, "a")).isTrue();
+        assertThat(tree.remove(0b0000L, "a")).isFalse();
+        assertThat(tree.remove(0b1000L, "b")).isFalse();
+        assertThat(tree.size()).isEqualTo(2);
+        // 根节点的数据已移除，但仍作为路径找到子节点
+        assertThat(tree.search(0b0011L, 0)).extracting(BkTree.Match::value).containsExactly("c");
+        assertThat(tree.search(0b0000L, 0)).isEmpty();
+    }
+
+    @Test
+    void searchMatchesBruteForce() {
+        Random random = new Random(42);
+        BkTree<Integer> tree = new BkTree<>();
+        List<Long> hashes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long hash = random.nextLong();
+            hashes.add(hash);
+            tree.add(hash, i);
+        }
+
+        for (int q = 0; q < 20; q++) {
+            // 在已有哈希上翻转少量位作为查询，保证有结果
+            long query = hashes.get(random.nextInt(hashes.size())) ^ (1L << random.nextInt(64));
+            int maxDistance = 24;
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < hashes.size(); i++) {
+                if (PerceptualHash.distance(hashes.get(i), query) <= maxDistance) {
+                    expected.add(i);
+                }
+            }
+            assertThat(tree.search(query, maxDistance)).extracting(BkTree.Match::value)
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+}
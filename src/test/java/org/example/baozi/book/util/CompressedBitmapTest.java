@@ -0,0 +1,102 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressedBitmapTest {
+
+    private static int[] descending(TreeSet<Integer> set) {
+        return set.descendingSet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 同一个桶内写入足够多的元素，使容器在数组和位图之间来回转换
+     */
+    private static void fill(Random random, CompressedBitmap bitmap, TreeSet<Integer> expected, int count) {
+        for (int i = 0; i < count; i++) {
+            // 大部分集中在第0和第1个桶，少量分散到其他桶
+            int value = random.nextInt(10) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(1 << 17);
+            bitmap.add(value);
+            expected.add(value);
+        }
+    }
+
+    @Test
+    void matchesTreeSetAcrossContainerConversions() {
+        Random random = new Random(7);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        fill(random, bitmap, expected, 20000);
+
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        assertThat(bitmap.toDescendingArray()).containsExactly(descending(expected));
+
+        // 删除大部分元素，位图容器转回数组容器
+        for (Integer value : expected.stream().filter(v -> v % 8 != 0).toList()) {
+            bitmap.remove(value);
+            expected.remove(value);
+        }
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        assertThat(bitmap.toDescendingArray()).containsExactly(descending(expected));
+        for (int value = 0; value < 1 << 17; value += 3) {
+            assertThat(bitmap.contains(value)).isEqualTo(expected.contains(value));
+        }
+    }
+
+    @Test
+    void andMatchesSetIntersection() {
+        Random random = new Random(11);
+        CompressedBitmap left = new CompressedBitmap();
+        CompressedBitmap right = new CompressedBitmap();
+        TreeSet<Integer> leftSet = new TreeSet<>();
+        TreeSet<Integer> rightSet = new TreeSet<>();
+        fill(random, left, leftSet, 30000);
+        fill(random, right, rightSet, 3000);
+        leftSet.retainAll(rightSet);
+
+        CompressedBitmap intersection = left.and(right);
+
+        assertThat(intersection.toDescendingArray()).containsExactly(descending(leftSet));
+        assertThat(left.andCardinality(right)).isEqualTo(leftSet.size());
+        assertThat(right.andCardinality(left)).isEqualTo(leftSet.size());
+    }
+
+    @Test
+    void removingLastElementDropsBucket() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(70000);
+        bitmap.remove(70000);
+        bitmap.remove(1);
+        bitmap.remove(-1);
+
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.cardinality()).isZero();
+        assertThat(bitmap.toDescendingArray()).isEmpty();
+    }
+
+    @Test
+    void copyIsIndependent() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(1);
+        bitmap.add(2);
+        CompressedBitmap copy = bitmap.copy();
+        copy.add(3);
+        copy.remove(1);
+
+        assertThat(bitmap.toDescendingArray()).containsExactly(2, 1);
+        assertThat(copy.toDescendingArray()).containsExactly(3, 2);
+    }
+
+    @Test
+    void rejectsNegativeValue() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+
+        assertThatThrownBy(() -> bitmap.add(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(bitmap.contains(-1)).isFalse();
+    }
+}
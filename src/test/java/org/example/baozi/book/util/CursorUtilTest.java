@@ -0,0 +1,77 @@
+package org.example.baozi.book.util;
+
+import org.example.baozi.book.response.PageResult;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilTest {
+
+    private record Row(LocalDateTime createTime, Long id) {
+    }
+
+    @Test
+    void decodesEncodedCursor() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 8, 30, 15, 123_000_000);
+
+        CursorUtil.Cursor cursor = CursorUtil.decode(CursorUtil.encode(time, 42L));
+
+        assertThat(cursor.createTime()).isEqualTo(time);
+        assertThat(cursor.id()).isEqualTo(42L);
+    }
+
+    @Test
+    void blankCursorStartsFromFirstPage() {
+        assertThat(CursorUtil.decode(null).createTime()).isNull();
+        assertThat(CursorUtil.decode(" ").id()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2024-03-01T08:30".getBytes(StandardCharsets.UTF_8));
+        String badId = Base64.getUrlEncoder().encodeToString("2024-03-01T08:30|abc".getBytes(StandardCharsets.UTF_8));
+        String badTime = Base64.getUrlEncoder().encodeToString("yesterday|1".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of("%%%", noSeparator, badId, badTime)) {
+            assertThatThrownBy(() -> CursorUtil.decode(cursor)).isInstanceOf(InvalidRequestException.class);
+        }
+    }
+
+    @Test
+    void clampsSize() {
+        assertThat(CursorUtil.clampSize(null)).isEqualTo(1);
+        assertThat(CursorUtil.clampSize(-5)).isEqualTo(1);
+        assertThat(CursorUtil.clampSize(20)).isEqualTo(20);
+        assertThat(CursorUtil.clampSize(1000)).isEqualTo(CursorUtil.MAX_SIZE);
+    }
+
+    @Test
+    void extraRowProducesNextCursor() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 8, 0);
+        List<Row> rows = List.of(new Row(time.plusMinutes(2), 3L), new Row(time.plusMinutes(1), 2L), new Row(time, 1L));
+
+        PageResult<Row> page = CursorUtil.toPageResult(rows, 2, -1, Row::createTime, Row::id);
+
+        assertThat(page.getData()).extracting(Row::id).containsExactly(3L, 2L);
+        CursorUtil.Cursor next = CursorUtil.decode(page.getNextCursor());
+        assertThat(next.createTime()).isEqualTo(time.plusMinutes(1));
+        assertThat(next.id()).isEqualTo(2L);
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        List<Row> rows = List.of(new Row(LocalDateTime.now(), 1L));
+
+        PageResult<Row> page = CursorUtil.toPageResult(rows, 2, 1, Row::createTime, Row::id);
+
+        assertThat(page.getData()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getTotal()).isEqualTo(1);
+    }
+}
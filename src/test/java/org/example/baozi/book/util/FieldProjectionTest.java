@@ -0,0 +1,66 @@
+package org.example.baozi.book.util;
+
+import org.example.baozi.book.response.PageResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldProjectionTest {
+
+    private record Book(Long id, String title, String cover) {
+    }
+
+    private static final FieldProjection.Definition<Book> BOOK = FieldProjection.<Book>define()
+            .field("id", "b.id", Book::id)
+            .field("title", "b.title", Book::title)
+            .field("cover", "b.cover", Book::cover)
+            .required("id");
+
+    @Test
+    void selectsRequestedAndRequiredColumnsInDefinitionOrder() {
+        FieldProjection<Book> projection = BOOK.project(" cover, title ,");
+
+        assertThat(projection.columns()).containsExactly("b.id", "b.title", "b.cover");
+        // 必须查询的id未被请求，不出现在响应中
+        assertThat(projection.apply(new Book(1L, "高等数学", "a.png")))
+                .containsExactly(Map.entry("title", "高等数学"), Map.entry("cover", "a.png"));
+    }
+
+    @Test
+    void blankFieldsMeansAllColumns() {
+        assertThat(BOOK.project(null)).isNull();
+        assertThat(BOOK.project(" ")).isNull();
+        assertThat(FieldProjection.columns(null)).isNull();
+
+        List<Book> rows = List.of(new Book(1L, "a", "b"));
+        assertThat(FieldProjection.apply(null, rows)).isSameAs(rows);
+    }
+
+    @Test
+    void cachesParsedProjection() {
+        assertThat(BOOK.project("title")).isSameAs(BOOK.project("title"));
+    }
+
+    @Test
+    void rejectsUnknownOrEmptyFields() {
+        assertThatThrownBy(() -> BOOK.project("title,password")).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> BOOK.project(",,")).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> FieldProjection.<Book>define().required("id")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void projectsPageKeepingPagingInfo() {
+        PageResult<Book> page = new PageResult<>(List.of(new Book(1L, "a", "b")), 10, 1, "next");
+
+        PageResult<?> result = FieldProjection.apply(BOOK.project("title"), page);
+
+        assertThat(result.getData()).isEqualTo(List.of(Map.of("title", "a")));
+        assertThat(result.getTotal()).isEqualTo(10);
+        assertThat(result.getPageSize()).isEqualTo(1);
+        assertThat(result.getNextCursor()).isEqualTo("next");
+    }
+}
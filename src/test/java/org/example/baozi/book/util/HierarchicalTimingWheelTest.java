@@ -0,0 +1,113 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    private static HierarchicalTimingWheel<String> wheel() {
+        // 每层4个槽，3层共覆盖64个tick
+        return new HierarchicalTimingWheel<>(10, 4, 3, START);
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(0, 4, 3, START))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(10, 1, 3, START))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void expiresOnTickCoveringDeadline() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("a", START + 35, "payload");
+
+        assertThat(wheel.advance(START + 39)).isEmpty();
+        List<HierarchicalTimingWheel.Timeout<String>> expired = wheel.advance(START + 40);
+
+        assertThat(expired).extracting(HierarchicalTimingWheel.Timeout::key).containsExactly("a");
+        assertThat(expired.get(0).deadline()).isEqualTo(START + 35);
+        assertThat(expired.get(0).payload()).isEqualTo("payload");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlineExpiresOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.advance(START + 100);
+        wheel.schedule("a", START, null);
+
+        assertThat(wheel.advance(START + 100)).isEmpty();
+        assertThat(wheel.advance(START + 110)).extracting(HierarchicalTimingWheel.Timeout::key).containsExactly("a");
+    }
+
+    @Test
+    void deadlineBeyondTopLevelIsCascaded() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("far", START + 1000, null);
+
+        assertThat(wheel.advance(START + 990)).isEmpty();
+        assertThat(wheel.advance(START + 1000)).extracting(HierarchicalTimingWheel.Timeout::key).containsExactly("far");
+    }
+
+    @Test
+    void scheduleReplacesAndCancelRemoves() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("a", START + 20, "old");
+        wheel.schedule("a", START + 50, "new");
+        wheel.schedule("b", START + 30, null);
+
+        assertThat(wheel.cancel("b")).isTrue();
+        assertThat(wheel.cancel("b")).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(START + 40)).isEmpty();
+        assertThat(wheel.advance(START + 50)).extracting(HierarchicalTimingWheel.Timeout::payload).containsExactly("new");
+    }
+
+    @Test
+    void expiresInDeadlineOrderAcrossLevels() {
+        HierarchicalTimingWheel<String> wheel = wheel();
+        wheel.schedule("c", START + 300, null);
+        wheel.schedule("a", START + 10, null);
+        wheel.schedule("b", START + 70, null);
+
+        assertThat(wheel.advance(START + 1000)).extracting(HierarchicalTimingWheel.Timeout::key)
+                .containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void matchesExpectedExpiryForRandomSchedule() {
+        Random random = new Random(3);
+        HierarchicalTimingWheel<String> wheel = wheel();
+        Map<String, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            long deadline = START + random.nextInt(2000);
+            deadlines.put("t" + i, deadline);
+            wheel.schedule("t" + i, deadline, null);
+        }
+
+        long now = START;
+        while (now < START + 2100) {
+            now += random.nextInt(40);
+            for (HierarchicalTimingWheel.Timeout<String> timeout : wheel.advance(now)) {
+                Long deadline = deadlines.remove(timeout.key());
+                assertThat(deadline).isNotNull().isLessThanOrEqualTo(now);
+            }
+            // 推进后剩余的任务都还没有到期所在的tick
+            long reached = START + (now - START) / 10 * 10;
+            assertThat(deadlines.values()).allMatch(deadline -> deadline > reached);
+        }
+        assertThat(deadlines).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NGramInvertedIndexTest {
+
+    @Test
+    void tokenizesCjkAndWords() {
+        assertThat(NGramInvertedIndex.tokenize("高等数学 Java8", false))
+                .containsExactly("高", "等", "数", "学", "高等", "等数", "数学", "java8");
+        // 查询时多字只用两字词项，单字保留
+        assertThat(NGramInvertedIndex.tokenize("数学", true)).containsExactly("数学");
+        assertThat(NGramInvertedIndex.tokenize("数", true)).containsExactly("数");
+        assertThat(NGramInvertedIndex.tokenize(null, true)).isEmpty();
+    }
+
+    @Test
+    void searchRequiresAllTokens() {
+        NGramInvertedIndex<Long> index = new NGramInvertedIndex<>();
+        index.put(1L, Map.of("高等数学", 2f));
+        index.put(2L, Map.of("线性代数", 2f));
+        index.put(3L, Map.of("数学分析 Java", 2f));
+
+        assertThat(index.search("数学")).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.search("数学 java")).containsExactly(3L);
+        // 字符都出现但不相邻
+        assertThat(index.search("高数")).isEmpty();
+        assertThat(index.search("  ")).isEmpty();
+    }
+
+    @Test
+    void ranksByFieldWeightThenNewerId() {
+        NGramInvertedIndex<Long> index = new NGramInvertedIndex<>();
+        index.put(1L, Map.of("数学", 1f));
+        index.put(2L, Map.of("数学", 1f));
+        index.put(3L, Map.of("数学", 3f));
+
+        assertThat(index.search("数学")).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void putReplacesAndRemoveDeletesDocument() {
+        NGramInvertedIndex<Long> index = new NGramInvertedIndex<>();
+        index.put(1L, Map.of("高等数学", 1f));
+        index.put(1L, Map.of("线性代数", 1f));
+
+        assertThat(index.search("数学")).isEmpty();
+        assertThat(index.search("代数")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+
+        index.remove(1L);
+        assertThat(index.search("代数")).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+}
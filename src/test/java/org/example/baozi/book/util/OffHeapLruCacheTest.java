@@ -0,0 +1,97 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapLruCacheTest {
+
+    private static byte[] bytes(int length, int value) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) value);
+        return data;
+    }
+
+    private static byte[] read(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+    @Test
+    void rejectsInvalidSize() {
+        assertThatThrownBy(() -> new OffHeapLruCache<String>(10, 11, 16))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void skipsEmptyAndOversizedEntries() {
+        OffHeapLruCache<String> cache = new OffHeapLruCache<>(100, 10, 16);
+
+        assertThat(cache.put("empty", new byte[0])).isFalse();
+        assertThat(cache.put("big", bytes(11, 1))).isFalse();
+        assertThat(cache.get("big")).isNull();
+    }
+
+    @Test
+    void returnsReadOnlyViewWithIndependentPosition() {
+        OffHeapLruCache<String> cache = new OffHeapLruCache<>(100, 10, 16);
+        cache.put("a", new byte[]{1, 2, 3});
+
+        ByteBuffer first = cache.get("a");
+        assertThat(first.isReadOnly()).isTrue();
+        assertThat(read(first)).containsExactly(1, 2, 3);
+        // 前一个视图读完不影响下一次读取
+        assertThat(read(cache.get("a"))).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenCandidateIsHotter() {
+        OffHeapLruCache<String> cache = new OffHeapLruCache<>(8, 4, 16);
+        cache.put("a", bytes(4, 1));
+        cache.put("b", bytes(4, 2));
+        cache.get("a");
+        // 未命中的读取也会计入频率
+        cache.get("c");
+        cache.get("c");
+
+        assertThat(cache.put("c", bytes(4, 3))).isTrue();
+        assertThat(cache.get("b")).isNull();
+        assertThat(read(cache.get("a"))).containsExactly(1, 1, 1, 1);
+        assertThat(read(cache.get("c"))).containsExactly(3, 3, 3, 3);
+        assertThat(cache.stats()).containsEntry("evictions", 1L).containsEntry("usedBytes", 8L);
+    }
+
+    @Test
+    void rejectedCandidateKeepsExistingEntries() {
+        OffHeapLruCache<String> cache = new OffHeapLruCache<>(8, 8, 16);
+        cache.put("a", bytes(4, 1));
+        cache.put("b", bytes(4, 2));
+        cache.get("a");
+        cache.get("b");
+
+        // 需要同时淘汰a和b，b比新数据更热，整体拒绝
+        assertThat(cache.put("c", bytes(8, 3))).isFalse();
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNotNull();
+        assertThat(cache.stats()).containsEntry("rejections", 1L).containsEntry("usedBytes", 8L);
+    }
+
+    @Test
+    void replacingEntryAccountsForOldSize() {
+        OffHeapLruCache<String> cache = new OffHeapLruCache<>(8, 8, 16);
+        cache.put("a", bytes(4, 1));
+        cache.put("a", bytes(8, 2));
+
+        assertThat(read(cache.get("a"))).hasSize(8);
+        assertThat(cache.stats()).containsEntry("usedBytes", 8L).containsEntry("entries", 1);
+
+        cache.invalidate("a");
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.stats()).containsEntry("usedBytes", 0L);
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerceptualHashTest {
+
+    private static byte[] gradient(boolean brighterOnLeft) throws IOException {
+        BufferedImage image = new BufferedImage(90, 80, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 90; x++) {
+            int level = brighterOnLeft ? 255 - x * 255 / 89 : x * 255 / 89;
+            int rgb = (level << 16) | (level << 8) | level;
+            for (int y = 0; y < 80; y++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void hashesGradientByHorizontalDifference() throws IOException {
+        assertThat(PerceptualHash.dHash(gradient(true))).isEqualTo(-1L);
+        assertThat(PerceptualHash.dHash(gradient(false))).isEqualTo(0L);
+    }
+
+    @Test
+    void returnsNullForUnreadableImage() {
+        assertThat(PerceptualHash.dHash(null)).isNull();
+        assertThat(PerceptualHash.dHash(new byte[0])).isNull();
+        assertThat(PerceptualHash.dHash(new byte[]{1, 2, 3})).isNull();
+    }
+
+    @Test
+    void distanceCountsDifferentBits() {
+        assertThat(PerceptualHash.distance(0L, 0L)).isZero();
+        assertThat(PerceptualHash.distance(0b1010L, 0b0110L)).isEqualTo(2);
+        assertThat(PerceptualHash.distance(0L, -1L)).isEqualTo(64);
+    }
+}
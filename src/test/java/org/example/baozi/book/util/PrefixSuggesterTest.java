@@ -0,0 +1,49 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixSuggesterTest {
+
+    private static PrefixSuggester<Long> build(int topK) {
+        return PrefixSuggester.build(List.of(
+                new PrefixSuggester.Suggestion<>("Java编程思想", 5, 1L),
+                new PrefixSuggester.Suggestion<>("Java核心技术", 9, 2L),
+                new PrefixSuggester.Suggestion<>("JavaScript高级程序设计", 7, 3L),
+                new PrefixSuggester.Suggestion<>("数据结构", 3, 4L)), topK);
+    }
+
+    @Test
+    void suggestsByWeightIgnoringCaseAndBlank() {
+        PrefixSuggester<Long> suggester = build(3);
+
+        assertThat(suggester.suggest("  java ", 10)).extracting(PrefixSuggester.Suggestion::payload)
+                .containsExactly(2L, 3L, 1L);
+        assertThat(suggester.suggest("javas", 10)).extracting(PrefixSuggester.Suggestion::text)
+                .containsExactly("JavaScript高级程序设计");
+        assertThat(suggester.size()).isEqualTo(4);
+    }
+
+    @Test
+    void limitsResultsToTopKAndLimit() {
+        PrefixSuggester<Long> suggester = build(2);
+
+        assertThat(suggester.suggest("ja", 10)).extracting(PrefixSuggester.Suggestion::payload)
+                .containsExactly(2L, 3L);
+        assertThat(suggester.suggest("ja", 1)).extracting(PrefixSuggester.Suggestion::payload)
+                .containsExactly(2L);
+        assertThat(suggester.suggest("ja", 0)).isEmpty();
+    }
+
+    @Test
+    void returnsEmptyForUnknownOrEmptyPrefix() {
+        PrefixSuggester<Long> suggester = build(3);
+
+        assertThat(suggester.suggest("python", 10)).isEmpty();
+        assertThat(suggester.suggest("", 10)).isEmpty();
+        assertThat(suggester.suggest(null, 10)).isEmpty();
+    }
+}
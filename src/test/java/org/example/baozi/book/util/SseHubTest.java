@@ -0,0 +1,77 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseHubTest {
+
+    private static SseHub.Event event(int id) {
+        return new SseHub.Event(String.valueOf(id), "order", "{\"id\":" + id + "}");
+    }
+
+    @Test
+    void disconnectsSubscriberWhenBufferIsFull() {
+        // 不执行写出任务，模拟慢连接
+        Queue<Runnable> pending = new ArrayDeque<>();
+        SseHub hub = new SseHub(pending::add, 2, 60_000);
+        hub.subscribe("campus:1");
+        hub.subscribe("campus:1");
+
+        hub.publish("campus:1", event(1));
+        hub.publish("campus:1", event(2));
+        assertThat(hub.size()).isEqualTo(2);
+        // 同一连接只提交一个写出任务
+        assertThat(pending).hasSize(2);
+
+        hub.publish("campus:1", event(3));
+        assertThat(hub.size()).isZero();
+    }
+
+    @Test
+    void drainedSubscriberKeepsReceiving() {
+        Queue<Runnable> pending = new ArrayDeque<>();
+        SseHub hub = new SseHub(pending::add, 2, 60_000);
+        hub.subscribe("campus:1");
+
+        for (int i = 0; i < 10; i++) {
+            hub.publish("campus:1", event(i));
+            while (!pending.isEmpty()) {
+                pending.poll().run();
+            }
+        }
+        hub.heartbeat();
+
+        assertThat(hub.size()).isEqualTo(1);
+    }
+
+    @Test
+    void publishOnlyReachesOwnTopic() {
+        Queue<Runnable> pending = new ArrayDeque<>();
+        SseHub hub = new SseHub(pending::add, 1, 60_000);
+        hub.subscribe("campus:1");
+        hub.subscribe("campus:2");
+
+        hub.publish("campus:1", event(1));
+        hub.publish("campus:1", event(2));
+        hub.publish("campus:3", event(3));
+
+        assertThat(hub.size()).isEqualTo(1);
+    }
+
+    @Test
+    void disconnectsWhenExecutorRejects() {
+        SseHub hub = new SseHub(task -> {
+            throw new RejectedExecutionException("full");
+        }, 4, 60_000);
+        hub.subscribe("campus:1");
+
+        hub.publish("campus:1", event(1));
+
+        assertThat(hub.size()).isZero();
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.baozi.book.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TitleNormalizerTest {
+
+    @Test
+    void normalizesWidthCaseAndPunctuation() {
+        assertThat(TitleNormalizer.normalize("《高等数学》（上册）")).isEqualTo("高等数学上册");
+        assertThat(TitleNormalizer.normalize("高等数学 上册")).isEqualTo("高等数学上册");
+        assertThat(TitleNormalizer.normalize("ＪＡＶＡ核心技术 第１１版")).isEqualTo("java核心技术第11版");
+        assertThat(TitleNormalizer.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void stripsPublisherSuffix() {
+        assertThat(TitleNormalizer.normalizePublisher("人民教育出版社")).isEqualTo("人民教育");
+        assertThat(TitleNormalizer.normalizePublisher("高等教育出版社有限公司")).isEqualTo("高等教育");
+        assertThat(TitleNormalizer.normalizePublisher("机械工业 出版社")).isEqualTo("机械工业");
+        // 只剩后缀时不截断
+        assertThat(TitleNormalizer.normalizePublisher("出版社")).isEqualTo("出版社");
+    }
+
+    @Test
+    void extractsEditionNumber() {
+        assertThat(TitleNormalizer.normalizeEdition("第二版")).isEqualTo("2");
+        assertThat(TitleNormalizer.normalizeEdition("第2版")).isEqualTo("2");
+        assertThat(TitleNormalizer.normalizeEdition("2版")).isEqualTo("2");
+        assertThat(TitleNormalizer.normalizeEdition("2nd Edition")).isEqualTo("2");
+        assertThat(TitleNormalizer.normalizeEdition("第十二版")).isEqualTo("12");
+        assertThat(TitleNormalizer.normalizeEdition("二十一版")).isEqualTo("21");
+        assertThat(TitleNormalizer.normalizeEdition("３")).isEqualTo("3");
+        assertThat(TitleNormalizer.normalizeEdition("修订版")).isEqualTo("修订版");
+    }
+}